@@ -0,0 +1,67 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.benchmarks;
+
+import com.mycompany.logic.CPU;
+import com.mycompany.logic.Instruction;
+import com.mycompany.logic.Memory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Mide CPU.executeInstruction para cada código de operación
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CPUBenchmark {
+    
+    @Param({"MOV AX, 25", "MOV BX, 0", "LOAD AX", "STORE BX", "SUB CX", "ADD DX"})
+    public String line;
+    
+    private CPU cpu;
+    private int word;
+    private String binary;
+    
+    @Setup
+    public void setup() {
+        Memory memory = new Memory();
+        cpu = new CPU(memory);
+        // BX apunta a una celda válida del área de usuario para que STORE no falle
+        cpu.setBX(10);
+        
+        Instruction instruction = new Instruction(line);
+        word = instruction.getEncodedWord();
+        binary = instruction.getBinaryCode();
+    }
+    
+    @Benchmark
+    public boolean executeEncoded() {
+        return cpu.executeInstruction(word);
+    }
+    
+    @Benchmark
+    public boolean executeBinaryString() {
+        return cpu.executeInstruction(binary);
+    }
+}
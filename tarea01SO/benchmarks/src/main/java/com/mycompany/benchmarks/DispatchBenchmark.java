@@ -0,0 +1,110 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.benchmarks;
+
+import com.mycompany.logic.AssembledProgram;
+import com.mycompany.logic.CPU;
+import com.mycompany.logic.Instruction;
+import com.mycompany.logic.Memory;
+import com.mycompany.logic.MemoryStorage;
+import com.mycompany.logic.SimulationResult;
+import com.mycompany.logic.Simulator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Compara el switch de CPU con el despacho por manejadores (ThreadedCode) en instrucciones por segundo
+ * "kernel" repite una secuencia con las superinstrucciones fundidas y STORE a un área de datos;
+ * "random" mezcla operaciones sin STORE al azar, el peor caso para predecir el próximo manejador.
+ * Cada invocación carga el programa y lo ejecuta completo, armado de manejadores incluido: con "same"
+ * se vuelve a cargar el mismo programa (los manejadores se conservan), con "fresh" se alterna entre dos
+ * programas con otras palabras en cada posición, así que cada carga los arma de nuevo, como al abrir
+ * un archivo nuevo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    // Instrucciones por invocación: el programa completo (la carga entra en el tiempo medido)
+    private static final int PROGRAM_SIZE = 14 * 1024;
+    private static final String[] KERNEL = {
+        "MOV DX, " + (PROGRAM_SIZE + 1), "MOV AX, 3", "LOAD AX", "ADD BX", "STORE DX", "LOAD CX", "SUB AX",
+        "MOV BX", "ADD CX", "MOV CX, 7", "LOAD CX", "SUB BX", "LOAD BX", "ADD AX"
+    };
+    private static final String[] RANDOM_LINES = {
+        "ADD AX", "SUB BX", "LOAD CX", "MOV DX, 5", "ADD BX", "MOV AX", "LOAD AX", "SUB CX"
+    };
+    
+    @Param({"switch", "threaded"})
+    public String dispatch;
+    
+    @Param({"kernel", "random"})
+    public String program;
+    
+    @Param({"same", "fresh"})
+    public String reload;
+    
+    private Simulator simulator;
+    private AssembledProgram[] programs;
+    private int invocation;
+    
+    @Setup
+    public void setup() {
+        // El área de datos del kernel (DX) queda detrás del programa, fuera de la región de código
+        Memory memory = new Memory(20 + 2 * PROGRAM_SIZE + 2, 20, MemoryStorage.Type.HEAP);
+        simulator = new Simulator(memory, new CPU(memory));
+        if (dispatch.equals("threaded")) {
+            simulator.enableThreadedDispatch();
+        }
+        programs = new AssembledProgram[] {build(0, new Random(42)), build(1, new Random(43))};
+    }
+    
+    /**
+     * @param shift desplazamiento del kernel; con otro valor cambia la palabra de cada posición (la primera
+     *              sigue siendo MOV DX, para que ningún STORE caiga en el código)
+     */
+    private AssembledProgram build(int shift, Random random) {
+        List<Instruction> instructions = new ArrayList<>();
+        for (int i = 0; i < PROGRAM_SIZE; i++) {
+            String line = program.equals("kernel") ? KERNEL[i == 0 ? 0 : (i + shift) % KERNEL.length]
+                                                    : RANDOM_LINES[random.nextInt(RANDOM_LINES.length)];
+            instructions.add(new Instruction(line));
+        }
+        return AssembledProgram.fromInstructions(instructions);
+    }
+    
+    /**
+     * Carga el programa y lo ejecuta desde el principio
+     */
+    @Benchmark
+    @OperationsPerInvocation(PROGRAM_SIZE)
+    public SimulationResult run() {
+        AssembledProgram next = reload.equals("fresh") ? programs[invocation++ & 1] : programs[0];
+        simulator.load(next);
+        return simulator.run();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.benchmarks;
+
+import com.mycompany.logic.Memory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Mide las operaciones de Memory para distintos tamaños de memoria
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MemoryBenchmark {
+    
+    @Param({"100", "10000", "1000000", "10000000"})
+    public int size;
+    
+    private Memory memory;
+    private int userStart;
+    private int userSize;
+    private int cursor;
+    
+    @Setup(Level.Iteration)
+    public void setup() {
+        memory = new Memory(size, Math.max(10, size / 5));
+        userStart = memory.getUserMemoryStart();
+        userSize = memory.getUserMemorySize();
+    }
+    
+    /**
+     * Recorre el área de usuario con un paso primo para no favorecer la caché
+     */
+    private int nextAddress() {
+        cursor = (cursor + 7919) % userSize;
+        return userStart + cursor;
+    }
+    
+    @Benchmark
+    public boolean write() {
+        return memory.writeToMemory(nextAddress(), cursor);
+    }
+    
+    @Benchmark
+    public int read() {
+        return memory.readFromMemory(nextAddress());
+    }
+    
+    @Benchmark
+    public Object[][] memoryForTable() {
+        return memory.getMemoryForTable();
+    }
+    
+    /**
+     * Crece un 10% y vuelve al tamaño original, midiendo ambos redimensionamientos
+     */
+    @Benchmark
+    public boolean resize() {
+        memory.resizeMemory(size + size / 10);
+        return memory.resizeMemory(size);
+    }
+}
@@ -10,27 +10,45 @@ package com.mycompany.controller;
  */
 
 import com.mycompany.view.App;
+import com.mycompany.view.InstructionTableModel;
+import com.mycompany.view.MemoryTableModel;
+import com.mycompany.view.StatisticsDialog;
 import com.mycompany.logic.CPU;
+import com.mycompany.logic.ClockedRunner;
+import com.mycompany.logic.ExecutionClock;
+import com.mycompany.logic.ExecutionHistory;
+import com.mycompany.logic.ExecutionSnapshot;
 import com.mycompany.logic.Memory;
-import com.mycompany.logic.Instruction;
+import com.mycompany.logic.MemoryStorage;
+import com.mycompany.logic.AssembledProgram;
+import com.mycompany.logic.Simulator;
+import com.mycompany.logic.Assembler;
+import com.mycompany.logic.ProgramImage;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 public class PCController {
+    // A partir de este tamaño la memoria se guarda fuera del heap
+    private static final int OFF_HEAP_THRESHOLD = 1_000_000;
+    
     private App vista;
     private CPU cpu;
     private Memory memory;
-    private List<Instruction> program;
-    private int currentInstructionIndex;
+    private AssembledProgram program;
+    private Simulator simulator;
+    private MemoryTableModel memoryTableModel;
+    private InstructionTableModel instructionTableModel;
+    private StatisticsDialog statisticsDialog;
+    // Ejecución automática en segundo plano; null hasta el primer Start
+    private ClockedRunner runner;
+    // Dibuja el último snapshot de la ejecución como mucho una vez por cuadro
+    private final Timer frameTimer = new Timer(1000 / ExecutionClock.FRAMES_PER_SECOND, e -> renderLatestSnapshot());
     private boolean programLoaded;
     private boolean executing;
     
@@ -38,8 +56,9 @@ public class PCController {
         this.vista = vista;
         this.memory = new Memory(); 
         this.cpu = new CPU(memory);
-        this.program = new ArrayList<>();
-        this.currentInstructionIndex = 0;
+        this.simulator = new Simulator(memory, cpu);
+        this.simulator.enableHistory(ExecutionHistory.DEFAULT_JOURNAL_CAPACITY);
+        this.program = null;
         this.programLoaded = false;
         this.executing = false;
         
@@ -54,12 +73,18 @@ public class PCController {
         vista.newMemorySize.setText("100");
         vista.userMemory.setText("20"); 
 
+        memoryTableModel = new MemoryTableModel(memory);
+        vista.memoryTable.setModel(memoryTableModel);
+        instructionTableModel = new InstructionTableModel();
+        vista.instrucctionTable.setModel(instructionTableModel);
+
         updateMemoryTable();
         updateInstructionTable();
         updateBCPDisplay();
 
         vista.execute.setEnabled(false);
         vista.nextStep.setEnabled(false);
+        vista.previousStep.setEnabled(false);
     }
     
     /**
@@ -75,16 +100,23 @@ public class PCController {
             }
         });
         vista.nextStep.addActionListener(e -> executeNextStep());
+        vista.previousStep.addActionListener(e -> executePreviousStep());
         vista.setNewMemory.addActionListener(e -> configureMemory());
         vista.stadistics.addActionListener(e -> showStatistics());
+        vista.executionSpeed.addActionListener(e -> changeSpeed());
     }
     
     /**
-     * Carga un archivo .asm desde el sistema de archivos
+     * Carga un archivo .asm (o una imagen binaria .mpi) desde el sistema de archivos
      */
     private void loadAssemblyFile() {
+        if (executing) {
+            JOptionPane.showMessageDialog(vista, "Detenga la ejecución antes de cargar otro programa", "Advertencia", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
         JFileChooser fileChooser = new JFileChooser();
-        FileNameExtensionFilter filter = new FileNameExtensionFilter("Assembly files (*.asm)", "asm");
+        FileNameExtensionFilter filter = new FileNameExtensionFilter(
+            "Assembly / program image files (*.asm, *." + ProgramImage.EXTENSION + ")", "asm", ProgramImage.EXTENSION);
         fileChooser.setFileFilter(filter);
         
         int result = fileChooser.showOpenDialog(vista);
@@ -109,76 +141,22 @@ public class PCController {
      */
     private void processFirstInstruction() {
         if (program.size() > 0) {
-            Instruction firstInstruction = program.get(0);
-
-            int binaryValue = Integer.parseInt(firstInstruction.getBinaryCode(), 2);
-            cpu.setIR(binaryValue);
-
-            cpu.incrementPC();
-
-            if (firstInstruction.getOperation().equals("MOV") && firstInstruction.getValue() != 0) {
-                String register = firstInstruction.getRegister();
-                int value = firstInstruction.getValue();
+            String firstInstruction = program.getSourceLine(0);
 
-                switch (register) {
-                    case "AX":
-                        cpu.setAX(value);
-                        System.out.println("Primera instrucción procesada: AX = " + value);
-                        break;
-                    case "BX":
-                        cpu.setBX(value);
-                        System.out.println("Primera instrucción procesada: BX = " + value);
-                        break;
-                    case "CX":
-                        cpu.setCX(value);
-                        System.out.println("Primera instrucción procesada: CX = " + value);
-                        break;
-                    case "DX":
-                        cpu.setDX(value);
-                        System.out.println("Primera instrucción procesada: DX = " + value);
-                        break;
-                }
+            if (!simulator.step()) {
+                throw new IllegalArgumentException(simulator.getLastError());
             }
 
-            currentInstructionIndex = 1;
-
-            System.out.println("IR establecido con primera instrucción: " + firstInstruction.getAssemblyCode());
-            System.out.println("PC apunta a segunda instrucción: " + cpu.getPC());
+            cpu.getTracer().info(() -> "IR establecido con primera instrucción: " + firstInstruction);
+            cpu.getTracer().info(() -> "PC apunta a segunda instrucción: " + cpu.getPC());
         }
     }
     
     /**
-     * Lee y parsea un archivo .asm
+     * Lee y parsea un archivo .asm, o carga directamente una imagen binaria
      */
     private void loadProgramFromFile(String filePath) throws IOException {
-        program.clear();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            int lineNumber = 1;
-            
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                
-                if (!line.isEmpty() && !line.startsWith(";") && !line.startsWith("//")) {
-                    if (!Instruction.isValidInstructionFormat(line)) {
-                        throw new IllegalArgumentException("Formato inválido en línea " + lineNumber + ": " + line);
-                    }
-                    
-                    try {
-                        Instruction instruction = new Instruction(line);
-                        program.add(instruction);
-                    } catch (Exception ex) {
-                        throw new IllegalArgumentException("Error en línea " + lineNumber + ": " + ex.getMessage());
-                    }
-                }
-                lineNumber++;
-            }
-        }
-        
-        if (program.isEmpty()) {
-            throw new IllegalArgumentException("El archivo no contiene instrucciones válidas");
-        }
+        program = Assembler.loadProgram(filePath);
         
         resetExecution();
         
@@ -195,6 +173,7 @@ public class PCController {
         
         vista.execute.setEnabled(true);
         vista.nextStep.setEnabled(true);
+        vista.previousStep.setEnabled(simulator.canStepBack());
         
         highlightCurrentInstruction();
         
@@ -206,58 +185,27 @@ public class PCController {
     }
     
     /**
-     * Procesa las instrucciones MOV con valores inmediatos para establecer valores iniciales
+     * Carga las instrucciones del programa en memoria
      */
-    private void processInitialMovInstructions() {
+    private void loadProgramToMemory() {
+        ensureHistory();
+        simulator.load(program);
         
-        for (Instruction instruction : program) {
-            if (instruction.getOperation().equals("MOV") && instruction.getValue() != 0) {
-                String register = instruction.getRegister();
-                int value = instruction.getValue();
-                
-                switch (register) {
-                    case "AX":
-                        cpu.setAX(value);
-                        System.out.println("Valor inicial: AX = " + value);
-                        break;
-                    case "BX":
-                        cpu.setBX(value);
-                        System.out.println("Valor inicial: BX = " + value);
-                        break;
-                    case "CX":
-                        cpu.setCX(value);
-                        System.out.println("Valor inicial: CX = " + value);
-                        break;
-                    case "DX":
-                        cpu.setDX(value);
-                        System.out.println("Valor inicial: DX = " + value);
-                        break;
-                }
-            }
-        }
+        cpu.getTracer().info(() -> "Programa cargado en memoria desde posición " + memory.getUserMemoryStart() + 
+                         " (" + program.size() + " instrucciones)");
     }
     
+
+    
     /**
-     * Carga las instrucciones del programa en memoria
+     * Vuelve a activar el historial para retroceder pasos si una ejecución automática lo apagó
      */
-    private void loadProgramToMemory() {
-        int startAddress = memory.getUserMemoryStart();
-        
-        cpu.setProgramStart(startAddress);
-        
-        for (int i = 0; i < program.size(); i++) {
-            Instruction instruction = program.get(i);
-            
-            int binaryValue = Integer.parseInt(instruction.getBinaryCode(), 2);
-            memory.writeToMemory(startAddress + i, binaryValue, instruction.getAssemblyCode());
-            
-            System.out.println("Cargando en memoria[" + (startAddress + i) + "]: " + 
-                             instruction.getAssemblyCode() + " -> " + binaryValue);
+    private void ensureHistory() {
+        if (simulator.getHistory() == null) {
+            simulator.enableHistory(ExecutionHistory.DEFAULT_JOURNAL_CAPACITY);
         }
     }
     
-
-    
     /**
      * Inicia la ejecución automática del programa
      */
@@ -270,35 +218,105 @@ public class PCController {
         executing = true;
         vista.execute.setText("Stop");
         vista.nextStep.setEnabled(false);
+        vista.previousStep.setEnabled(false);
         
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                while (executing && currentInstructionIndex < program.size()) {
-                    SwingUtilities.invokeLater(() -> executeCurrentInstruction());
-                    Thread.sleep(1000);
-                }
-                return null;
-            }
-            
-            @Override
-            protected void done() {
-                stopExecution();
-            }
-        };
+        // El historial anota cada paso y deja fuera los caminos rápidos; solo se usa al ir paso a paso
+        simulator.disableHistory();
         
-        worker.execute();
+        // Las instrucciones corren en otro hilo, que publica snapshots sin esperar a la vista;
+        // el Timer dibuja solo el más reciente y los intermedios se descartan
+        runner = new ClockedRunner(simulator, selectedClock());
+        updateViewport();
+        runner.start();
+        renderLatestSnapshot();
+        frameTimer.start();
+    }
+    
+    /**
+     * Dibuja el último estado publicado por la ejecución automática, si hay uno nuevo
+     */
+    private void renderLatestSnapshot() {
+        if (runner == null) {
+            return;
+        }
+        updateViewport();
+        ExecutionSnapshot snapshot = runner.takeSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        vista.jTextArea1.setText(snapshot.getStatus());
+        memoryTableModel.showSnapshot(snapshot);
+        highlightInstruction(snapshot.getCurrentIndex());
+        if (snapshot.isEnded()) {
+            executionEnded(snapshot);
+        }
+    }
+    
+    /**
+     * Indica al runner qué filas de la tabla de memoria se ven, para que las copie en el próximo snapshot
+     */
+    private void updateViewport() {
+        JTable table = vista.memoryTable;
+        Rectangle visible = table.getVisibleRect();
+        int first = table.rowAtPoint(visible.getLocation());
+        int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+        runner.setViewport(Math.max(0, first), last < 0 ? table.getRowCount() - 1 : last);
+    }
+    
+    /**
+     * Fin de la ejecución automática (terminó, falló o se detuvo)
+     */
+    private void executionEnded(ExecutionSnapshot last) {
+        frameTimer.stop();
+        // El hilo de ejecución ya no toca la memoria: la tabla vuelve a leerla directamente
+        memoryTableModel.showMemory();
+        vista.execute.setEnabled(true);
+        if (!last.isFinished() && last.getLastError() != null) {
+            JOptionPane.showMessageDialog(vista, last.getLastError(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        // El snapshot final se publica cuando el hilo ya terminó de ejecutar: no hace falta volver a detenerlo
+        finishExecution();
+    }
+    
+    /**
+     * Velocidad elegida en la vista
+     */
+    private ExecutionClock selectedClock() {
+        return ExecutionClock.fromName((String) vista.executionSpeed.getSelectedItem());
+    }
+    
+    /**
+     * Aplica la velocidad elegida, también durante una ejecución en curso
+     */
+    private void changeSpeed() {
+        if (runner != null) {
+            runner.setClock(selectedClock());
+        }
     }
     
     /**
      * Detiene la ejecución automática
      */
     private void stopExecution() {
+        if (runner != null && runner.isRunning()) {
+            // El hilo termina el lote en curso y publica un último snapshot, que cierra con executionEnded
+            runner.stop();
+            vista.execute.setEnabled(false);
+            return;
+        }
+        finishExecution();
+    }
+    
+    /**
+     * Deja la vista lista para volver a ejecutar o seguir paso a paso
+     */
+    private void finishExecution() {
         executing = false;
         vista.execute.setText("Start");
-        vista.nextStep.setEnabled(currentInstructionIndex < program.size());
+        vista.nextStep.setEnabled(!simulator.isFinished());
+        vista.previousStep.setEnabled(simulator.canStepBack());
         
-        if (currentInstructionIndex >= program.size()) {
+        if (programLoaded && simulator.isFinished()) {
             JOptionPane.showMessageDialog(vista, "Programa terminado", "Información", JOptionPane.INFORMATION_MESSAGE);
         }
     }
@@ -315,45 +333,56 @@ public class PCController {
         executeCurrentInstruction();
     }
     
+    /**
+     * Deshace la última instrucción ejecutada
+     */
+    private void executePreviousStep() {
+        if (!programLoaded || executing) {
+            return;
+        }
+        
+        if (simulator.stepBack()) {
+            updateBCPDisplay();
+            updateChangedMemory();
+            highlightCurrentInstruction();
+        }
+        
+        vista.nextStep.setEnabled(!simulator.isFinished());
+        vista.previousStep.setEnabled(simulator.canStepBack());
+    }
+    
    private void executeCurrentInstruction() {
        
-        if (currentInstructionIndex >= program.size()) {
+        if (simulator.isFinished()) {
             JOptionPane.showMessageDialog(vista, "Programa terminado", "Información", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
 
-        Instruction currentInstruction = program.get(currentInstructionIndex);
-        System.out.println("=== EJECUTANDO PASO " + (currentInstructionIndex + 1) + " ===");
-        System.out.println("Instrucción: " + currentInstruction.getAssemblyCode());
+        // Después de una ejecución automática se puede retroceder desde aquí en adelante
+        ensureHistory();
+        
+        int currentIndex = simulator.getCurrentIndex();
+        String currentInstruction = program.getSourceLine(currentIndex);
+        cpu.getTracer().debug(() -> "=== EJECUTANDO PASO " + (currentIndex + 1) + " ===");
+        cpu.getTracer().debug(() -> "Instrucción: " + currentInstruction);
 
         try {
-            boolean success = false;
-
-            int binaryValue = Integer.parseInt(currentInstruction.getBinaryCode(), 2);
-            cpu.setIR(binaryValue);
-
-            if (currentInstruction.getOperation().equals("MOV") && currentInstruction.getValue() != 0) {
-                success = executeMovWithValue(currentInstruction);
-            } else {
-                success = cpu.executeInstruction(currentInstruction.getBinaryCode());
-            }
+            boolean success = simulator.step();
 
             if (!success) {
                 JOptionPane.showMessageDialog(vista, 
-                    "Error ejecutando instrucción: " + currentInstruction.getAssemblyCode(), 
+                    "Error ejecutando instrucción: " + currentInstruction, 
                     "Error", 
                     JOptionPane.ERROR_MESSAGE);
                 stopExecution();
                 return;
             }
 
-            cpu.incrementPC();
-            currentInstructionIndex++;
-
             updateBCPDisplay();
-            updateMemoryTable();
+            updateChangedMemory();
 
             highlightCurrentInstruction();
+            vista.previousStep.setEnabled(!executing && simulator.canStepBack());
 
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(vista, 
@@ -363,43 +392,19 @@ public class PCController {
             stopExecution();
         }
 
-        if (currentInstructionIndex >= program.size()) {
+        if (simulator.isFinished()) {
             stopExecution();
         }
     }
     
-    /**
-     * Ejecuta una instrucción MOV con valor inmediato
-     */
-    private boolean executeMovWithValue(Instruction instruction) {
-        String register = instruction.getRegister();
-        int value = instruction.getValue();
-        
-        System.out.println("Ejecutando MOV " + register + ", " + value);
-        
-        switch (register) {
-            case "AX":
-                cpu.setAX(value);
-                return true;
-            case "BX":
-                cpu.setBX(value);
-                return true;
-            case "CX":
-                cpu.setCX(value);
-                return true;
-            case "DX":
-                cpu.setDX(value);
-                return true;
-            default:
-                System.out.println("Registro desconocido: " + register);
-                return false;
-        }
-    }
-    
     /**
      * Configura el tamaño de la memoria
      */
     private void configureMemory() {
+        if (executing) {
+            JOptionPane.showMessageDialog(vista, "Detenga la ejecución antes de cambiar la memoria", "Advertencia", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
         try {
             int totalSize = Integer.parseInt(vista.newMemorySize.getText());
             int osSize = Integer.parseInt(vista.userMemory.getText()); // Ahora es para SO
@@ -436,11 +441,18 @@ public class PCController {
                 }
             }
 
-            memory = new Memory(totalSize, osSize);
+            // Las memorias grandes van fuera del heap para no cargar al GC
+            MemoryStorage.Type storageType = totalSize >= OFF_HEAP_THRESHOLD
+                    ? MemoryStorage.Type.OFF_HEAP : MemoryStorage.Type.PAGED;
+            memory = new Memory(totalSize, osSize, storageType);
             cpu = new CPU(memory);
+            simulator = new Simulator(memory, cpu);
+            simulator.enableHistory(ExecutionHistory.DEFAULT_JOURNAL_CAPACITY);
+            memoryTableModel.setMemory(memory);
 
             if (programLoaded) {
                 resetExecution();
+                loadProgramToMemory();
             }
 
             updateMemoryTable();
@@ -460,57 +472,50 @@ public class PCController {
     }
     
     /**
-     * Muestra estadísticas del programa
+     * Muestra estadísticas del programa en una ventana que se actualiza sola
      */
     private void showStatistics() {
-        String stats = "This button is not working yet";
-        JOptionPane.showMessageDialog(vista, stats, "Estadísticas", JOptionPane.INFORMATION_MESSAGE);
+        if (statisticsDialog == null) {
+            // El simulador se reemplaza al reconfigurar la memoria: se consulta el actual en cada actualización
+            statisticsDialog = new StatisticsDialog(vista, () -> simulator.getStats().getReport());
+        }
+        statisticsDialog.setVisible(true);
+        statisticsDialog.toFront();
     }
     
     /**
      * Actualiza la tabla de memoria en la interfaz
      */
     private void updateMemoryTable() {
-        Object[][] data = memory.getMemoryForTable();
-        String[] columnNames = {"Position", "Value in memory"};
-        
-        DefaultTableModel model = new DefaultTableModel(data, columnNames) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
-        vista.memoryTable.setModel(model);
+        memory.takeChanges();
+        memoryTableModel.fireTableDataChanged();
+    }
+    
+    /**
+     * Repinta solo las posiciones modificadas desde la última actualización
+     */
+    private void updateChangedMemory() {
+        memory.publishChanges();
     }
     
     /**
      * Actualiza la tabla de instrucciones en la interfaz
      */
     private void updateInstructionTable() {
-        Object[][] data = new Object[program.size()][2];
-        
-        for (int i = 0; i < program.size(); i++) {
-            Instruction inst = program.get(i);
-            data[i][0] = inst.getAssemblyCode();
-            data[i][1] = inst.getBinaryCode();
-        }
-        
-        String[] columnNames = {"Instruction", "Binary"};
-        DefaultTableModel model = new DefaultTableModel(data, columnNames) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
-        vista.instrucctionTable.setModel(model);
+        instructionTableModel.setProgram(program);
     }
     
     /**
      * Resalta la instrucción que corresponde según el estado actual
      */
     private void highlightCurrentInstruction() {
+        highlightInstruction(simulator.getCurrentIndex());
+    }
+    
+    /**
+     * Resalta la instrucción según el índice de ejecución indicado
+     */
+    private void highlightInstruction(int currentInstructionIndex) {
         if (programLoaded) {
             if (currentInstructionIndex == 1) {
                 // Al cargar, resaltar la primera instrucción (que ya se ejecutó)
@@ -539,10 +544,10 @@ public class PCController {
     private void resetExecution() {
         cpu.reset();
         memory.clearUserMemory();
-        currentInstructionIndex = 0;
         executing = false;
         vista.execute.setText("Start");
         vista.nextStep.setEnabled(programLoaded);
+        vista.previousStep.setEnabled(false);
         updateBCPDisplay();
         updateMemoryTable();
         
@@ -0,0 +1,102 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.List;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Programa ensamblado: palabras ya codificadas listas para el CPU
+ * junto con el texto fuente y la línea del archivo de cada instrucción.
+ * El texto y las líneas son opcionales; sin texto se reconstruye desensamblando la palabra.
+ */
+public class AssembledProgram {
+    private final int[] words;
+    private final String[] sourceLines;
+    private final int[] lineNumbers;
+    
+    public AssembledProgram(int[] words, String[] sourceLines) {
+        this(words, sourceLines, null);
+    }
+    
+    public AssembledProgram(int[] words, String[] sourceLines, int[] lineNumbers) {
+        if (sourceLines != null && sourceLines.length != words.length) {
+            throw new IllegalArgumentException("Cantidad de líneas fuente distinta a la cantidad de instrucciones");
+        }
+        if (lineNumbers != null && lineNumbers.length != words.length) {
+            throw new IllegalArgumentException("Cantidad de números de línea distinta a la cantidad de instrucciones");
+        }
+        this.words = words;
+        this.sourceLines = sourceLines;
+        this.lineNumbers = lineNumbers;
+    }
+    
+    /**
+     * Construye el programa a partir de instrucciones ya parseadas
+     */
+    public static AssembledProgram fromInstructions(List<Instruction> instructions) {
+        int[] words = new int[instructions.size()];
+        String[] sourceLines = new String[instructions.size()];
+        
+        for (int i = 0; i < words.length; i++) {
+            Instruction instruction = instructions.get(i);
+            words[i] = instruction.getEncodedWord();
+            sourceLines[i] = instruction.getAssemblyCode();
+        }
+        
+        return new AssembledProgram(words, sourceLines);
+    }
+    
+    public int size() { return words.length; }
+    public int getWord(int index) { return words[index]; }
+    
+    /**
+     * Copia de todas las palabras, en orden
+     */
+    public int[] copyWords() {
+        return words.clone();
+    }
+    
+    /**
+     * Texto ensamblador de la instrucción
+     */
+    public String getSourceLine(int index) {
+        return sourceLines != null ? sourceLines[index] : Instruction.disassemble(words[index]);
+    }
+    
+    /**
+     * Indica si se conserva el texto original (si no, getSourceLine desensambla)
+     */
+    public boolean hasSourceText() {
+        return sourceLines != null;
+    }
+    
+    /**
+     * Línea del archivo fuente (empezando en 1), o 0 si no se conoce
+     */
+    public int getLineNumber(int index) {
+        return lineNumbers != null ? lineNumbers[index] : 0;
+    }
+    
+    /**
+     * "instrucción N (línea L): texto" para los mensajes de error; la línea solo si se conoce
+     * (en un programa optimizado es la del archivo original, ver OptimizedProgram)
+     */
+    public String describe(int index) {
+        int line = getLineNumber(index);
+        return "instrucción " + (index + 1) + (line > 0 ? " (línea " + line + ")" : "") + ": " + getSourceLine(index);
+    }
+    
+    /**
+     * Código binario de 8 bits de la instrucción, como en la tabla de instrucciones
+     */
+    public String getBinaryCode(int index) {
+        return String.format("%8s", Integer.toBinaryString(words[index] & 0xFF)).replace(' ', '0');
+    }
+}
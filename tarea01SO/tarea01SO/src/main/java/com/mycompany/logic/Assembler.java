@@ -0,0 +1,87 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Clase que traduce archivos .asm a instrucciones de la mini computadora
+ * Usada tanto por la interfaz gráfica como por el simulador sin interfaz
+ */
+public class Assembler {
+    
+    private Assembler() {
+    }
+    
+    /**
+     * Lee y parsea un archivo .asm
+     * @param filePath ruta del archivo
+     * @return lista de instrucciones en el orden del archivo
+     */
+    public static List<Instruction> parseFile(String filePath) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            return parse(reader);
+        }
+    }
+    
+    /**
+     * Parsea un programa línea por línea, ignorando líneas vacías y comentarios (; o //)
+     */
+    public static List<Instruction> parse(BufferedReader reader) throws IOException {
+        List<Instruction> program = new ArrayList<>();
+        String line;
+        int lineNumber = 1;
+        
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            
+            if (!line.isEmpty() && !line.startsWith(";") && !line.startsWith("//")) {
+                if (!Instruction.isValidInstructionFormat(line)) {
+                    throw new IllegalArgumentException("Formato inválido en línea " + lineNumber + ": " + line);
+                }
+                
+                try {
+                    program.add(new Instruction(line));
+                } catch (Exception ex) {
+                    throw new IllegalArgumentException("Error en línea " + lineNumber + ": " + ex.getMessage());
+                }
+            }
+            lineNumber++;
+        }
+        
+        if (program.isEmpty()) {
+            throw new IllegalArgumentException("El archivo no contiene instrucciones válidas");
+        }
+        
+        return program;
+    }
+    
+    /**
+     * Lee un archivo .asm y lo deja listo para el simulador
+     * Usa el ensamblador por streaming, que no crea una Instruction por línea
+     */
+    public static AssembledProgram assembleFile(String filePath) throws IOException {
+        return StreamingAssembler.assembleFile(filePath);
+    }
+    
+    /**
+     * Carga un programa desde un .asm o desde una imagen binaria ya ensamblada (.mpi)
+     */
+    public static AssembledProgram loadProgram(String filePath) throws IOException {
+        if (ProgramImage.isImageFile(filePath)) {
+            return ProgramImage.read(filePath);
+        }
+        return assembleFile(filePath);
+    }
+}
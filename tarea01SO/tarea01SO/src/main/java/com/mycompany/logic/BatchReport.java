@@ -0,0 +1,81 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.List;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Reporte agregado de una ejecución por lotes
+ */
+public class BatchReport {
+    private final List<BatchResult> results;
+    private final int parallelism;
+    private final long wallNanos;
+    
+    BatchReport(List<BatchResult> results, int parallelism, long wallNanos) {
+        this.results = results;
+        this.parallelism = parallelism;
+        this.wallNanos = wallNanos;
+    }
+    
+    // Getters
+    public List<BatchResult> getResults() { return results; }
+    public int getParallelism() { return parallelism; }
+    public long getWallNanos() { return wallNanos; }
+    
+    public int getFailedCount() {
+        int failed = 0;
+        for (BatchResult result : results) {
+            if (!result.isSuccess()) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+    
+    public long getTotalInstructions() {
+        long total = 0;
+        for (BatchResult result : results) {
+            total += result.getInstructionsExecuted();
+        }
+        return total;
+    }
+    
+    /**
+     * Resumen en texto: una línea por archivo y los totales al final
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("=== EJECUCIÓN POR LOTES ===\n");
+        report.append(String.format("%-40s %-8s %6s %6s %6s %6s %6s %12s %10s%n",
+                                    "Archivo", "Estado", "AX", "BX", "CX", "DX", "AC", "Instrucciones", "Tiempo us"));
+        
+        for (BatchResult batchResult : results) {
+            SimulationResult result = batchResult.getResult();
+            if (result == null) {
+                report.append(String.format("%-40s %-8s %s%n", batchResult.getFile(), "ERROR", batchResult.getError()));
+                continue;
+            }
+            report.append(String.format("%-40s %-8s %6d %6d %6d %6d %6d %12d %10d%s%n",
+                                        batchResult.getFile(), batchResult.isSuccess() ? "OK" : "ERROR",
+                                        result.getAX(), result.getBX(), result.getCX(), result.getDX(), result.getAC(),
+                                        result.getInstructionsExecuted(), batchResult.getWallNanos() / 1000,
+                                        batchResult.getError() != null ? "  " + batchResult.getError() : ""));
+        }
+        
+        double seconds = wallNanos / 1e9;
+        report.append("Archivos: ").append(results.size()).append("  Fallidos: ").append(getFailedCount()).append("\n");
+        report.append("Instrucciones totales: ").append(getTotalInstructions()).append("\n");
+        report.append("Hilos: ").append(parallelism).append("\n");
+        report.append(String.format("Tiempo total: %.3f s (%.1f archivos/s)%n",
+                                    seconds, seconds > 0 ? results.size() / seconds : 0));
+        return report.toString();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.nio.file.Path;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Resultado de un archivo dentro de una ejecución por lotes
+ */
+public class BatchResult {
+    private final Path file;
+    private final SimulationResult result;
+    private final String loadError;
+    private final long wallNanos;
+    
+    BatchResult(Path file, SimulationResult result, String loadError, long wallNanos) {
+        this.file = file;
+        this.result = result;
+        this.loadError = loadError;
+        this.wallNanos = wallNanos;
+    }
+    
+    public Path getFile() { return file; }
+    
+    /**
+     * Resultado de la simulación, o null si el archivo no se pudo ensamblar o cargar
+     */
+    public SimulationResult getResult() { return result; }
+    public long getWallNanos() { return wallNanos; }
+    
+    public boolean isSuccess() {
+        return result != null && result.getStopReason() != SimulationResult.StopReason.ERROR;
+    }
+    
+    /**
+     * Mensaje de error de carga o de ejecución, o null si no hubo error
+     */
+    public String getError() {
+        if (loadError != null) {
+            return loadError;
+        }
+        return result != null ? result.getErrorMessage() : null;
+    }
+    
+    public long getInstructionsExecuted() {
+        return result != null ? result.getInstructionsExecuted() : 0;
+    }
+}
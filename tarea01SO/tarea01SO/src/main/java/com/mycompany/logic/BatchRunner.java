@@ -0,0 +1,168 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Ejecuta muchos programas .asm en paralelo
+ * Cada archivo se ensambla y se ejecuta con su propio CPU y su propia Memory,
+ * así que los hilos del pool no comparten estado y el rendimiento escala con los núcleos;
+ * solo las etiquetas escritas en la memoria comparten LabelPool.getShared, una copia de cada texto para todas
+ */
+public class BatchRunner {
+    private final int totalSize;
+    private final int osSize;
+    private final long maxInstructions;
+    private final int parallelism;
+    
+    /**
+     * @param totalSize tamaño de la memoria de cada programa
+     * @param osSize tamaño del área del SO de cada programa
+     * @param maxInstructions presupuesto de instrucciones por programa
+     * @param parallelism hilos del pool (0 para usar todos los núcleos)
+     */
+    public BatchRunner(int totalSize, int osSize, long maxInstructions, int parallelism) {
+        this.totalSize = totalSize;
+        this.osSize = osSize;
+        this.maxInstructions = maxInstructions;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+    
+    /**
+     * Busca los archivos a ejecutar
+     * @param dirOrGlob un directorio (se recorre completo buscando .asm y .mpi) o un patrón glob como "tests/**.asm"
+     */
+    public static List<Path> findPrograms(String dirOrGlob) throws IOException {
+        Path path = Paths.get(dirOrGlob);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                return files.filter(Files::isRegularFile)
+                            .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".asm")
+                                      || ProgramImage.isImageFile(p.getFileName().toString()))
+                            .sorted()
+                            .collect(Collectors.toList());
+            }
+        }
+        
+        // El directorio base es la parte del patrón anterior al primer comodín
+        String normalized = dirOrGlob.replace('\\', '/');
+        int wildcard = indexOfWildcard(normalized);
+        if (wildcard < 0) {
+            List<Path> single = new ArrayList<>();
+            if (Files.isRegularFile(path)) {
+                single.add(path);
+            }
+            return single;
+        }
+        
+        int slash = normalized.lastIndexOf('/', wildcard);
+        Path base = slash >= 0 ? Paths.get(normalized.substring(0, slash + 1)) : Paths.get(".");
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized.substring(slash + 1));
+        
+        if (!Files.isDirectory(base)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.walk(base)) {
+            return files.filter(Files::isRegularFile)
+                        .filter(p -> matcher.matches(base.relativize(p)))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+    
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Ejecuta todos los archivos en un ForkJoinPool y junta los resultados
+     */
+    public BatchReport run(List<Path> files) {
+        BatchResult[] results = new BatchResult[files.size()];
+        long start = System.nanoTime();
+        
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RunRange(files, results, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        
+        List<BatchResult> list = new ArrayList<>(results.length);
+        for (BatchResult result : results) {
+            list.add(result);
+        }
+        return new BatchReport(list, parallelism, System.nanoTime() - start);
+    }
+    
+    /**
+     * Ensambla y ejecuta un único archivo con su propia máquina
+     */
+    BatchResult runFile(Path file) {
+        long start = System.nanoTime();
+        try {
+            AssembledProgram program = Assembler.loadProgram(file.toString());
+            Memory memory = new Memory(totalSize, osSize, MemoryStorage.Type.PAGED, LabelPool.getShared());
+            Simulator simulator = new Simulator(memory, new CPU(memory));
+            simulator.load(program);
+            SimulationResult result = simulator.run(maxInstructions);
+            return new BatchResult(file, result, null, System.nanoTime() - start);
+        } catch (Exception ex) {
+            return new BatchResult(file, null, ex.getMessage(), System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Divide la lista de archivos en mitades hasta llegar a un archivo por tarea
+     */
+    private final class RunRange extends RecursiveAction {
+        private final List<Path> files;
+        private final BatchResult[] results;
+        private final int from;
+        private final int to;
+        
+        RunRange(List<Path> files, BatchResult[] results, int from, int to) {
+            this.files = files;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    results[from] = runFile(files.get(from));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RunRange(files, results, from, middle), new RunRange(files, results, middle, to));
+        }
+    }
+}
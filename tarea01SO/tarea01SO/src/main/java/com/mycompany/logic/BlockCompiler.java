@@ -0,0 +1,308 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.ConstantDescs;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Traductor en tiempo de ejecución de bloques de instrucciones a bytecode de la JVM
+ * La región de código se divide en bloques alineados de BLOCK_SIZE instrucciones. Cuando el intérprete
+ * llega al inicio de un bloque por vez número threshold + 1, el bloque se traduce con java.lang.classfile
+ * a una clase oculta (MethodHandles.Lookup.defineHiddenClass) y desde entonces se ejecuta con ella.
+ * Los registros viven en variables locales del método generado; ver CompiledBlock.
+ *
+ * Los bloques se traducen desde las palabras del programa, así que se conservan entre cargas del mismo
+ * AssembledProgram; un bloque que el programa modificó en memoria vuelve al intérprete (ver
+ * DecodedInstructionCache.isBlockModified). Si la traducción falla el bloque queda en el intérprete.
+ */
+public class BlockCompiler {
+    // Bloques chicos: el método generado tiene que quedar bajo el límite de 8000 bytes de bytecode
+    // que la JVM compila a código nativo (un STORE ocupa unos 35 bytes)
+    public static final int BLOCK_SIZE = 128;
+    
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassDesc CD_GENERATED = ClassDesc.of("com.mycompany.logic.CompiledBlockCode");
+    private static final ClassDesc CD_CODE = ClassDesc.of("com.mycompany.logic.CompiledBlock$Code");
+    private static final ClassDesc CD_COMPILED_BLOCK = ClassDesc.of("com.mycompany.logic.CompiledBlock");
+    private static final ClassDesc CD_MEMORY_PORT = ClassDesc.of("com.mycompany.logic.MemoryPort");
+    private static final MethodTypeDesc MTD_EXECUTE = MethodTypeDesc.of(ConstantDescs.CD_int, ConstantDescs.CD_int.arrayType(),
+            CD_MEMORY_PORT, ConstantDescs.CD_int, ConstantDescs.CD_int, ConstantDescs.CD_int, ConstantDescs.CD_int);
+    private static final MethodTypeDesc MTD_STORE = MethodTypeDesc.of(ConstantDescs.CD_int, CD_MEMORY_PORT,
+            ConstantDescs.CD_int, ConstantDescs.CD_int, ConstantDescs.CD_int, ConstantDescs.CD_int,
+            ConstantDescs.CD_int, ConstantDescs.CD_int);
+    
+    // Variables locales de Code.execute: parámetros, registros (AC en REGISTER_LOCALS) y auxiliares
+    private static final int REGISTERS_ARG = 1;
+    private static final int PORT_ARG = 2;
+    private static final int BASE_ARG = 3;
+    private static final int LIMIT_ARG = 4;
+    private static final int CODE_START_ARG = 5;
+    private static final int CODE_END_ARG = 6;
+    private static final int REGISTER_LOCALS = 7;
+    private static final int POSITION_LOCAL = REGISTER_LOCALS + Instruction.REG_DX + 1;
+    private static final int STATUS_LOCAL = POSITION_LOCAL + 1;
+    
+    private final int threshold;
+    private AssembledProgram program;
+    private CompiledBlock[] blocks;
+    private int[] entries;
+    private boolean[] uncompilable;
+    private long compiledBlocks;
+    private long failedBlocks;
+    private long compileNanos;
+    
+    /**
+     * @param threshold veces que el intérprete ejecuta un bloque antes de traducirlo (0 = la primera vez)
+     */
+    public BlockCompiler(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("El umbral de compilación no puede ser negativo: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+    
+    /**
+     * Prepara las tablas para un programa; si es el mismo que antes se conservan sus bloques traducidos
+     */
+    void prepare(AssembledProgram program) {
+        if (program == this.program) {
+            return;
+        }
+        this.program = program;
+        int count = program == null ? 0 : (program.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        blocks = new CompiledBlock[count];
+        entries = new int[count];
+        uncompilable = new boolean[count];
+    }
+    
+    /**
+     * Bloque traducido para ejecutar, o null si todavía no está caliente o no se pudo traducir
+     * Cada llamada sin bloque traducido cuenta como una entrada del intérprete al bloque.
+     */
+    CompiledBlock blockFor(int block) {
+        CompiledBlock compiled = blocks[block];
+        if (compiled != null || uncompilable[block]) {
+            return compiled;
+        }
+        if (entries[block]++ < threshold) {
+            return null;
+        }
+        
+        long start = System.nanoTime();
+        int from = block * BLOCK_SIZE;
+        int length = compilableLength(program, from, Math.min(BLOCK_SIZE, program.size() - from));
+        try {
+            compiled = length > 0 ? compile(program, from, length) : null;
+        } catch (RuntimeException | LinkageError ex) {
+            // El intérprete sigue siendo el camino de referencia: el bloque se queda en él
+            compiled = null;
+            failedBlocks++;
+        }
+        compileNanos += System.nanoTime() - start;
+        
+        if (compiled == null) {
+            uncompilable[block] = true;
+        } else {
+            blocks[block] = compiled;
+            compiledBlocks++;
+        }
+        return compiled;
+    }
+    
+    /**
+     * Cuántas instrucciones desde from se pueden traducir: se corta antes de la primera inválida,
+     * que ejecuta el intérprete para producir el error
+     */
+    private static int compilableLength(AssembledProgram program, int from, int max) {
+        for (int i = 0; i < max; i++) {
+            int word = program.getWord(from + i);
+            int opCode = (word >>> 4) & 0xF;
+            int regCode = word & 0xF;
+            if (Instruction.operationName(opCode) == null || regCode < Instruction.REG_AX || regCode > Instruction.REG_DX) {
+                return i;
+            }
+        }
+        return max;
+    }
+    
+    /**
+     * Traduce length instrucciones del programa desde from y carga la clase oculta
+     */
+    public static CompiledBlock compile(AssembledProgram program, int from, int length) {
+        int[] words = new int[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = program.getWord(from + i);
+        }
+        
+        byte[] bytes = generate(words);
+        try {
+            MethodHandles.Lookup hidden = LOOKUP.defineHiddenClass(bytes, true);
+            CompiledBlock.Code code = (CompiledBlock.Code) hidden.findConstructor(hidden.lookupClass(),
+                                                                                    MethodType.methodType(void.class)).invoke();
+            return new CompiledBlock(code, words);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("No se pudo cargar el bloque traducido", ex);
+        }
+    }
+    
+    /**
+     * Bytes de la clase que implementa CompiledBlock.Code para las palabras dadas
+     */
+    static byte[] generate(int[] words) {
+        return ClassFile.of().build(CD_GENERATED, clazz -> clazz
+                .withFlags(ClassFile.ACC_FINAL | ClassFile.ACC_SYNTHETIC)
+                .withSuperclass(ConstantDescs.CD_Object)
+                .withInterfaceSymbols(CD_CODE)
+                .withMethodBody(ConstantDescs.INIT_NAME, ConstantDescs.MTD_void, ClassFile.ACC_PUBLIC, code -> code
+                        .aload(0)
+                        .invokespecial(ConstantDescs.CD_Object, ConstantDescs.INIT_NAME, ConstantDescs.MTD_void)
+                        .return_())
+                .withMethodBody("execute", MTD_EXECUTE, ClassFile.ACC_PUBLIC, code -> generateExecute(code, words)));
+    }
+    
+    private static void generateExecute(CodeBuilder code, int[] words) {
+        Label storeExit = code.newLabel();
+        
+        for (int register = 0; register <= Instruction.REG_DX; register++) {
+            code.aload(REGISTERS_ARG).loadConstant(register).iaload().istore(REGISTER_LOCALS + register);
+        }
+        
+        int ac = REGISTER_LOCALS;
+        for (int i = 0; i < words.length; i++) {
+            int word = words[i];
+            int register = REGISTER_LOCALS + (word & 0xF);
+            int immediate = word >> 8;
+            switch ((word >>> 4) & 0xF) {
+                case Instruction.OP_LOAD:
+                    code.iload(register).istore(ac);
+                    break;
+                case Instruction.OP_ADD:
+                    code.iload(ac).iload(register).iadd().istore(ac);
+                    break;
+                case Instruction.OP_SUB:
+                    code.iload(ac).iload(register).isub().istore(ac);
+                    break;
+                case Instruction.OP_MOV:
+                    if (immediate != 0) {
+                        code.loadConstant(immediate).istore(register);
+                    } else {
+                        code.iload(ac).istore(register);
+                    }
+                    break;
+                case Instruction.OP_STORE:
+                    code.loadConstant(i).istore(POSITION_LOCAL)
+                        .aload(PORT_ARG).iload(BASE_ARG).iload(LIMIT_ARG).iload(CODE_START_ARG).iload(CODE_END_ARG)
+                        .iload(register).iload(ac)
+                        .invokestatic(CD_COMPILED_BLOCK, "store", MTD_STORE)
+                        .dup().istore(STATUS_LOCAL).ifne(storeExit)
+                        .iload(ac).istore(register);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Instrucción no traducible: " + Instruction.disassemble(word));
+            }
+        }
+        
+        writeBack(code);
+        code.loadConstant(words.length << CompiledBlock.STATUS_BITS).ireturn();
+        
+        code.labelBinding(storeExit);
+        writeBack(code);
+        code.iload(POSITION_LOCAL).loadConstant(CompiledBlock.STATUS_BITS).ishl().iload(STATUS_LOCAL).ior().ireturn();
+    }
+    
+    private static void writeBack(CodeBuilder code) {
+        for (int register = 0; register <= Instruction.REG_DX; register++) {
+            code.aload(REGISTERS_ARG).loadConstant(register).iload(REGISTER_LOCALS + register).iastore();
+        }
+    }
+    
+    /**
+     * Ejecuta el programa dos veces en máquinas nuevas, con el intérprete y traduciendo cada bloque
+     * desde la primera vez, y compara registros, memoria, contadores y forma de terminar
+     * @return diferencias encontradas; vacía si las dos ejecuciones coinciden
+     */
+    public static List<String> verify(AssembledProgram program, int totalSize, int osSize, long maxInstructions) {
+        Simulator interpreted = newMachine(totalSize, osSize);
+        Simulator compiled = newMachine(totalSize, osSize);
+        compiled.enableCompiler(new BlockCompiler(0));
+        
+        interpreted.load(program);
+        SimulationResult expected = interpreted.run(maxInstructions);
+        compiled.load(program);
+        SimulationResult actual = compiled.run(maxInstructions);
+        
+        List<String> differences = new ArrayList<>();
+        compare(differences, "AC", expected.getAC(), actual.getAC());
+        compare(differences, "AX", expected.getAX(), actual.getAX());
+        compare(differences, "BX", expected.getBX(), actual.getBX());
+        compare(differences, "CX", expected.getCX(), actual.getCX());
+        compare(differences, "DX", expected.getDX(), actual.getDX());
+        compare(differences, "IR", expected.getIR(), actual.getIR());
+        compare(differences, "PC", expected.getPC(), actual.getPC());
+        compare(differences, "instrucciones", expected.getInstructionsExecuted(), actual.getInstructionsExecuted());
+        if (expected.getStopReason() != actual.getStopReason()) {
+            differences.add("fin: " + expected.getStopReason() + " / " + actual.getStopReason());
+        }
+        if (!String.valueOf(expected.getErrorMessage()).equals(String.valueOf(actual.getErrorMessage()))) {
+            differences.add("error: " + expected.getErrorMessage() + " / " + actual.getErrorMessage());
+        }
+        
+        int[] expectedMemory = interpreted.getMemory().dumpMemory();
+        int[] actualMemory = compiled.getMemory().dumpMemory();
+        int mismatch = Arrays.mismatch(expectedMemory, actualMemory);
+        if (mismatch >= 0) {
+            differences.add("memoria[" + mismatch + "]: " + expectedMemory[mismatch] + " / " + actualMemory[mismatch]);
+        }
+        
+        ExecutionStats expectedStats = interpreted.getStats();
+        ExecutionStats actualStats = compiled.getStats();
+        for (int opCode = 0; opCode < 16; opCode++) {
+            if (Instruction.operationName(opCode) != null) {
+                compare(differences, Instruction.operationName(opCode), expectedStats.getOpcodeCount(opCode),
+                        actualStats.getOpcodeCount(opCode));
+            }
+        }
+        compare(differences, "errores", expectedStats.getErrors(), actualStats.getErrors());
+        return differences;
+    }
+    
+    private static Simulator newMachine(int totalSize, int osSize) {
+        Memory memory = new Memory(totalSize, osSize, MemoryStorage.Type.HEAP);
+        return new Simulator(memory, new CPU(memory));
+    }
+    
+    private static void compare(List<String> differences, String name, long expected, long actual) {
+        if (expected != actual) {
+            differences.add(name + ": " + expected + " / " + actual + " (intérprete / traducido)");
+        }
+    }
+    
+    public String getReport() {
+        return String.format("=== COMPILADOR ===%nBloques traducidos: %d  Fallidos: %d  Tiempo: %.1f ms%n",
+                             compiledBlocks, failedBlocks, compileNanos / 1e6);
+    }
+    
+    public int getThreshold() { return threshold; }
+    public long getCompiledBlocks() { return compiledBlocks; }
+    public long getFailedBlocks() { return failedBlocks; }
+    public long getCompileNanos() { return compileNanos; }
+}
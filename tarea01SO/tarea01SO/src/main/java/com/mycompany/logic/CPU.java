@@ -4,6 +4,8 @@
  */
 package com.mycompany.logic;
 
+import java.util.Arrays;
+
 /**
  *
  * @author gadyr
@@ -15,22 +17,35 @@ package com.mycompany.logic;
  * Contiene los registros y la lógica de procesamiento
  */
 public class CPU {
-    // Registros de propósito general
-    private int AX;  // 0001
-    private int BX;  // 0010
-    private int CX;  // 0011
-    private int DX;  // 0100
+    // Índice del acumulador en el banco de registros
+    private static final int AC_INDEX = 0;
+    
+    // Banco de registros indexado por el código binario del registro:
+    // [0] AC, [1] AX (0001), [2] BX (0010), [3] CX (0011), [4] DX (0100)
+    private final int[] registers = new int[Instruction.REG_DX + 1];
     
     // Registros especiales
-    private int AC;  // Acumulador
     private int IR;  // Registro de Instrucciones (instrucción ACTUAL)
     private int PC;  // Contador de Programa (PRÓXIMA instrucción)
     
     // Referencia a la memoria
     private Memory memory;
+    // Por donde pasan los accesos de STORE: la memoria física o una capa de memoria virtual
+    private MemoryPort memoryPort;
+    
+    // Partición del proceso actual: STORE escribe en [memoryBase, memoryLimit)
+    private int memoryBase;
+    private int memoryLimit;
+    
+    // Última dirección escrita por la instrucción actual (-1 si no escribió)
+    private int lastWriteAddress = -1;
+    
+    // Trazas de ejecución (apagadas por defecto)
+    private Tracer tracer = new Tracer();
     
     public CPU(Memory memory) {
         this.memory = memory;
+        this.memoryPort = memory;
         reset();
     }
     
@@ -38,8 +53,31 @@ public class CPU {
      * Reinicia todos los registros a 0
      */
     public void reset() {
-        AX = BX = CX = DX = AC = IR = 0;
+        Arrays.fill(registers, 0);
+        IR = 0;
         PC = memory.getUserMemoryStart(); // PC apunta al inicio del área de usuario
+        memoryBase = memory.getUserMemoryStart();
+        memoryLimit = Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Carga en el CPU el contexto guardado en un BCP (cambio de contexto)
+     */
+    public void loadContext(ProcessControlBlock pcb) {
+        System.arraycopy(pcb.registers, 0, registers, 0, registers.length);
+        IR = pcb.ir;
+        PC = pcb.pc;
+        memoryBase = pcb.getMemoryBase();
+        memoryLimit = pcb.getMemoryLimit();
+    }
+    
+    /**
+     * Guarda el contexto actual del CPU en el BCP del proceso que sale
+     */
+    public void saveContext(ProcessControlBlock pcb) {
+        System.arraycopy(registers, 0, pcb.registers, 0, registers.length);
+        pcb.ir = IR;
+        pcb.pc = PC;
     }
     
     /**
@@ -47,7 +85,7 @@ public class CPU {
      */
     public void setProgramStart(int startAddress) {
         PC = startAddress;
-        System.out.println("PC inicializado en posición: " + PC);
+        tracer.info(() -> "PC inicializado en posición: " + startAddress);
     }
     
     /**
@@ -56,125 +94,148 @@ public class CPU {
      * @return true si la ejecución fue exitosa
      */
     public boolean executeInstruction(String binaryInstruction) {
-        System.out.println("Ejecutando instrucción binaria: " + binaryInstruction + " (longitud: " + binaryInstruction.length() + ")");
+        tracer.debug(() -> "Ejecutando instrucción binaria: " + binaryInstruction + " (longitud: " + binaryInstruction.length() + ")");
         
         if (binaryInstruction.length() != 8) {
-            System.out.println("Error: longitud de instrucción incorrecta");
+            tracer.error(() -> "Error: longitud de instrucción incorrecta");
             return false;
         }
         
-        // IR contiene la instrucción ACTUAL que se está ejecutando
-        IR = Integer.parseInt(binaryInstruction, 2);
+        return executeInstruction(Integer.parseInt(binaryInstruction, 2));
+    }
+    
+    /**
+     * Ejecuta una instrucción ya codificada (ver Instruction.getEncodedWord)
+     * Bits 0-3: registro, bits 4-7: operación, bits 8-31: valor inmediato de MOV
+     * @param word palabra codificada
+     * @return true si la ejecución fue exitosa
+     */
+    public boolean executeInstruction(int word) {
+        return executeDecoded(word, (word >>> 4) & 0xF, word & 0xF, word >> 8);
+    }
+    
+    /**
+     * Ejecuta una instrucción cuyos campos ya se separaron (ver DecodedInstructionCache)
+     * @param word palabra codificada completa, para IR y las trazas
+     * @return true si la ejecución fue exitosa
+     */
+    public boolean executeDecoded(int word, int opCode, int regCode, int immediate) {
+        // IR contiene la instrucción ACTUAL que se está ejecutando (8 bits)
+        IR = word & 0xFF;
+        lastWriteAddress = -1;
+        
+        int acBefore = registers[AC_INDEX];
         
-        // Extraer operación (bits 0-3) y registro (bits 4-7)
-        String opCode = binaryInstruction.substring(0, 4);
-        String regCode = binaryInstruction.substring(4, 8);
+        if (tracer.isEnabled(TraceLevel.DEBUG)) {
+            tracer.debug(() -> "OpCode: " + opCode + ", RegCode: " + regCode);
+            tracer.debug(() -> "IR=" + IR + ", PC apunta a próxima instrucción: " + PC);
+        }
         
-        System.out.println("OpCode: " + opCode + ", RegCode: " + regCode);
-        System.out.println("IR=" + IR + ", PC apunta a próxima instrucción: " + PC);
+        boolean success = dispatch(opCode, regCode, immediate);
+        
+        tracer.record(PC, IR, opCode, regCode, acBefore, registers[AC_INDEX], success);
+        if (!success) {
+            tracer.onError();
+        }
+        return success;
+    }
+    
+    private boolean dispatch(int opCode, int regCode, int immediate) {
+        if (regCode < Instruction.REG_AX || regCode > Instruction.REG_DX) {
+            tracer.error(() -> "Registro desconocido: " + regCode);
+            return false;
+        }
         
         switch (opCode) {
-            case "0001": // LOAD
+            case Instruction.OP_LOAD:
                 return executeLoad(regCode);
-            case "0010": // STORE
+            case Instruction.OP_STORE:
                 return executeStore(regCode);
-            case "0011": // MOV
-                return executeMove(regCode);
-            case "0100": // SUB
+            case Instruction.OP_MOV:
+                return executeMove(regCode, immediate);
+            case Instruction.OP_SUB:
                 return executeSubtract(regCode);
-            case "0101": // ADD
+            case Instruction.OP_ADD:
                 return executeAdd(regCode);
             default:
-                System.out.println("Operación desconocida: " + opCode);
+                tracer.error(() -> "Operación desconocida: " + opCode);
                 return false;
         }
     }
     
-    private boolean executeLoad(String regCode) {
-        int registerValue = getRegisterValue(regCode);
-        if (registerValue != Integer.MIN_VALUE) {
-            AC = registerValue;
-            System.out.println("LOAD: Cargando valor " + registerValue + " al AC");
-            return true;
+    private boolean executeLoad(int regCode) {
+        int registerValue = registers[regCode];
+        registers[AC_INDEX] = registerValue;
+        if (tracer.isEnabled(TraceLevel.DEBUG)) {
+            tracer.debug(() -> "LOAD: Cargando valor " + registerValue + " al AC");
         }
-        return false;
+        return true;
     }
     
-    private boolean executeStore(String regCode) {
-        int registerValue = getRegisterValue(regCode);
-        if (registerValue != Integer.MIN_VALUE) {
-            // Convertir la dirección relativa del registro a dirección absoluta en área de usuario
-            int absoluteAddress = memory.getUserMemoryStart() + registerValue;
+    private boolean executeStore(int regCode) {
+        int ac = registers[AC_INDEX];
+        // Convertir la dirección relativa del registro a dirección absoluta en la partición del programa
+        int absoluteAddress = memoryBase + registers[regCode];
 
-            // STORE guarda el AC en la dirección calculada (solo en área de usuario)
-            // Usar writeToMemory sin etiqueta para preservar la etiqueta existente
-            boolean success = memory.writeToMemory(absoluteAddress, AC);
+        // STORE guarda el AC en la dirección calculada (solo en área de usuario y dentro de la partición)
+        // Usar writeToMemory sin etiqueta para preservar la etiqueta existente
+        boolean success = absoluteAddress >= memoryBase && absoluteAddress < memoryLimit
+                && writeData(absoluteAddress, ac);
 
-            if (success) {
-                // Solo actualizar el registro si la escritura en memoria fue exitosa
-                setRegisterValue(regCode, AC);
-                System.out.println("STORE: Guardando AC=" + AC + " en memoria[" + absoluteAddress + "] y actualizando registro");
-            } else {
-                System.out.println("STORE: Error - No se pudo escribir en memoria[" + absoluteAddress + "] (área protegida o fuera de rango)");
+        if (success) {
+            // Solo actualizar el registro si la escritura en memoria fue exitosa
+            registers[regCode] = ac;
+            lastWriteAddress = absoluteAddress;
+            if (tracer.isEnabled(TraceLevel.DEBUG)) {
+                tracer.debug(() -> "STORE: Guardando AC=" + ac + " en memoria[" + absoluteAddress + "] y actualizando registro");
             }
-
-            return success;
+        } else {
+            tracer.error(() -> "STORE: Error - No se pudo escribir en memoria[" + absoluteAddress + "] (área protegida o fuera de rango)");
         }
-        return false;
-    }
-    
-    private boolean executeMove(String regCode) {
-        // Para MOV básico entre registros (MOV reg, AC)
-        // Nota: Los MOV con valores inmediatos se manejan en el controlador
-        return setRegisterValue(regCode, AC);
+
+        return success;
     }
     
-    private boolean executeAdd(String regCode) {
-        int registerValue = getRegisterValue(regCode);
-        if (registerValue != Integer.MIN_VALUE) {
-            int oldAC = AC;
-            AC += registerValue;
-            System.out.println("ADD: " + oldAC + " + " + registerValue + " = " + AC);
-            return true;
+    /**
+     * Escribe por el puerto de memoria; si la dirección es código y el puerto retuvo la escritura
+     * (caché WRITE_BACK) la baja a la memoria, donde la busca la próxima búsqueda de instrucción
+     */
+    boolean writeData(int address, int value) {
+        if (!memoryPort.write(address, value)) {
+            return false;
+        }
+        if (memoryPort != memory && memory.isCode(address)) {
+            memoryPort.flush(address);
         }
-        return false;
+        return true;
     }
     
-    private boolean executeSubtract(String regCode) {
-        int registerValue = getRegisterValue(regCode);
-        if (registerValue != Integer.MIN_VALUE) {
-            int oldAC = AC;
-            AC -= registerValue;
-            System.out.println("SUB: " + oldAC + " - " + registerValue + " = " + AC);
-            return true;
-        }
-        return false;
+    private boolean executeMove(int regCode, int immediate) {
+        // MOV reg, valor carga el inmediato; sin valor (o con 0) copia el AC al registro
+        registers[regCode] = immediate != 0 ? immediate : registers[AC_INDEX];
+        return true;
     }
     
-    /**
-     * Obtiene el valor de un registro según su código binario
-     */
-    private int getRegisterValue(String regCode) {
-        switch (regCode) {
-            case "0001": return AX;
-            case "0010": return BX;
-            case "0011": return CX;
-            case "0100": return DX;
-            default: return Integer.MIN_VALUE; // Error
+    private boolean executeAdd(int regCode) {
+        int registerValue = registers[regCode];
+        int oldAC = registers[AC_INDEX];
+        registers[AC_INDEX] = oldAC + registerValue;
+        if (tracer.isEnabled(TraceLevel.DEBUG)) {
+            int newAC = registers[AC_INDEX];
+            tracer.debug(() -> "ADD: " + oldAC + " + " + registerValue + " = " + newAC);
         }
+        return true;
     }
     
-    /**
-     * Establece el valor de un registro según su código binario
-     */
-    private boolean setRegisterValue(String regCode, int value) {
-        switch (regCode) {
-            case "0001": AX = value; return true;
-            case "0010": BX = value; return true;
-            case "0011": CX = value; return true;
-            case "0100": DX = value; return true;
-            default: return false;
+    private boolean executeSubtract(int regCode) {
+        int registerValue = registers[regCode];
+        int oldAC = registers[AC_INDEX];
+        registers[AC_INDEX] = oldAC - registerValue;
+        if (tracer.isEnabled(TraceLevel.DEBUG)) {
+            int newAC = registers[AC_INDEX];
+            tracer.debug(() -> "SUB: " + oldAC + " - " + registerValue + " = " + newAC);
         }
+        return true;
     }
     
     /**
@@ -182,39 +243,88 @@ public class CPU {
      */
     public void incrementPC() {
         PC++;
-        System.out.println("PC incrementado a: " + PC);
+        if (tracer.isEnabled(TraceLevel.DEBUG)) {
+            int newPC = PC;
+            tracer.debug(() -> "PC incrementado a: " + newPC);
+        }
     }
     
     // Getters para acceder a los registros desde el controlador
-    public int getAX() { return AX; }
-    public int getBX() { return BX; }
-    public int getCX() { return CX; }
-    public int getDX() { return DX; }
-    public int getAC() { return AC; }
+    public int getAX() { return registers[Instruction.REG_AX]; }
+    public int getBX() { return registers[Instruction.REG_BX]; }
+    public int getCX() { return registers[Instruction.REG_CX]; }
+    public int getDX() { return registers[Instruction.REG_DX]; }
+    public int getAC() { return registers[AC_INDEX]; }
     public int getIR() { return IR; }
     public int getPC() { return PC; }
+    public int getMemoryBase() { return memoryBase; }
+    
+    /**
+     * Registro por su código binario (0 = AC, 1-4 = AX-DX)
+     */
+    public int getRegister(int code) { return registers[code]; }
+    public void setRegister(int code, int value) { registers[code] = value; }
+    
+    /**
+     * Banco de registros sin copiar, para el código traducido (ver CompiledBlock)
+     */
+    int[] registerFile() { return registers; }
+    public int getMemoryLimit() { return memoryLimit; }
+    
+    /**
+     * Dirección de memoria escrita por la última instrucción, o -1 si no escribió en memoria
+     */
+    public int getLastWriteAddress() { return lastWriteAddress; }
     
     // Setters para pruebas y configuración inicial
-    public void setAX(int value) { AX = value; }
-    public void setBX(int value) { BX = value; }
-    public void setCX(int value) { CX = value; }
-    public void setDX(int value) { DX = value; }
-    public void setAC(int value) { AC = value; }
+    public void setAX(int value) { registers[Instruction.REG_AX] = value; }
+    public void setBX(int value) { registers[Instruction.REG_BX] = value; }
+    public void setCX(int value) { registers[Instruction.REG_CX] = value; }
+    public void setDX(int value) { registers[Instruction.REG_DX] = value; }
+    public void setAC(int value) { registers[AC_INDEX] = value; }
     public void setIR(int value) { IR = value; }
+    public void setPC(int value) { PC = value; }
+    
+    /**
+     * Fija la partición donde puede escribir STORE: [base, limit)
+     */
+    public void setMemoryPartition(int base, int limit) {
+        memoryBase = base;
+        memoryLimit = limit;
+    }
+    
+    public MemoryPort getMemoryPort() { return memoryPort; }
+    
+    /**
+     * Cambia el camino de los accesos a memoria (por ejemplo a una VirtualMemory)
+     */
+    public void setMemoryPort(MemoryPort memoryPort) {
+        this.memoryPort = memoryPort != null ? memoryPort : memory;
+    }
+    
+    public Tracer getTracer() { return tracer; }
+    public void setTracer(Tracer tracer) { this.tracer = tracer; }
     
     /**
      * Obtiene el estado completo del CPU para mostrar en el BCP
      */
     public String getStatus() {
+        return formatStatus(getAX(), getBX(), getCX(), getDX(), getAC(), IR, PC);
+    }
+    
+    /**
+     * Texto del estado a partir de valores ya copiados (ver ExecutionSnapshot)
+     */
+    static String formatStatus(int ax, int bx, int cx, int dx, int ac, int ir, int pc) {
         StringBuilder status = new StringBuilder();
         status.append("=== REGISTROS CPU ===\n");
-        status.append("AX: ").append(AX).append("\n");
-        status.append("BX: ").append(BX).append("\n");
-        status.append("CX: ").append(CX).append("\n");
-        status.append("DX: ").append(DX).append("\n");
-        status.append("AC: ").append(AC).append("\n");
-        status.append("IR: ").append(IR).append(" (").append(String.format("%8s", Integer.toBinaryString(IR)).replace(' ', '0')).append(") - Instrucción actual\n");
-        status.append("PC: ").append(PC).append(" - Próxima instrucción\n");
+        status.append("AX: ").append(ax).append("\n");
+        status.append("BX: ").append(bx).append("\n");
+        status.append("CX: ").append(cx).append("\n");
+        status.append("DX: ").append(dx).append("\n");
+        status.append("AC: ").append(ac).append("\n");
+        status.append("IR: ").append(ir).append(" (").append(String.format("%8s", Integer.toBinaryString(ir)).replace(' ', '0')).append(") - Instrucción actual\n");
+        status.append("PC: ").append(pc).append(" - Próxima instrucción\n");
         return status.toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,360 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Nivel de caché asociativa por conjuntos entre el CPU y la memoria
+ * El siguiente nivel puede ser otra Cache (jerarquía L1, L2...) o la memoria (física o virtual).
+ * Todo el estado vive en arreglos primitivos indexados por línea (conjunto * vías + vía);
+ * los datos de la línea i ocupan data[i * lineSize .. (i + 1) * lineSize).
+ *
+ * Con WRITE_BACK las escrituras se asignan en caché y solo bajan al desalojar la línea o en flush;
+ * cada línea lleva una máscara con las palabras modificadas, así solo se escriben esas.
+ * Con WRITE_THROUGH las escrituras bajan siempre y un fallo de escritura no trae la línea.
+ */
+public class Cache implements MemoryPort {
+    public static final int MAX_LINE_SIZE = 64;
+    
+    public enum WritePolicy {
+        WRITE_BACK,
+        WRITE_THROUGH
+    }
+    
+    public enum Replacement {
+        LRU,
+        RANDOM
+    }
+    
+    private static final int INVALID_TAG = -1;
+    
+    private final String name;
+    private final int sets;
+    private final int ways;
+    private final int lineSize;
+    private final int lineShift;
+    private final int setMask;
+    private final WritePolicy writePolicy;
+    private final Replacement replacement;
+    private final MemoryPort next;
+    // Siguiente nivel cuando también es una caché: las líneas se transfieren enteras
+    private final Cache nextCache;
+    
+    private final int[] tags;
+    private final long[] stamps;
+    private final long[] dirtyMasks;
+    private final int[] data;
+    private long tick;
+    private int randomState = 0x2545F491;
+    
+    private long reads;
+    private long writes;
+    private long readHits;
+    private long writeHits;
+    private long evictions;
+    private long writeBacks;
+    
+    /**
+     * @param name nombre del nivel para los reportes (por ejemplo "L1")
+     * @param sets cantidad de conjuntos, potencia de 2
+     * @param ways líneas por conjunto (1 = correspondencia directa)
+     * @param lineSize palabras por línea, potencia de 2 hasta MAX_LINE_SIZE
+     * @param next nivel siguiente: otra caché o la memoria
+     */
+    public Cache(String name, int sets, int ways, int lineSize, WritePolicy writePolicy, Replacement replacement,
+                 MemoryPort next) {
+        if (sets <= 0 || Integer.bitCount(sets) != 1) {
+            throw new IllegalArgumentException("La cantidad de conjuntos debe ser potencia de 2: " + sets);
+        }
+        if (lineSize <= 0 || lineSize > MAX_LINE_SIZE || Integer.bitCount(lineSize) != 1) {
+            throw new IllegalArgumentException("El tamaño de línea debe ser potencia de 2 hasta " + MAX_LINE_SIZE + ": " + lineSize);
+        }
+        if (ways <= 0 || (long) sets * ways * lineSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Asociatividad inválida: " + ways);
+        }
+        
+        this.name = name;
+        this.sets = sets;
+        this.ways = ways;
+        this.lineSize = lineSize;
+        this.lineShift = Integer.numberOfTrailingZeros(lineSize);
+        this.setMask = sets - 1;
+        this.writePolicy = writePolicy;
+        this.replacement = replacement;
+        this.next = next;
+        this.nextCache = next instanceof Cache ? (Cache) next : null;
+        
+        int lines = sets * ways;
+        this.tags = new int[lines];
+        this.stamps = new long[lines];
+        this.dirtyMasks = new long[lines];
+        this.data = new int[lines * lineSize];
+        Arrays.fill(tags, INVALID_TAG);
+    }
+    
+    @Override
+    public int read(int address) {
+        if (address < 0) {
+            return next.read(address);
+        }
+        reads++;
+        int tag = address >>> lineShift;
+        int line = find(tag);
+        if (line >= 0) {
+            readHits++;
+        } else {
+            line = allocate(tag);
+        }
+        stamps[line] = ++tick;
+        return data[(line << lineShift) + (address & (lineSize - 1))];
+    }
+    
+    @Override
+    public boolean write(int address, int value) {
+        if (!next.isWritable(address)) {
+            return false;
+        }
+        writes++;
+        int tag = address >>> lineShift;
+        int line = find(tag);
+        if (line >= 0) {
+            writeHits++;
+        } else if (writePolicy == WritePolicy.WRITE_BACK) {
+            line = allocate(tag);
+        }
+        
+        int offset = address & (lineSize - 1);
+        if (line >= 0) {
+            stamps[line] = ++tick;
+            data[(line << lineShift) + offset] = value;
+        }
+        if (writePolicy == WritePolicy.WRITE_THROUGH) {
+            return next.write(address, value);
+        }
+        dirtyMasks[line] |= 1L << offset;
+        return true;
+    }
+    
+    @Override
+    public boolean isWritable(int address) {
+        return next.isWritable(address);
+    }
+    
+    @Override
+    public int peek(int address) {
+        int line = address >= 0 ? find(address >>> lineShift) : -1;
+        return line >= 0 ? data[(line << lineShift) + (address & (lineSize - 1))] : next.peek(address);
+    }
+    
+    /**
+     * Baja todas las líneas modificadas al siguiente nivel (y los siguientes), sin invalidarlas
+     * Necesario antes de leer la memoria directamente con WRITE_BACK
+     */
+    public void flush() {
+        for (int line = 0; line < tags.length; line++) {
+            if (dirtyMasks[line] != 0) {
+                writeBack(line);
+            }
+        }
+        if (nextCache != null) {
+            nextCache.flush();
+        }
+    }
+    
+    /**
+     * Baja la línea que contiene la dirección, si está modificada, y sigue con los niveles siguientes
+     */
+    @Override
+    public void flush(int address) {
+        int line = address >= 0 ? find(address >>> lineShift) : -1;
+        if (line >= 0 && dirtyMasks[line] != 0) {
+            writeBack(line);
+        }
+        next.flush(address);
+    }
+    
+    /**
+     * Baja las líneas modificadas y vacía este nivel
+     */
+    public void invalidate() {
+        flush();
+        Arrays.fill(tags, INVALID_TAG);
+        Arrays.fill(stamps, 0);
+    }
+    
+    /**
+     * Línea que contiene el bloque, o -1 si no está en caché
+     */
+    private int find(int tag) {
+        int base = (tag & setMask) * ways;
+        for (int line = base; line < base + ways; line++) {
+            if (tags[line] == tag) {
+                return line;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Trae el bloque desde el siguiente nivel a una línea libre o a la víctima del conjunto
+     */
+    private int allocate(int tag) {
+        int line = chooseVictim((tag & setMask) * ways);
+        if (tags[line] != INVALID_TAG) {
+            evictions++;
+            if (dirtyMasks[line] != 0) {
+                writeBack(line);
+            }
+        }
+        
+        tags[line] = tag;
+        int start = tag << lineShift;
+        int dataOffset = line << lineShift;
+        if (nextCache != null) {
+            nextCache.readLine(start, data, dataOffset, lineSize);
+        } else {
+            for (int i = 0; i < lineSize; i++) {
+                data[dataOffset + i] = next.read(start + i);
+            }
+        }
+        return line;
+    }
+    
+    private int chooseVictim(int base) {
+        for (int line = base; line < base + ways; line++) {
+            if (tags[line] == INVALID_TAG) {
+                return line;
+            }
+        }
+        if (replacement == Replacement.RANDOM) {
+            // xorshift: reproducible entre ejecuciones y sin objetos
+            randomState ^= randomState << 13;
+            randomState ^= randomState >>> 17;
+            randomState ^= randomState << 5;
+            return base + Integer.remainderUnsigned(randomState, ways);
+        }
+        int victim = base;
+        for (int line = base + 1; line < base + ways; line++) {
+            if (stamps[line] < stamps[victim]) {
+                victim = line;
+            }
+        }
+        return victim;
+    }
+    
+    private void writeBack(int line) {
+        int start = tags[line] << lineShift;
+        int dataOffset = line << lineShift;
+        writeDown(start, data, dataOffset, dirtyMasks[line]);
+        dirtyMasks[line] = 0;
+        writeBacks++;
+    }
+    
+    /**
+     * Lectura de un bloque pedido por el nivel anterior: cuenta como un solo acceso
+     */
+    private void readLine(int start, int[] target, int targetOffset, int length) {
+        int position = start;
+        while (position < start + length) {
+            reads++;
+            int tag = position >>> lineShift;
+            int line = find(tag);
+            if (line >= 0) {
+                readHits++;
+            } else {
+                line = allocate(tag);
+            }
+            stamps[line] = ++tick;
+            
+            // El bloque del nivel anterior puede ser más grande que la línea de este nivel
+            int offset = position & (lineSize - 1);
+            int count = Math.min(lineSize - offset, start + length - position);
+            System.arraycopy(data, (line << lineShift) + offset, target, targetOffset + position - start, count);
+            position += count;
+        }
+    }
+    
+    /**
+     * Escritura de las palabras modificadas de un bloque del nivel anterior: un acceso por línea tocada
+     * @param mask bit i = palabra start + i modificada
+     */
+    private void writeLine(int start, int[] source, int sourceOffset, long mask) {
+        while (mask != 0) {
+            int tag = (start + Long.numberOfTrailingZeros(mask)) >>> lineShift;
+            // Palabras del bloque que caen en esta línea
+            int end = (tag << lineShift) + lineSize - start;
+            long lineMask = end >= 64 ? mask : mask & ((1L << end) - 1);
+            mask &= ~lineMask;
+            
+            writes++;
+            int line = find(tag);
+            if (line >= 0) {
+                writeHits++;
+            } else if (writePolicy == WritePolicy.WRITE_BACK) {
+                line = allocate(tag);
+            }
+            
+            if (line >= 0) {
+                stamps[line] = ++tick;
+                for (long bits = lineMask; bits != 0; bits &= bits - 1) {
+                    int offset = Long.numberOfTrailingZeros(bits);
+                    int lineOffset = (start + offset) & (lineSize - 1);
+                    data[(line << lineShift) + lineOffset] = source[sourceOffset + offset];
+                    if (writePolicy == WritePolicy.WRITE_BACK) {
+                        dirtyMasks[line] |= 1L << lineOffset;
+                    }
+                }
+            }
+            if (writePolicy == WritePolicy.WRITE_THROUGH) {
+                writeDown(start, source, sourceOffset, lineMask);
+            }
+        }
+    }
+    
+    /**
+     * Pasa al siguiente nivel las palabras marcadas de un bloque
+     */
+    private void writeDown(int start, int[] source, int sourceOffset, long mask) {
+        if (nextCache != null) {
+            nextCache.writeLine(start, source, sourceOffset, mask);
+            return;
+        }
+        for (; mask != 0; mask &= mask - 1) {
+            int offset = Long.numberOfTrailingZeros(mask);
+            next.write(start + offset, source[sourceOffset + offset]);
+        }
+    }
+    
+    /**
+     * Copia de los contadores actuales
+     */
+    public CacheStats getStats() {
+        return new CacheStats(name, sets, ways, lineSize, writePolicy, replacement, reads, writes,
+                              readHits, writeHits, evictions, writeBacks);
+    }
+    
+    public void resetStats() {
+        reads = 0;
+        writes = 0;
+        readHits = 0;
+        writeHits = 0;
+        evictions = 0;
+        writeBacks = 0;
+    }
+    
+    public String getName() { return name; }
+    public int getSets() { return sets; }
+    public int getWays() { return ways; }
+    public int getLineSize() { return lineSize; }
+    public WritePolicy getWritePolicy() { return writePolicy; }
+    public Replacement getReplacement() { return replacement; }
+    public MemoryPort getNext() { return next; }
+}
@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Estadísticas de un nivel de caché en un momento dado (inmutable)
+ */
+public class CacheStats {
+    private final String name;
+    private final int sets;
+    private final int ways;
+    private final int lineSize;
+    private final Cache.WritePolicy writePolicy;
+    private final Cache.Replacement replacement;
+    private final long reads;
+    private final long writes;
+    private final long readHits;
+    private final long writeHits;
+    private final long evictions;
+    private final long writeBacks;
+    
+    CacheStats(String name, int sets, int ways, int lineSize, Cache.WritePolicy writePolicy,
+               Cache.Replacement replacement, long reads, long writes, long readHits, long writeHits,
+               long evictions, long writeBacks) {
+        this.name = name;
+        this.sets = sets;
+        this.ways = ways;
+        this.lineSize = lineSize;
+        this.writePolicy = writePolicy;
+        this.replacement = replacement;
+        this.reads = reads;
+        this.writes = writes;
+        this.readHits = readHits;
+        this.writeHits = writeHits;
+        this.evictions = evictions;
+        this.writeBacks = writeBacks;
+    }
+    
+    public long getAccesses() {
+        return reads + writes;
+    }
+    
+    public long getHits() {
+        return readHits + writeHits;
+    }
+    
+    public long getMisses() {
+        return getAccesses() - getHits();
+    }
+    
+    /**
+     * Fracción de accesos resueltos en este nivel
+     */
+    public double getHitRatio() {
+        long accesses = getAccesses();
+        return accesses == 0 ? 0 : (double) getHits() / accesses;
+    }
+    
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("=== CACHÉ ").append(name).append(" ===\n");
+        report.append("Conjuntos: ").append(sets).append("  Vías: ").append(ways).append("  Línea: ").append(lineSize)
+              .append("  Capacidad: ").append((long) sets * ways * lineSize).append("  ").append(writePolicy)
+              .append("  ").append(replacement).append("\n");
+        report.append("Lecturas: ").append(reads).append(" (").append(readHits).append(" aciertos)  Escrituras: ")
+              .append(writes).append(" (").append(writeHits).append(" aciertos)\n");
+        report.append("Fallos: ").append(getMisses()).append("  Reemplazos: ").append(evictions)
+              .append("  Escrituras al siguiente nivel: ").append(writeBacks).append("\n");
+        report.append(String.format("Tasa de aciertos: %.2f%%%n", getHitRatio() * 100));
+        return report.toString();
+    }
+    
+    public String getName() { return name; }
+    public int getSets() { return sets; }
+    public int getWays() { return ways; }
+    public int getLineSize() { return lineSize; }
+    public Cache.WritePolicy getWritePolicy() { return writePolicy; }
+    public Cache.Replacement getReplacement() { return replacement; }
+    public long getReads() { return reads; }
+    public long getWrites() { return writes; }
+    public long getReadHits() { return readHits; }
+    public long getWriteHits() { return writeHits; }
+    public long getEvictions() { return evictions; }
+    public long getWriteBacks() { return writeBacks; }
+}
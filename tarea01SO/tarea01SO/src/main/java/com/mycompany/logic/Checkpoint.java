@@ -0,0 +1,525 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Punto de control: guarda y restaura el estado completo de una simulación (.mck)
+ * Permite pausar una ejecución larga y retomarla después o en otra máquina
+ *
+ * Estructura:
+ *   Encabezado (8 bytes, sin comprimir): magic "MPCK" (int), versión (short), flags (short)
+ *   Cuerpo (comprimido con Deflater si FLAG_COMPRESSED):
+ *     Memoria: tamaño total, inicio del área de usuario, tipo de almacenamiento
+ *     CPU: AC, AX, BX, CX, DX, IR, PC, base y límite de la partición
+ *     Simulador: índice actual, instrucciones ejecutadas, último error
+ *     Programa (si FLAG_PROGRAM): palabras, números de línea y texto fuente si lo tiene
+ *     Memoria usada: tramos [inicio, longitud, valores...] terminados con inicio -1;
+ *                    las zonas en 0 no se escriben
+ *     Etiquetas: tabla de textos distintos y pares (dirección, índice en la tabla)
+ */
+public class Checkpoint {
+    public static final String EXTENSION = "mck";
+    
+    private static final int MAGIC = 0x4D50434B; // "MPCK"
+    private static final short VERSION = 2;
+    // Hasta la versión 1 el programa se cargaba en memoria con solo los 8 bits bajos de cada palabra
+    private static final short VERSION_LOW_BYTE_CODE = 1;
+    private static final short FLAG_COMPRESSED = 1;
+    private static final short FLAG_PROGRAM = 2;
+    private static final int HEADER_SIZE = 8;
+    
+    // Ceros seguidos que se aceptan dentro de un tramo antes de cortarlo
+    private static final int MAX_GAP = 4;
+    // Tope de posiciones por tramo, para acotar el buffer
+    private static final int MAX_RUN = 64 * 1024;
+    private static final int END_OF_RUNS = -1;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    
+    private Checkpoint() {
+    }
+    
+    /**
+     * Guarda el estado del simulador, su CPU y su memoria
+     * Si el CPU tiene cachés delante de la memoria, primero se bajan sus líneas modificadas; las cachés
+     * no se guardan, el simulador restaurado arranca sin ellas.
+     * @param compress si true, el cuerpo se comprime con Deflater
+     */
+    public static void save(Simulator simulator, Path file, boolean compress) throws IOException {
+        Memory memory = simulator.getMemory();
+        CPU cpu = simulator.getCpu();
+        AssembledProgram program = simulator.getProgram();
+        
+        if (cpu.getMemoryPort() instanceof Cache) {
+            // Con WRITE_BACK parte de lo escrito sigue en la caché y aquí se lee la memoria
+            ((Cache) cpu.getMemoryPort()).flush();
+        }
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort((short) ((compress ? FLAG_COMPRESSED : 0) | (program != null ? FLAG_PROGRAM : 0)));
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            
+            OutputStream body = Channels.newOutputStream(channel);
+            Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+            if (deflater != null) {
+                body = new DeflaterOutputStream(body, deflater, BUFFER_SIZE);
+            }
+            try {
+                BlockWriter out = new BlockWriter(body);
+                
+                out.putInt(memory.getTotalSize());
+                out.putInt(memory.getUserMemoryStart());
+                out.putString(memory.getStorageType().name());
+                
+                out.putInt(cpu.getAC());
+                out.putInt(cpu.getAX());
+                out.putInt(cpu.getBX());
+                out.putInt(cpu.getCX());
+                out.putInt(cpu.getDX());
+                out.putInt(cpu.getIR());
+                out.putInt(cpu.getPC());
+                out.putInt(cpu.getMemoryBase());
+                out.putInt(cpu.getMemoryLimit());
+                
+                out.putInt(simulator.getCurrentIndex());
+                out.putLong(simulator.getInstructionsExecuted());
+                out.putString(simulator.getLastError());
+                
+                if (program != null) {
+                    writeProgram(out, program);
+                }
+                writeMemory(out, memory);
+                writeLabels(out, memory);
+                out.flush();
+            } finally {
+                if (deflater != null) {
+                    // DeflaterOutputStream con Deflater propio no lo libera al cerrar
+                    ((DeflaterOutputStream) body).finish();
+                    deflater.end();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Restaura un punto de control en un CPU y una memoria nuevos
+     * @return simulador listo para seguir ejecutando donde quedó
+     * @throws IllegalArgumentException si el archivo no es un punto de control válido
+     */
+    public static Simulator restore(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // leer hasta completar el encabezado
+            }
+            header.flip();
+            
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Archivo de punto de control inválido: " + file);
+            }
+            short version = header.getShort();
+            if (version != VERSION && version != VERSION_LOW_BYTE_CODE) {
+                throw new IllegalArgumentException("Versión de punto de control no soportada: " + version);
+            }
+            short flags = header.getShort();
+            
+            InputStream body = Channels.newInputStream(channel);
+            Inflater inflater = (flags & FLAG_COMPRESSED) != 0 ? new Inflater() : null;
+            if (inflater != null) {
+                body = new InflaterInputStream(body, inflater, BUFFER_SIZE);
+            }
+            try {
+                BlockReader in = new BlockReader(body);
+                
+                int totalSize = in.getInt();
+                int userStart = in.getInt();
+                MemoryStorage.Type storageType = MemoryStorage.Type.valueOf(in.getString());
+                Memory memory = new Memory(totalSize, userStart, storageType);
+                CPU cpu = new CPU(memory);
+                
+                cpu.setAC(in.getInt());
+                cpu.setAX(in.getInt());
+                cpu.setBX(in.getInt());
+                cpu.setCX(in.getInt());
+                cpu.setDX(in.getInt());
+                cpu.setIR(in.getInt());
+                cpu.setPC(in.getInt());
+                int base = in.getInt();
+                cpu.setMemoryPartition(base, in.getInt());
+                
+                int currentIndex = in.getInt();
+                long instructionsExecuted = in.getLong();
+                String lastError = in.getString();
+                
+                AssembledProgram program = (flags & FLAG_PROGRAM) != 0 ? readProgram(in) : null;
+                readMemory(in, memory);
+                readLabels(in, memory);
+                if (version == VERSION_LOW_BYTE_CODE && program != null) {
+                    restoreFullWords(memory, program);
+                }
+                
+                Simulator simulator = new Simulator(memory, cpu);
+                simulator.restore(program, currentIndex, instructionsExecuted, lastError);
+                return simulator;
+            } finally {
+                if (inflater != null) {
+                    inflater.end();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Completa las palabras del programa guardadas con solo 8 bits (ahora se ejecutan desde memoria)
+     * Las posiciones que el programa ya modificó se dejan como están
+     */
+    private static void restoreFullWords(Memory memory, AssembledProgram program) {
+        int start = memory.getUserMemoryStart();
+        for (int i = 0; i < program.size() && start + i < memory.getTotalSize(); i++) {
+            int word = program.getWord(i);
+            if (memory.readFromMemory(start + i) == (word & 0xFF)) {
+                memory.setValueForce(start + i, word);
+            }
+        }
+    }
+    
+    private static void writeProgram(BlockWriter out, AssembledProgram program) throws IOException {
+        int count = program.size();
+        boolean hasText = program.hasSourceText();
+        out.putInt(count);
+        out.putInt(hasText ? 1 : 0);
+        
+        int[] words = new int[count];
+        int[] lines = new int[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = program.getWord(i);
+            lines[i] = program.getLineNumber(i);
+        }
+        out.putInts(words, 0, count);
+        out.putInts(lines, 0, count);
+        
+        if (hasText) {
+            for (int i = 0; i < count; i++) {
+                out.putString(program.getSourceLine(i));
+            }
+        }
+    }
+    
+    private static AssembledProgram readProgram(BlockReader in) throws IOException {
+        int count = in.getInt();
+        boolean hasText = in.getInt() != 0;
+        int[] words = new int[count];
+        int[] lines = new int[count];
+        in.getInts(words, 0, count);
+        in.getInts(lines, 0, count);
+        
+        String[] sourceLines = null;
+        if (hasText) {
+            sourceLines = new String[count];
+            for (int i = 0; i < count; i++) {
+                sourceLines[i] = in.getString();
+            }
+        }
+        return new AssembledProgram(words, sourceLines, lines);
+    }
+    
+    /**
+     * Escribe las posiciones usadas como tramos contiguos, tolerando huecos cortos de ceros
+     */
+    private static void writeMemory(BlockWriter out, Memory memory) throws IOException {
+        RunWriter runs = new RunWriter(out);
+        try {
+            memory.forEachUsedCell(runs::add);
+            runs.flush();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        out.putInt(END_OF_RUNS);
+    }
+    
+    private static void readMemory(BlockReader in, Memory memory) throws IOException {
+        int[] values = new int[MAX_RUN];
+        int start = in.getInt();
+        while (start != END_OF_RUNS) {
+            int length = in.getInt();
+            if (length <= 0 || length > MAX_RUN || start < 0 || (long) start + length > memory.getTotalSize()) {
+                throw new IllegalArgumentException("Tramo de memoria inválido en el punto de control: " + start);
+            }
+            in.getInts(values, 0, length);
+            memory.writeBlockForce(start, values, 0, length);
+            start = in.getInt();
+        }
+    }
+    
+    /**
+     * Escribe las etiquetas con su texto una sola vez aunque se repita en varias posiciones
+     */
+    private static void writeLabels(BlockWriter out, Memory memory) throws IOException {
+        List<String> texts = new ArrayList<>();
+        Map<String, Integer> textIndex = new HashMap<>();
+        IntIntHashMap addresses = new IntIntHashMap(memory.getLabeledPositions());
+        memory.forEachLabel((address, label) -> {
+            Integer index = textIndex.get(label);
+            if (index == null) {
+                index = texts.size();
+                texts.add(label);
+                textIndex.put(label, index);
+            }
+            addresses.put(address, index);
+        });
+        
+        out.putInt(texts.size());
+        for (String text : texts) {
+            out.putString(text);
+        }
+        out.putInt(addresses.size());
+        try {
+            addresses.forEach((address, index) -> {
+                try {
+                    out.putInt(address);
+                    out.putInt(index);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+    
+    private static void readLabels(BlockReader in, Memory memory) throws IOException {
+        // Cada texto lo usa al menos una posición, así que ninguna de las dos cantidades pasa del tamaño
+        int textCount = in.getInt();
+        if (textCount < 0 || textCount > memory.getTotalSize()) {
+            throw new IllegalArgumentException("Cantidad de etiquetas inválida en el punto de control: " + textCount);
+        }
+        String[] texts = new String[textCount];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = in.getString();
+        }
+        int count = in.getInt();
+        if (count < 0 || count > memory.getTotalSize()) {
+            throw new IllegalArgumentException("Cantidad de posiciones con etiqueta inválida en el punto de control: " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            int address = in.getInt();
+            int index = in.getInt();
+            if (address < 0 || address >= memory.getTotalSize() || index < 0 || index >= texts.length) {
+                throw new IllegalArgumentException("Etiqueta inválida en el punto de control: dirección " + address
+                                                   + ", texto " + index);
+            }
+            memory.writeToMemoryForce(address, memory.readFromMemory(address), texts[index]);
+        }
+    }
+    
+    /**
+     * Escritura con un ByteBuffer propio que se vuelca al flujo en bloques grandes
+     * Evita el costo por llamada de los flujos con buffer de java.io
+     */
+    private static class BlockWriter {
+        private final OutputStream out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        
+        BlockWriter(OutputStream out) {
+            this.out = out;
+        }
+        
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+        
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+        
+        void putInts(int[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(4);
+                int count = Math.min(length, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * 4);
+                offset += count;
+                length -= count;
+            }
+        }
+        
+        /**
+         * Texto como longitud y bytes UTF-8; null se guarda como longitud -1
+         */
+        void putString(String text) throws IOException {
+            if (text == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int count = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+        
+        private void ensure(int needed) throws IOException {
+            if (buffer.remaining() < needed) {
+                flush();
+            }
+        }
+        
+        void flush() throws IOException {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+    
+    /**
+     * Lectura con un ByteBuffer propio que se rellena desde el flujo en bloques grandes
+     */
+    private static class BlockReader {
+        private final InputStream in;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        
+        BlockReader(InputStream in) {
+            this.in = in;
+            buffer.limit(0);
+        }
+        
+        int getInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+        
+        long getLong() throws IOException {
+            require(8);
+            return buffer.getLong();
+        }
+        
+        void getInts(int[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                require(4);
+                int count = Math.min(length, buffer.remaining() / 4);
+                buffer.asIntBuffer().get(values, offset, count);
+                buffer.position(buffer.position() + count * 4);
+                offset += count;
+                length -= count;
+            }
+        }
+        
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int count = Math.min(length - offset, buffer.remaining());
+                buffer.get(bytes, offset, count);
+                offset += count;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        
+        /**
+         * Garantiza al menos "needed" bytes disponibles en el buffer
+         */
+        private void require(int needed) throws IOException {
+            if (buffer.remaining() >= needed) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < needed) {
+                int read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+                if (read < 0) {
+                    throw new EOFException("Punto de control truncado");
+                }
+                buffer.position(buffer.position() + read);
+            }
+            buffer.flip();
+        }
+    }
+    
+    /**
+     * Agrupa las posiciones usadas (recibidas en orden) en tramos y los escribe
+     */
+    private static class RunWriter {
+        private final BlockWriter out;
+        private final int[] values = new int[MAX_RUN];
+        private int start = -1;
+        private int length;
+        
+        RunWriter(BlockWriter out) {
+            this.out = out;
+        }
+        
+        void add(int address, int value) {
+            if (length > 0) {
+                int gap = address - (start + length);
+                if (gap <= MAX_GAP && length + gap < MAX_RUN) {
+                    // Los ceros intermedios salen más baratos que abrir otro tramo
+                    for (int i = 0; i < gap; i++) {
+                        values[length++] = 0;
+                    }
+                    values[length++] = value;
+                    return;
+                }
+                flush();
+            }
+            start = address;
+            values[0] = value;
+            length = 1;
+        }
+        
+        void flush() {
+            if (length == 0) {
+                return;
+            }
+            try {
+                out.putInt(start);
+                out.putInt(length);
+                out.putInts(values, 0, length);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            length = 0;
+        }
+    }
+}
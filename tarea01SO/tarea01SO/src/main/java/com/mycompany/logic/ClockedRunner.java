@@ -0,0 +1,167 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Ejecuta un Simulator en un hilo propio al ritmo de un ExecutionClock
+ * Las instrucciones corren en lotes; entre lotes, como mucho una vez por cuadro, se publica un
+ * ExecutionSnapshot. La interfaz toma el último con takeSnapshot cuando quiere dibujar: el hilo de
+ * ejecución nunca la espera, y si la interfaz se atrasa los snapshots intermedios se combinan
+ * (se conserva el estado más nuevo y todos los rangos de memoria modificados).
+ * Cada snapshot trae además el texto de las celdas indicadas con setViewport, para que la interfaz
+ * dibuje la tabla de memoria sin leer Memory mientras este hilo la escribe.
+ * Las esperas se calculan contra un reloj absoluto para que la frecuencia no se desvíe con el tiempo.
+ *
+ * Mientras corre, el simulador solo debe tocarse desde el hilo de ejecución.
+ */
+public class ClockedRunner {
+    private final Simulator simulator;
+    private volatile ExecutionClock clock;
+    private volatile boolean running;
+    private Thread thread;
+    private final AtomicReference<ExecutionSnapshot> latest = new AtomicReference<>();
+    // Celdas a la vista en la interfaz: primera en los 32 bits altos, última en los bajos
+    private volatile long viewport;
+    
+    public ClockedRunner(Simulator simulator, ExecutionClock clock) {
+        this.simulator = simulator;
+        this.clock = clock;
+    }
+    
+    /**
+     * Empieza a ejecutar en segundo plano desde el estado actual del simulador
+     * Si la ejecución anterior todavía está cerrando se espera a que termine
+     */
+    public synchronized void start() {
+        if (running) {
+            throw new IllegalStateException("La ejecución ya está en curso");
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        running = true;
+        latest.set(null);
+        // Primer snapshot desde el hilo que llama, antes de que el simulador empiece a cambiar
+        publish(false);
+        thread = new Thread(this::loop, "simulator-clock");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Pide que la ejecución se detenga al terminar el lote actual; no espera a que lo haga
+     */
+    public void stop() {
+        running = false;
+        Thread current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+    
+    /**
+     * Espera a que termine el hilo de ejecución
+     */
+    public void join() throws InterruptedException {
+        Thread current = thread;
+        if (current != null) {
+            current.join();
+        }
+    }
+    
+    /**
+     * Cambia el ritmo; si está ejecutando se aplica desde el próximo lote
+     */
+    public void setClock(ExecutionClock clock) {
+        this.clock = clock;
+        Thread current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+    
+    /**
+     * Cambia las celdas que se copian en los próximos snapshots
+     */
+    public void setViewport(int first, int last) {
+        viewport = ((long) first << 32) | (last & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Último snapshot publicado que todavía no se tomó, o null si no hay nada nuevo
+     */
+    public ExecutionSnapshot takeSnapshot() {
+        return latest.getAndSet(null);
+    }
+    
+    public ExecutionClock getClock() { return clock; }
+    public boolean isRunning() { return running; }
+    
+    private void loop() {
+        try {
+            long nextBatch = System.nanoTime();
+            long lastFrame = nextBatch - ExecutionClock.FRAME_NANOS;
+            
+            while (running && !simulator.isFinished()) {
+                ExecutionClock current = clock;
+                long executed = simulator.executeBatch(current.getBatchSize());
+                if (executed < current.getBatchSize() && !simulator.isFinished()) {
+                    break;  // error: el simulador guarda el mensaje en getLastError
+                }
+                
+                long now = System.nanoTime();
+                if (now - lastFrame >= ExecutionClock.FRAME_NANOS || current.getBatchPeriodNanos() >= ExecutionClock.FRAME_NANOS) {
+                    publish(false);
+                    lastFrame = now;
+                }
+                
+                long period = current.getBatchPeriodNanos();
+                if (period > 0) {
+                    nextBatch += period;
+                    if (nextBatch < now - ExecutionClock.FRAME_NANOS) {
+                        // Muy atrasado (por ejemplo la interfaz tardó en dibujar): no se intenta recuperar
+                        nextBatch = now;
+                    }
+                    waitUntil(nextBatch, current);
+                } else {
+                    nextBatch = now;
+                }
+            }
+        } finally {
+            // running se limpia antes: quien toma el último snapshot ya ve la ejecución como terminada
+            running = false;
+            publish(true);
+        }
+    }
+    
+    private void publish(boolean ended) {
+        long view = viewport;
+        ExecutionSnapshot snapshot = ExecutionSnapshot.capture(simulator, ended, (int) (view >> 32), (int) view);
+        latest.accumulateAndGet(snapshot, ExecutionSnapshot::merge);
+    }
+    
+    /**
+     * Duerme hasta el instante indicado, despertando antes si se detiene o cambia el ritmo
+     */
+    private void waitUntil(long deadline, ExecutionClock current) {
+        long remaining;
+        while (running && clock == current && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+}
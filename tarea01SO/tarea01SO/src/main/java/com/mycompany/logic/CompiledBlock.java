@@ -0,0 +1,99 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Bloque de instrucciones traducido a bytecode por BlockCompiler
+ * El código generado copia los registros a variables locales al entrar y los devuelve al CPU solo
+ * al salir: al final del bloque, antes de un STORE que falla (lo vuelve a ejecutar el intérprete para
+ * producir el error) o después de un STORE que escribió en la región de código (la instrucción
+ * siguiente puede haber cambiado y hay que volver a buscarla en memoria).
+ */
+public class CompiledBlock {
+    // Resultado de store y parte baja del valor que devuelve Code.execute
+    static final int STORE_OK = 0;
+    static final int STORE_FAILED = 1;
+    static final int STORE_CODE = 2;
+    static final int STATUS_BITS = 2;
+    
+    /**
+     * Lo implementa la clase oculta generada para cada bloque
+     */
+    interface Code {
+        /**
+         * @param registers banco de registros del CPU (ver CPU.registerFile)
+         * @return (instrucciones completas << STATUS_BITS) | estado del STORE que cortó el bloque
+         */
+        int execute(int[] registers, MemoryPort port, int memoryBase, int memoryLimit, int codeStart, int codeEnd);
+    }
+    
+    private final Code code;
+    private final int[] words;
+    private final long[] opcodeCounts;
+    
+    CompiledBlock(Code code, int[] words) {
+        this.code = code;
+        this.words = words;
+        this.opcodeCounts = new long[16];
+        for (int word : words) {
+            opcodeCounts[(word >>> 4) & 0xF]++;
+        }
+    }
+    
+    /**
+     * Ejecuta el bloque sobre el CPU y deja PC e IR como los dejaría el intérprete
+     * @param address dirección de la primera instrucción del bloque
+     * @param codeStart inicio de la región de código; un STORE en [codeStart, codeEnd) corta el bloque
+     * @return instrucciones ejecutadas
+     */
+    int execute(CPU cpu, int address, int codeStart, int codeEnd, ExecutionCounters counters) {
+        int[] registers = cpu.registerFile();
+        int result = code.execute(registers, cpu.getMemoryPort(), cpu.getMemoryBase(), cpu.getMemoryLimit(),
+                                  codeStart, codeEnd);
+        int executed = result >>> STATUS_BITS;
+        if ((result & ((1 << STATUS_BITS) - 1)) == STORE_CODE) {
+            // El STORE se completó: falta copiar el AC en su registro, como hace CPU.executeStore
+            registers[words[executed] & 0xF] = registers[0];
+            executed++;
+        }
+        
+        cpu.setPC(address + executed);
+        if (executed > 0) {
+            cpu.setIR(words[executed - 1] & 0xFF);
+        }
+        if (executed == words.length) {
+            counters.recordBlock(opcodeCounts);
+        } else {
+            for (int i = 0; i < executed; i++) {
+                counters.recordStep(words[i], true);
+            }
+        }
+        return executed;
+    }
+    
+    /**
+     * STORE desde el código generado, con las mismas comprobaciones que CPU.executeStore
+     * @param offset valor del registro usado como dirección relativa
+     */
+    static int store(MemoryPort port, int memoryBase, int memoryLimit, int codeStart, int codeEnd, int offset, int ac) {
+        int address = memoryBase + offset;
+        if (address < memoryBase || address >= memoryLimit || !port.write(address, ac)) {
+            return STORE_FAILED;
+        }
+        if (address >= codeStart && address < codeEnd) {
+            // La búsqueda de instrucciones lee la memoria: lo escrito no puede quedar en una caché
+            port.flush(address);
+            return STORE_CODE;
+        }
+        return STORE_OK;
+    }
+    
+    public int getLength() { return words.length; }
+}
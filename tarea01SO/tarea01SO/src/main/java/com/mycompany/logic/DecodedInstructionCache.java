@@ -0,0 +1,146 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Instrucciones ya decodificadas de la región de código, una entrada por dirección
+ * La primera vez que se ejecuta una dirección se lee su palabra de la memoria; las siguientes veces
+ * se usa la entrada guardada sin volver a pasar por el almacenamiento de la memoria.
+ * Como la codificación ya tiene los campos alineados (ver Instruction.encode), la entrada es la
+ * palabra misma y separar operación, registro e inmediato son dos desplazamientos.
+ * La memoria avisa (ver Memory.watchCode) cuando se escribe dentro de la región, y esa entrada se
+ * vuelve a decodificar en la próxima búsqueda: así el código que se modifica a sí mismo sigue siendo correcto.
+ */
+public class DecodedInstructionCache {
+    private final Memory memory;
+    private final int base;
+    // 0 = sin decodificar: una palabra 0 no es una instrucción válida (registro 0), así que
+    // volver a leerla no cambia nada y no hace falta otro arreglo de marcas
+    private final int[] entries;
+    // Bloques de BlockCompiler.BLOCK_SIZE entradas escritos desde la carga: ya no coinciden con el programa
+    private final boolean[] modifiedBlocks;
+    // Manejadores armados con estas palabras (ver ThreadedCode); null si no se usan
+    private ThreadedCode handlers;
+    private long decodes;
+    private long invalidations;
+    
+    /**
+     * @param base primera dirección de la región de código
+     * @param size cantidad de instrucciones de la región
+     */
+    public DecodedInstructionCache(Memory memory, int base, int size) {
+        if (size < 0 || base < 0 || (long) base + size > memory.getTotalSize()) {
+            throw new IllegalArgumentException("Región de código fuera de la memoria: " + base + "+" + size);
+        }
+        this.memory = memory;
+        this.base = base;
+        this.entries = new int[size];
+        this.modifiedBlocks = new boolean[(size + BlockCompiler.BLOCK_SIZE - 1) / BlockCompiler.BLOCK_SIZE];
+    }
+    
+    /**
+     * Indica si la dirección está dentro de la región de código
+     */
+    public boolean contains(int address) {
+        return address >= base && address < base + entries.length;
+    }
+    
+    /**
+     * Instrucción decodificada en una dirección de la región; se lee de memoria si todavía no lo estaba
+     * @return palabra de la instrucción, para getOpCode, getRegCode y getImmediate
+     */
+    int decode(int address) {
+        int slot = address - base;
+        int entry = entries[slot];
+        if (entry == 0) {
+            entry = memory.readFromMemory(address);
+            entries[slot] = entry;
+            decodes++;
+        }
+        return entry;
+    }
+    
+    /**
+     * Decodifica de una vez las palabras que se acaban de cargar en la región (ver Simulator.load)
+     * @param loaded palabras en el mismo orden que la memoria, desde la base
+     */
+    void prime(int[] loaded) {
+        System.arraycopy(loaded, 0, entries, 0, Math.min(entries.length, loaded.length));
+    }
+    
+    static int getOpCode(int entry) { return (entry >>> 4) & 0xF; }
+    static int getRegCode(int entry) { return entry & 0xF; }
+    static int getImmediate(int entry) { return entry >> 8; }
+    
+    /**
+     * Descarta las entradas de [from, to] que caen dentro de la región
+     */
+    void invalidate(int from, int to) {
+        int first = Math.max(from, base) - base;
+        int last = Math.min(to, base + entries.length - 1) - base;
+        for (int slot = first; slot <= last; slot++) {
+            if (entries[slot] != 0) {
+                entries[slot] = 0;
+                invalidations++;
+            }
+        }
+        if (first <= last) {
+            Arrays.fill(modifiedBlocks, first / BlockCompiler.BLOCK_SIZE, last / BlockCompiler.BLOCK_SIZE + 1, true);
+            if (handlers != null) {
+                handlers.invalidate(first, last);
+            }
+        }
+    }
+    
+    /**
+     * Avisa a los manejadores de las escrituras en la región para que se vuelvan a armar
+     */
+    void watchHandlers(ThreadedCode handlers) {
+        this.handlers = handlers;
+    }
+    
+    /**
+     * Indica si se escribió en el bloque desde la carga (su traducción ya no vale)
+     */
+    public boolean isBlockModified(int block) {
+        return modifiedBlocks[block];
+    }
+    
+    /**
+     * Marca los bloques cuyas palabras en memoria difieren del programa (al retomar una ejecución guardada)
+     */
+    void markModified(AssembledProgram program) {
+        for (int slot = 0; slot < entries.length && slot < program.size(); slot++) {
+            if (memory.readFromMemory(base + slot) != program.getWord(slot)) {
+                modifiedBlocks[slot / BlockCompiler.BLOCK_SIZE] = true;
+            }
+        }
+    }
+    
+    /**
+     * Descarta todas las entradas
+     */
+    public void invalidateAll() {
+        Arrays.fill(entries, 0);
+        Arrays.fill(modifiedBlocks, true);
+        if (handlers != null) {
+            handlers.invalidateAll();
+        }
+        invalidations++;
+    }
+    
+    public int getBase() { return base; }
+    public int getSize() { return entries.length; }
+    // Lecturas de memoria hechas para decodificar (direcciones sin decodificar al cargar o invalidadas después)
+    public long getDecodes() { return decodes; }
+    public long getInvalidations() { return invalidations; }
+}
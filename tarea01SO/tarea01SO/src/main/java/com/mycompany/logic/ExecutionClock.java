@@ -0,0 +1,106 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Ritmo de la ejecución automática (inmutable)
+ * Se expresa como lotes: cuántas instrucciones ejecutar de una vez y cada cuánto tiempo.
+ * FIXED_RATE agrupa las instrucciones por cuadro cuando la frecuencia supera la de la pantalla,
+ * PER_FRAME ejecuta N instrucciones por cuadro y MAX_SPEED no espera entre lotes.
+ */
+public class ExecutionClock {
+    public static final int FRAMES_PER_SECOND = 60;
+    public static final long FRAME_NANOS = 1_000_000_000L / FRAMES_PER_SECOND;
+    // Lote en velocidad máxima: chico para revisar a menudo si hay que detenerse o dibujar
+    static final int MAX_SPEED_BATCH = 16 * 1024;
+    
+    public enum Mode {
+        FIXED_RATE,
+        PER_FRAME,
+        MAX_SPEED
+    }
+    
+    private final Mode mode;
+    private final double hertz;
+    private final int batchSize;
+    private final long batchPeriodNanos;
+    
+    private ExecutionClock(Mode mode, double hertz, int batchSize, long batchPeriodNanos) {
+        this.mode = mode;
+        this.hertz = hertz;
+        this.batchSize = batchSize;
+        this.batchPeriodNanos = batchPeriodNanos;
+    }
+    
+    /**
+     * Frecuencia fija en instrucciones por segundo
+     */
+    public static ExecutionClock fixedRate(double hertz) {
+        if (!(hertz > 0)) {
+            throw new IllegalArgumentException("La frecuencia debe ser positiva: " + hertz);
+        }
+        // Hasta la frecuencia de la pantalla va una instrucción por lote; por encima se agrupan por cuadro
+        int batch = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(hertz / FRAMES_PER_SECOND)));
+        return new ExecutionClock(Mode.FIXED_RATE, hertz, batch, Math.round(batch * 1e9 / hertz));
+    }
+    
+    /**
+     * Una cantidad fija de instrucciones en cada cuadro de la interfaz
+     */
+    public static ExecutionClock perFrame(int instructions) {
+        if (instructions <= 0) {
+            throw new IllegalArgumentException("Las instrucciones por cuadro deben ser positivas: " + instructions);
+        }
+        return new ExecutionClock(Mode.PER_FRAME, (double) instructions * FRAMES_PER_SECOND, instructions, FRAME_NANOS);
+    }
+    
+    /**
+     * Sin esperas: la interfaz solo se actualiza a la frecuencia de la pantalla
+     */
+    public static ExecutionClock maxSpeed() {
+        return new ExecutionClock(Mode.MAX_SPEED, Double.POSITIVE_INFINITY, MAX_SPEED_BATCH, 0);
+    }
+    
+    /**
+     * Interpreta textos como "10 Hz", "1000 / frame" o "max speed"
+     */
+    public static ExecutionClock fromName(String name) {
+        String text = name.trim().toLowerCase();
+        try {
+            if (text.equals("max") || text.equals("max speed")) {
+                return maxSpeed();
+            }
+            if (text.endsWith("/ frame") || text.endsWith("/frame")) {
+                return perFrame(Integer.parseInt(text.substring(0, text.indexOf('/')).trim()));
+            }
+            if (text.endsWith("hz")) {
+                return fixedRate(Double.parseDouble(text.substring(0, text.length() - 2).trim()));
+            }
+        } catch (NumberFormatException ex) {
+            // Se informa abajo con el texto completo
+        }
+        throw new IllegalArgumentException("Velocidad desconocida: " + name + " (usar N Hz, N / frame o max speed)");
+    }
+    
+    public Mode getMode() { return mode; }
+    public double getHertz() { return hertz; }
+    public int getBatchSize() { return batchSize; }
+    // 0 en MAX_SPEED: no se espera entre lotes
+    public long getBatchPeriodNanos() { return batchPeriodNanos; }
+    
+    @Override
+    public String toString() {
+        switch (mode) {
+            case FIXED_RATE: return (hertz == Math.rint(hertz) ? String.valueOf((long) hertz) : String.valueOf(hertz)) + " Hz";
+            case PER_FRAME: return batchSize + " / frame";
+            default: return "max speed";
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Contadores de ejecución que el simulador actualiza en cada paso
+ * En el camino normal solo se incrementa el contador de la operación: el total de instrucciones,
+ * las búsquedas y las escrituras se derivan de esos contadores al tomar la copia.
+ * La latencia por paso se mide en uno de cada SAMPLE_INTERVAL pasos para no pagar
+ * System.nanoTime en cada instrucción.
+ * Solo el hilo que ejecuta los modifica; si otro hilo toma una copia mientras tanto los valores
+ * pueden estar levemente desfasados entre sí, lo cual alcanza para mostrarlos en vivo.
+ */
+public class ExecutionCounters {
+    static final int SAMPLE_INTERVAL = 64;
+    static final int HISTOGRAM_BUCKETS = 64;
+    
+    private final long[] opcodeCounts = new long[16];
+    private final long[] latencyHistogram = new long[HISTOGRAM_BUCKETS];
+    private long failedStores;
+    private long errors;
+    private long runNanos;
+    private long runInstructions;
+    private long latencySamples;
+    private long latencyNanos;
+    private int untilSample = 1;
+    
+    /**
+     * Indica si hay que medir la latencia del paso que empieza
+     */
+    boolean shouldSample() {
+        if (--untilSample == 0) {
+            untilSample = SAMPLE_INTERVAL;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Registra una instrucción ejecutada (o intentada si success es false)
+     */
+    void recordStep(int word, boolean success) {
+        int opCode = (word >>> 4) & 0xF;
+        if (success) {
+            opcodeCounts[opCode]++;
+        } else {
+            errors++;
+            if (opCode == Instruction.OP_STORE) {
+                failedStores++;
+            }
+        }
+    }
+    
+    /**
+     * Registra de una vez un bloque traducido que se ejecutó completo (ver CompiledBlock)
+     * @param blockCounts instrucciones del bloque por código de operación
+     */
+    void recordBlock(long[] blockCounts) {
+        for (int opCode = 0; opCode < blockCounts.length; opCode++) {
+            opcodeCounts[opCode] += blockCounts[opCode];
+        }
+    }
+    
+    /**
+     * Agrega una latencia medida al histograma (cubeta = log2 de los nanosegundos)
+     */
+    void recordLatency(long nanos) {
+        int bucket = nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+        latencyHistogram[bucket]++;
+        latencySamples++;
+        latencyNanos += nanos;
+    }
+    
+    /**
+     * Tiempo e instrucciones de una llamada a Simulator.run, para las instrucciones por segundo
+     */
+    void recordRun(long instructions, long nanos) {
+        runInstructions += instructions;
+        runNanos += nanos;
+    }
+    
+    void reset() {
+        Arrays.fill(opcodeCounts, 0);
+        Arrays.fill(latencyHistogram, 0);
+        failedStores = 0;
+        errors = 0;
+        runNanos = 0;
+        runInstructions = 0;
+        latencySamples = 0;
+        latencyNanos = 0;
+        untilSample = 1;
+    }
+    
+    ExecutionStats snapshot() {
+        long[] counts = opcodeCounts.clone();
+        long instructions = 0;
+        for (long count : counts) {
+            instructions += count;
+        }
+        // Cada paso, exitoso o no, busca una instrucción; cada STORE exitoso escribe una posición
+        return new ExecutionStats(counts, latencyHistogram.clone(), instructions, instructions + errors,
+                                  counts[Instruction.OP_STORE], failedStores, errors, runInstructions, runNanos,
+                                  latencySamples, latencyNanos);
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Historial de ejecución para retroceder pasos (depuración hacia atrás)
+ * Los pasos recientes se deshacen con la bitácora de cambios; para saltar más atrás se
+ * restaura la foto periódica más cercana y se vuelve a ejecutar hasta el paso pedido
+ * Bitácora y fotos tienen tope fijo: al llenarse las fotos se descarta una de cada dos y se
+ * duplica el intervalo, así la memoria no depende de la cantidad de pasos ejecutados
+ *
+ * Solo la primera foto copia la memoria completa; las siguientes guardan las posiciones escritas desde
+ * la foto anterior (la memoria avisa cada escritura, ver Memory.watchWrites). Si esas posiciones pasan
+ * de MAX_DELTA_CELLS, las fotos más viejas se funden con la primera y ya no se puede volver antes de ellas.
+ */
+public class ExecutionHistory {
+    public static final int DEFAULT_JOURNAL_CAPACITY = 64 * 1024;
+    
+    private static final int INITIAL_SNAPSHOT_INTERVAL = 1024;
+    private static final int MAX_SNAPSHOTS = 32;
+    // Posiciones guardadas entre todas las fotos salvo la primera (32 MB de direcciones y valores)
+    private static final int MAX_DELTA_CELLS = 2 * 1024 * 1024;
+    
+    private final Simulator simulator;
+    private final UndoJournal journal;
+    private final List<Snapshot> snapshots = new ArrayList<>();
+    private int snapshotInterval = INITIAL_SNAPSHOT_INTERVAL;
+    private long deltaCells;
+    
+    // Rangos [inicio, fin] escritos en la memoria desde la última foto, sin ordenar
+    private int[] writtenStarts = new int[64];
+    private int[] writtenEnds = new int[64];
+    private int writtenCount;
+    
+    // Cambio del paso en curso, capturado antes de ejecutarlo
+    private int pendingRegister;
+    private int pendingRegisterValue;
+    private int pendingAddress;
+    private int pendingMemoryValue;
+    private int pendingIR;
+    
+    ExecutionHistory(Simulator simulator, int journalCapacity) {
+        this.simulator = simulator;
+        this.journal = new UndoJournal(journalCapacity);
+    }
+    
+    /**
+     * Descarta todo el historial y toma la foto del paso actual
+     */
+    void reset() {
+        journal.clear();
+        snapshots.clear();
+        snapshotInterval = INITIAL_SNAPSHOT_INTERVAL;
+        deltaCells = 0;
+        simulator.getMemory().watchWrites(this);
+        writtenCount = 0;
+        snapshots.add(takeFullSnapshot());
+    }
+    
+    /**
+     * Deja de recibir las escrituras de la memoria (ver Simulator.disableHistory)
+     */
+    void detach() {
+        simulator.getMemory().watchWrites(null);
+    }
+    
+    /**
+     * Anota un rango escrito en la memoria para la próxima foto
+     */
+    void memoryWritten(int from, int to) {
+        if (writtenCount > 0) {
+            int last = writtenCount - 1;
+            if (from <= writtenEnds[last] + 1 && to >= writtenStarts[last] - 1) {
+                writtenStarts[last] = Math.min(writtenStarts[last], from);
+                writtenEnds[last] = Math.max(writtenEnds[last], to);
+                return;
+            }
+        }
+        if (writtenCount == writtenStarts.length) {
+            compactWritten();
+            if (writtenCount > writtenStarts.length / 2) {
+                writtenStarts = Arrays.copyOf(writtenStarts, writtenStarts.length * 2);
+                writtenEnds = Arrays.copyOf(writtenEnds, writtenEnds.length * 2);
+            }
+        }
+        writtenStarts[writtenCount] = from;
+        writtenEnds[writtenCount] = to;
+        writtenCount++;
+    }
+    
+    /**
+     * Ordena los rangos escritos y une los que se tocan o solapan
+     */
+    private void compactWritten() {
+        long[] packed = new long[writtenCount];
+        for (int i = 0; i < writtenCount; i++) {
+            packed[i] = ((long) writtenStarts[i] << 32) | (writtenEnds[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        
+        int count = 0;
+        for (long range : packed) {
+            int start = (int) (range >> 32);
+            int end = (int) range;
+            if (count > 0 && start <= writtenEnds[count - 1] + 1) {
+                writtenEnds[count - 1] = Math.max(writtenEnds[count - 1], end);
+            } else {
+                writtenStarts[count] = start;
+                writtenEnds[count] = end;
+                count++;
+            }
+        }
+        writtenCount = count;
+    }
+    
+    /**
+     * Guarda el estado que va a modificar la instrucción que está por ejecutarse
+     */
+    void beforeStep(int word) {
+        CPU cpu = simulator.getCpu();
+        int op = (word >> 4) & 0xF;
+        int reg = word & 0xF;
+        
+        pendingIR = cpu.getIR();
+        pendingAddress = UndoJournal.NO_ADDRESS;
+        pendingMemoryValue = 0;
+        
+        if (op == Instruction.OP_STORE) {
+            // STORE escribe la memoria y además copia el AC en el registro usado como dirección
+            pendingRegister = UndoJournal.NO_REGISTER;
+            pendingRegisterValue = 0;
+            if (reg >= Instruction.REG_AX && reg <= Instruction.REG_DX) {
+                pendingRegister = reg;
+                pendingRegisterValue = cpu.getRegister(reg);
+                long address = (long) cpu.getMemoryBase() + cpu.getRegister(reg);
+                if (address >= cpu.getMemoryBase() && address < cpu.getMemoryLimit()) {
+                    pendingAddress = (int) address;
+                    pendingMemoryValue = cpu.getMemoryPort().peek(pendingAddress);
+                }
+            }
+        } else {
+            // MOV escribe su registro; LOAD, ADD y SUB escriben el acumulador
+            pendingRegister = op == Instruction.OP_MOV && reg >= Instruction.REG_AX && reg <= Instruction.REG_DX ? reg : 0;
+            pendingRegisterValue = cpu.getRegister(pendingRegister);
+        }
+    }
+    
+    /**
+     * Registra el paso que acaba de ejecutarse correctamente
+     */
+    void afterStep() {
+        int address = simulator.getCpu().getLastWriteAddress() >= 0 ? pendingAddress : UndoJournal.NO_ADDRESS;
+        journal.record(pendingRegister, pendingRegisterValue, address, pendingMemoryValue, pendingIR);
+        
+        if (simulator.getCurrentIndex() % snapshotInterval == 0) {
+            addSnapshot();
+        }
+    }
+    
+    /**
+     * Indica si se puede retroceder al menos un paso
+     */
+    public boolean canStepBack() {
+        return !journal.isEmpty()
+               || (!snapshots.isEmpty() && snapshots.get(0).currentIndex < simulator.getCurrentIndex());
+    }
+    
+    /**
+     * Deshace el último paso ejecutado
+     * @return false si no hay pasos para deshacer
+     */
+    public boolean stepBack() {
+        if (!canStepBack()) {
+            return false;
+        }
+        if (journal.isEmpty()) {
+            // La bitácora ya no alcanza: se vuelve desde una foto
+            return goToStep(simulator.getCurrentIndex() - 1);
+        }
+        
+        undoOne();
+        dropSnapshotsAfter(simulator.getCurrentIndex());
+        return true;
+    }
+    
+    /**
+     * Lleva la ejecución a un paso dado, hacia atrás o hacia adelante
+     * @param step cantidad de instrucciones ejecutadas en el estado buscado
+     * @return false si el paso no existe o hubo un error al volver a ejecutar
+     */
+    public boolean goToStep(int step) {
+        int current = simulator.getCurrentIndex();
+        if (step < 0 || simulator.getProgram() == null || step > simulator.getProgram().size()) {
+            return false;
+        }
+        
+        if (step < current) {
+            if (current - step <= journal.size()) {
+                while (simulator.getCurrentIndex() > step) {
+                    undoOne();
+                }
+                dropSnapshotsAfter(step);
+                return true;
+            }
+            
+            Snapshot snapshot = nearestSnapshot(step);
+            if (snapshot == null) {
+                return false;
+            }
+            dropSnapshotsAfter(snapshot.currentIndex);
+            restoreSnapshot(snapshot);
+            journal.clear();
+        }
+        
+        while (simulator.getCurrentIndex() < step) {
+            if (!simulator.step()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public int getJournalSize() { return journal.size(); }
+    public int getJournalCapacity() { return journal.capacity(); }
+    public int getSnapshotCount() { return snapshots.size(); }
+    public int getSnapshotInterval() { return snapshotInterval; }
+    
+    private void undoOne() {
+        int slot = journal.pop();
+        CPU cpu = simulator.getCpu();
+        
+        int register = journal.getRegisterCode(slot);
+        if (register != UndoJournal.NO_REGISTER) {
+            cpu.setRegister(register, journal.getOldRegisterValue(slot));
+        }
+        int address = journal.getAddress(slot);
+        if (address != UndoJournal.NO_ADDRESS) {
+            MemoryPort port = cpu.getMemoryPort();
+            if (port == simulator.getMemory()) {
+                simulator.getMemory().setValueForce(address, journal.getOldMemoryValue(slot));
+            } else {
+                port.write(address, journal.getOldMemoryValue(slot));
+            }
+        }
+        cpu.setIR(journal.getOldIR(slot));
+        cpu.setPC(cpu.getPC() - 1);
+        
+        simulator.restore(simulator.getProgram(), simulator.getCurrentIndex() - 1,
+                          simulator.getInstructionsExecuted() - 1, null);
+    }
+    
+    private void addSnapshot() {
+        if (snapshots.size() >= MAX_SNAPSHOTS) {
+            // Se conservan las fotos en múltiplos del nuevo intervalo (siempre queda la primera)
+            snapshotInterval *= 2;
+            for (int i = snapshots.size() - 1; i > 0; i--) {
+                if (snapshots.get(i).currentIndex % snapshotInterval != 0) {
+                    removeSnapshot(i);
+                }
+            }
+            if (simulator.getCurrentIndex() % snapshotInterval != 0) {
+                return;
+            }
+        }
+        snapshots.add(takeDeltaSnapshot());
+        
+        while (deltaCells > MAX_DELTA_CELLS && snapshots.size() > 1) {
+            foldIntoFirst();
+        }
+    }
+    
+    /**
+     * Quita una foto que no es la primera sin perder lo que se escribió desde la anterior:
+     * sus posiciones pasan a la foto siguiente, o a las escrituras pendientes si era la última
+     */
+    private void removeSnapshot(int index) {
+        Snapshot removed = snapshots.remove(index);
+        deltaCells -= removed.cellCount;
+        if (index < snapshots.size()) {
+            Snapshot next = snapshots.get(index);
+            deltaCells -= next.cellCount;
+            mergeCells(removed, next, next);
+            deltaCells += next.cellCount;
+        } else {
+            for (int i = 0; i < removed.cellCount; i++) {
+                memoryWritten(removed.addresses[i], removed.addresses[i]);
+            }
+        }
+    }
+    
+    /**
+     * Aplica la segunda foto sobre la primera: la primera pasa a ser el estado completo en ese paso
+     */
+    private void foldIntoFirst() {
+        Snapshot first = snapshots.get(0);
+        Snapshot second = snapshots.remove(1);
+        deltaCells -= second.cellCount;
+        mergeCells(first, second, first);
+        System.arraycopy(second.registers, 0, first.registers, 0, first.registers.length);
+        first.ir = second.ir;
+        first.pc = second.pc;
+        first.currentIndex = second.currentIndex;
+        first.instructionsExecuted = second.instructionsExecuted;
+    }
+    
+    /**
+     * Une las posiciones de dos fotos consecutivas; a igual dirección gana la más nueva
+     * @param target foto donde queda el resultado: la más nueva, o la más vieja si es la primera (completa),
+     *               en cuyo caso no se guardan las posiciones en 0
+     */
+    private static void mergeCells(Snapshot a, Snapshot b, Snapshot target) {
+        boolean skipZeros = target == a;
+        int[] addresses = new int[a.cellCount + b.cellCount];
+        int[] values = new int[addresses.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.cellCount || j < b.cellCount) {
+            int address;
+            int value;
+            if (j >= b.cellCount || (i < a.cellCount && a.addresses[i] < b.addresses[j])) {
+                address = a.addresses[i];
+                value = a.values[i++];
+            } else {
+                if (i < a.cellCount && a.addresses[i] == b.addresses[j]) {
+                    i++;
+                }
+                address = b.addresses[j];
+                value = b.values[j++];
+            }
+            if (value != 0 || !skipZeros) {
+                addresses[count] = address;
+                values[count++] = value;
+            }
+        }
+        target.addresses = addresses;
+        target.values = values;
+        target.cellCount = count;
+    }
+    
+    private void dropSnapshotsAfter(int step) {
+        // La primera foto no se descarta: es el punto de partida para cualquier salto
+        for (int i = snapshots.size() - 1; i > 0 && snapshots.get(i).currentIndex > step; i--) {
+            removeSnapshot(i);
+        }
+    }
+    
+    private Snapshot nearestSnapshot(int step) {
+        Snapshot best = null;
+        for (Snapshot snapshot : snapshots) {
+            if (snapshot.currentIndex <= step) {
+                best = snapshot;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Foto con los registros y todas las posiciones distintas de 0
+     */
+    private Snapshot takeFullSnapshot() {
+        Memory memory = simulator.getMemory();
+        Snapshot snapshot = takeRegisters();
+        int used = memory.getUsedPositions();
+        snapshot.addresses = new int[used];
+        snapshot.values = new int[used];
+        memory.forEachUsedCell((address, value) -> {
+            snapshot.addresses[snapshot.cellCount] = address;
+            snapshot.values[snapshot.cellCount] = value;
+            snapshot.cellCount++;
+        });
+        return snapshot;
+    }
+    
+    /**
+     * Foto con los registros y las posiciones escritas desde la foto anterior
+     */
+    private Snapshot takeDeltaSnapshot() {
+        Memory memory = simulator.getMemory();
+        Snapshot snapshot = takeRegisters();
+        compactWritten();
+        
+        int cells = 0;
+        for (int i = 0; i < writtenCount; i++) {
+            // Al achicar la memoria pueden quedar rangos fuera
+            writtenEnds[i] = Math.min(writtenEnds[i], memory.getTotalSize() - 1);
+            cells += Math.max(0, writtenEnds[i] - writtenStarts[i] + 1);
+        }
+        snapshot.addresses = new int[cells];
+        snapshot.values = new int[cells];
+        for (int i = 0; i < writtenCount; i++) {
+            int length = Math.max(0, writtenEnds[i] - writtenStarts[i] + 1);
+            memory.readBlock(writtenStarts[i], snapshot.values, snapshot.cellCount, length);
+            for (int k = 0; k < length; k++) {
+                snapshot.addresses[snapshot.cellCount++] = writtenStarts[i] + k;
+            }
+        }
+        writtenCount = 0;
+        deltaCells += cells;
+        return snapshot;
+    }
+    
+    private Snapshot takeRegisters() {
+        CPU cpu = simulator.getCpu();
+        Snapshot snapshot = new Snapshot();
+        for (int code = 0; code <= Instruction.REG_DX; code++) {
+            snapshot.registers[code] = cpu.getRegister(code);
+        }
+        snapshot.ir = cpu.getIR();
+        snapshot.pc = cpu.getPC();
+        snapshot.currentIndex = simulator.getCurrentIndex();
+        snapshot.instructionsExecuted = simulator.getInstructionsExecuted();
+        return snapshot;
+    }
+    
+    private void restoreSnapshot(Snapshot snapshot) {
+        CPU cpu = simulator.getCpu();
+        for (int code = 0; code <= Instruction.REG_DX; code++) {
+            cpu.setRegister(code, snapshot.registers[code]);
+        }
+        cpu.setIR(snapshot.ir);
+        cpu.setPC(snapshot.pc);
+        
+        // La primera foto es completa; las siguientes hasta la pedida se aplican en orden
+        Memory memory = simulator.getMemory();
+        Snapshot first = snapshots.get(0);
+        memory.replaceValues(first.addresses, first.values, first.cellCount);
+        for (int i = 1; i < snapshots.size() && snapshots.get(i - 1) != snapshot; i++) {
+            Snapshot delta = snapshots.get(i);
+            for (int k = 0; k < delta.cellCount; k++) {
+                memory.setValueForce(delta.addresses[k], delta.values[k]);
+            }
+        }
+        writtenCount = 0;
+        simulator.restore(simulator.getProgram(), snapshot.currentIndex, snapshot.instructionsExecuted, null);
+    }
+    
+    /**
+     * Estado en un paso: registros y posiciones de memoria ordenadas por dirección
+     * (en la primera foto todas las distintas de 0, en las demás las escritas desde la foto anterior)
+     */
+    private static class Snapshot {
+        final int[] registers = new int[Instruction.REG_DX + 1];
+        int ir;
+        int pc;
+        int currentIndex;
+        long instructionsExecuted;
+        int[] addresses;
+        int[] values;
+        int cellCount;
+    }
+}
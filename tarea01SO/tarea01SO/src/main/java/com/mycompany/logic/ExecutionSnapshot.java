@@ -0,0 +1,126 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Estado visible de una ejecución en curso (inmutable)
+ * Lo arma el hilo de ejecución entre lotes y lo lee la interfaz sin tocar el CPU:
+ * registros, instrucción actual, los rangos de memoria que cambiaron desde el snapshot anterior
+ * y el texto de las celdas que la interfaz tiene a la vista (la interfaz no lee Memory mientras corre).
+ */
+public class ExecutionSnapshot {
+    // Tope de celdas copiadas por snapshot: alcanza para una pantalla de la tabla
+    public static final int MAX_VIEW_CELLS = 512;
+    
+    private final int ax;
+    private final int bx;
+    private final int cx;
+    private final int dx;
+    private final int ac;
+    private final int ir;
+    private final int pc;
+    private final int currentIndex;
+    private final long instructionsExecuted;
+    private final boolean finished;
+    private final boolean ended;
+    private final String lastError;
+    private final MemoryChangeBatch memoryChanges;
+    private final int viewStart;
+    private final String[] viewCells;
+    
+    private ExecutionSnapshot(int ax, int bx, int cx, int dx, int ac, int ir, int pc, int currentIndex,
+                              long instructionsExecuted, boolean finished, boolean ended, String lastError,
+                              MemoryChangeBatch memoryChanges, int viewStart, String[] viewCells) {
+        this.ax = ax;
+        this.bx = bx;
+        this.cx = cx;
+        this.dx = dx;
+        this.ac = ac;
+        this.ir = ir;
+        this.pc = pc;
+        this.currentIndex = currentIndex;
+        this.instructionsExecuted = instructionsExecuted;
+        this.finished = finished;
+        this.ended = ended;
+        this.lastError = lastError;
+        this.memoryChanges = memoryChanges;
+        this.viewStart = viewStart;
+        this.viewCells = viewCells;
+    }
+    
+    /**
+     * Copia el estado del simulador, el texto de las celdas [viewFirst, viewLast] y se queda con los
+     * cambios de memoria pendientes. Se copian como mucho MAX_VIEW_CELLS celdas.
+     * Solo desde el hilo que ejecuta el simulador
+     * @param ended true si es el último snapshot de la ejecución
+     */
+    static ExecutionSnapshot capture(Simulator simulator, boolean ended, int viewFirst, int viewLast) {
+        CPU cpu = simulator.getCpu();
+        Memory memory = simulator.getMemory();
+        int viewStart = Math.max(0, viewFirst);
+        int viewEnd = Math.min(Math.min(viewLast, memory.getTotalSize() - 1), viewStart + MAX_VIEW_CELLS - 1);
+        String[] viewCells = new String[Math.max(0, viewEnd - viewStart + 1)];
+        for (int i = 0; i < viewCells.length; i++) {
+            viewCells[i] = memory.getCellDescription(viewStart + i);
+        }
+        return new ExecutionSnapshot(cpu.getAX(), cpu.getBX(), cpu.getCX(), cpu.getDX(), cpu.getAC(), cpu.getIR(),
+                                     cpu.getPC(), simulator.getCurrentIndex(), simulator.getInstructionsExecuted(),
+                                     simulator.isFinished(), ended, simulator.getLastError(),
+                                     memory.takeChanges(), viewStart, viewCells);
+    }
+    
+    /**
+     * Combina un snapshot que la interfaz no llegó a mostrar con el siguiente:
+     * queda el estado y las celdas a la vista del más nuevo, y los cambios de memoria de ambos
+     * @param older snapshot sin consumir, o null
+     */
+    static ExecutionSnapshot merge(ExecutionSnapshot older, ExecutionSnapshot newer) {
+        if (older == null) {
+            return newer;
+        }
+        return new ExecutionSnapshot(newer.ax, newer.bx, newer.cx, newer.dx, newer.ac, newer.ir, newer.pc,
+                                     newer.currentIndex, newer.instructionsExecuted, newer.finished,
+                                     older.ended || newer.ended, newer.lastError,
+                                     MemoryChangeBatch.merge(older.memoryChanges, newer.memoryChanges),
+                                     newer.viewStart, newer.viewCells);
+    }
+    
+    /**
+     * Mismo texto que CPU.getStatus
+     */
+    public String getStatus() {
+        return CPU.formatStatus(ax, bx, cx, dx, ac, ir, pc);
+    }
+    
+    public int getAX() { return ax; }
+    public int getBX() { return bx; }
+    public int getCX() { return cx; }
+    public int getDX() { return dx; }
+    public int getAC() { return ac; }
+    public int getIR() { return ir; }
+    public int getPC() { return pc; }
+    public int getCurrentIndex() { return currentIndex; }
+    public long getInstructionsExecuted() { return instructionsExecuted; }
+    public boolean isFinished() { return finished; }
+    // true en el último snapshot: la ejecución terminó, falló o se detuvo
+    public boolean isEnded() { return ended; }
+    public String getLastError() { return lastError; }
+    public MemoryChangeBatch getMemoryChanges() { return memoryChanges; }
+    public int getViewStart() { return viewStart; }
+    public int getViewEnd() { return viewStart + viewCells.length - 1; }
+    
+    /**
+     * Texto de la celda copiado al tomar el snapshot, o null si no estaba a la vista
+     */
+    public String getViewCell(int address) {
+        int index = address - viewStart;
+        return index >= 0 && index < viewCells.length ? viewCells[index] : null;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Métricas de ejecución del simulador en un momento dado (inmutable)
+ * Las lecturas de memoria cuentan la búsqueda de cada instrucción; las escrituras son los STORE exitosos.
+ * La latencia por paso es un muestreo (uno de cada ExecutionCounters.SAMPLE_INTERVAL pasos) agrupado
+ * en cubetas de potencias de 2: la cubeta i cuenta los pasos que tardaron entre 2^i y 2^(i+1) - 1 ns.
+ */
+public class ExecutionStats {
+    private final long[] opcodeCounts;
+    private final long[] latencyHistogram;
+    private final long instructions;
+    private final long memoryReads;
+    private final long memoryWrites;
+    private final long failedStores;
+    private final long errors;
+    private final long runInstructions;
+    private final long runNanos;
+    private final long latencySamples;
+    private final long latencyNanos;
+    
+    ExecutionStats(long[] opcodeCounts, long[] latencyHistogram, long instructions, long memoryReads,
+                   long memoryWrites, long failedStores, long errors, long runInstructions, long runNanos,
+                   long latencySamples, long latencyNanos) {
+        this.opcodeCounts = opcodeCounts;
+        this.latencyHistogram = latencyHistogram;
+        this.instructions = instructions;
+        this.memoryReads = memoryReads;
+        this.memoryWrites = memoryWrites;
+        this.failedStores = failedStores;
+        this.errors = errors;
+        this.runInstructions = runInstructions;
+        this.runNanos = runNanos;
+        this.latencySamples = latencySamples;
+        this.latencyNanos = latencyNanos;
+    }
+    
+    /**
+     * Instrucciones ejecutadas con un código de operación (Instruction.OP_*)
+     */
+    public long getOpcodeCount(int opCode) {
+        return opCode >= 0 && opCode < opcodeCounts.length ? opcodeCounts[opCode] : 0;
+    }
+    
+    /**
+     * Instrucciones por segundo medidas en Simulator.run
+     * Si solo se ejecutó paso a paso se estima con la latencia media muestreada
+     */
+    public double getInstructionsPerSecond() {
+        if (runNanos > 0) {
+            return runInstructions * 1e9 / runNanos;
+        }
+        double mean = getMeanLatencyNanos();
+        return mean > 0 ? 1e9 / mean : 0;
+    }
+    
+    public double getMeanLatencyNanos() {
+        return latencySamples == 0 ? 0 : (double) latencyNanos / latencySamples;
+    }
+    
+    /**
+     * Cota superior aproximada (según las cubetas) del percentil pedido de la latencia por paso
+     * @param percentile entre 0 y 100
+     */
+    public long getLatencyPercentileNanos(double percentile) {
+        if (latencySamples == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(latencySamples * percentile / 100);
+        long seen = 0;
+        for (int bucket = 0; bucket < latencyHistogram.length; bucket++) {
+            seen += latencyHistogram[bucket];
+            if (seen >= Math.max(1, target)) {
+                return bucketUpperBound(bucket);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+    
+    /**
+     * Cantidad de muestras de latencia en una cubeta
+     */
+    public long getLatencyBucket(int bucket) {
+        return latencyHistogram[bucket];
+    }
+    
+    public int getLatencyBucketCount() {
+        return latencyHistogram.length;
+    }
+    
+    private static long bucketUpperBound(int bucket) {
+        return bucket >= 62 ? Long.MAX_VALUE : (2L << bucket) - 1;
+    }
+    
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("=== ESTADÍSTICAS ===\n");
+        report.append("Instrucciones ejecutadas: ").append(instructions).append("  Errores: ").append(errors).append("\n");
+        for (int opCode = 0; opCode < opcodeCounts.length; opCode++) {
+            String name = Instruction.operationName(opCode);
+            if (name != null) {
+                report.append(String.format("  %-6s %12d  (%.1f%%)%n", name, opcodeCounts[opCode],
+                                            instructions == 0 ? 0.0 : opcodeCounts[opCode] * 100.0 / instructions));
+            }
+        }
+        report.append("Lecturas de memoria: ").append(memoryReads).append("  Escrituras: ").append(memoryWrites)
+              .append("  STORE rechazados: ").append(failedStores).append("\n");
+        report.append(String.format("Instrucciones por segundo: %.0f%n", getInstructionsPerSecond()));
+        
+        report.append("Latencia por paso (").append(latencySamples).append(" muestras)");
+        if (latencySamples > 0) {
+            report.append(String.format(": media %.0f ns  p50 <= %d ns  p99 <= %d ns", getMeanLatencyNanos(),
+                                        getLatencyPercentileNanos(50), getLatencyPercentileNanos(99)));
+        }
+        report.append("\n");
+        for (int bucket = 0; bucket < latencyHistogram.length; bucket++) {
+            if (latencyHistogram[bucket] > 0) {
+                report.append(String.format("  %10d - %-10d ns %10d%n", bucket == 0 ? 0 : 1L << bucket,
+                                            bucketUpperBound(bucket), latencyHistogram[bucket]));
+            }
+        }
+        return report.toString();
+    }
+    
+    public long getInstructions() { return instructions; }
+    public long getMemoryReads() { return memoryReads; }
+    public long getMemoryWrites() { return memoryWrites; }
+    public long getFailedStores() { return failedStores; }
+    public long getErrors() { return errors; }
+    public long getLatencySamples() { return latencySamples; }
+}
@@ -0,0 +1,72 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Almacenamiento de memoria sobre un arreglo int[] en el heap
+ */
+public class HeapMemoryStorage implements MemoryStorage {
+    private final int[] values;
+    
+    public HeapMemoryStorage(int size) {
+        this.values = new int[size];
+    }
+    
+    private HeapMemoryStorage(int[] values) {
+        this.values = values;
+    }
+    
+    @Override
+    public int size() {
+        return values.length;
+    }
+    
+    @Override
+    public int get(int address) {
+        return values[address];
+    }
+    
+    @Override
+    public void set(int address, int value) {
+        values[address] = value;
+    }
+    
+    @Override
+    public void copyFrom(int[] source, int offset, int address, int length) {
+        System.arraycopy(source, offset, values, address, length);
+    }
+    
+    @Override
+    public void copyTo(int address, int[] target, int offset, int length) {
+        System.arraycopy(values, address, target, offset, length);
+    }
+    
+    @Override
+    public void clear(int from, int to) {
+        Arrays.fill(values, from, to, 0);
+    }
+    
+    @Override
+    public int nextNonZero(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (values[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    @Override
+    public MemoryStorage resize(int newSize) {
+        return new HeapMemoryStorage(Arrays.copyOf(values, newSize));
+    }
+}
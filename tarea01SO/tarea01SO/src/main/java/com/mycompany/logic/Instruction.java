@@ -13,11 +13,31 @@ package com.mycompany.logic;
  * Clase que representa una instrucción del mini lenguaje ensamblador
  */
 public class Instruction {
+    // Códigos de operación (bits 4-7 de la palabra)
+    public static final int OP_LOAD = 0b0001;
+    public static final int OP_STORE = 0b0010;
+    public static final int OP_MOV = 0b0011;
+    public static final int OP_SUB = 0b0100;
+    public static final int OP_ADD = 0b0101;
+    
+    // Códigos de registro (bits 0-3 de la palabra)
+    public static final int REG_AX = 0b0001;
+    public static final int REG_BX = 0b0010;
+    public static final int REG_CX = 0b0011;
+    public static final int REG_DX = 0b0100;
+    
+    // Rango del valor inmediato que se empaqueta en los bits 8-31 de la palabra codificada
+    public static final int MIN_IMMEDIATE = -(1 << 23);
+    public static final int MAX_IMMEDIATE = (1 << 23) - 1;
+    
     private String assemblyCode;    
     private String binaryCode;     
     private String operation;      
     private String register;       
     private int value;             
+    private int opCode;
+    private int regCode;
+    private int encodedWord;
     
     public Instruction(String assemblyCode) {
         this.assemblyCode = assemblyCode.trim();
@@ -46,6 +66,10 @@ public class Instruction {
             }
         }
         
+        if (needsImmediateValue() && (value < MIN_IMMEDIATE || value > MAX_IMMEDIATE)) {
+            throw new IllegalArgumentException("Valor inmediato fuera de rango: " + value);
+        }
+        
         generateBinaryCode();
     }
     
@@ -53,10 +77,11 @@ public class Instruction {
      * Genera el código binario de 8 bits para la instrucción
      */
     private void generateBinaryCode() {
-        String opCode = getOperationCode();
-        String regCode = getRegisterCode();
+        opCode = operationCodeOf(operation);
+        regCode = registerCodeOf(register);
         
-        binaryCode = opCode + regCode;
+        binaryCode = getOperationCode() + getRegisterCode();
+        encodedWord = encode(opCode, regCode, needsImmediateValue() ? value : 0);
         
         
 //        System.out.println("Generando código para: " + assemblyCode);
@@ -65,34 +90,98 @@ public class Instruction {
     }
     
     /**
-     * Obtiene el código de operación en binario (4 bits)
+     * Obtiene el código numérico de una operación
      */
-    private String getOperationCode() {
+    private static int operationCodeOf(String operation) {
         switch (operation) {
-            case "LOAD": return "0001";
-            case "STORE": return "0010";
-            case "MOV": return "0011";
-            case "SUB": return "0100";
-            case "ADD": return "0101";
+            case "LOAD": return OP_LOAD;
+            case "STORE": return OP_STORE;
+            case "MOV": return OP_MOV;
+            case "SUB": return OP_SUB;
+            case "ADD": return OP_ADD;
             default: 
                 throw new IllegalArgumentException("Operación desconocida: " + operation);
         }
     }
     
     /**
-     * Obtiene el código del registro en binario (4 bits)
+     * Obtiene el código numérico de un registro
      */
-    private String getRegisterCode() {
+    private static int registerCodeOf(String register) {
         switch (register) {
-            case "AX": return "0001";
-            case "BX": return "0010";
-            case "CX": return "0011";
-            case "DX": return "0100";
+            case "AX": return REG_AX;
+            case "BX": return REG_BX;
+            case "CX": return REG_CX;
+            case "DX": return REG_DX;
             default:
                 throw new IllegalArgumentException("Registro desconocido: " + register);
         }
     }
     
+    /**
+     * Obtiene el código de operación en binario (4 bits)
+     */
+    private String getOperationCode() {
+        return String.format("%4s", Integer.toBinaryString(opCode)).replace(' ', '0');
+    }
+    
+    /**
+     * Obtiene el código del registro en binario (4 bits)
+     */
+    private String getRegisterCode() {
+        return String.format("%4s", Integer.toBinaryString(regCode)).replace(' ', '0');
+    }
+    
+    /**
+     * Empaqueta una instrucción en una palabra entera
+     * Bits 0-3: registro, bits 4-7: operación, bits 8-31: valor inmediato con signo
+     */
+    public static int encode(int opCode, int regCode, int immediate) {
+        return (immediate << 8) | ((opCode & 0xF) << 4) | (regCode & 0xF);
+    }
+    
+    /**
+     * Nombre de una operación a partir de su código, o null si no existe
+     */
+    public static String operationName(int opCode) {
+        switch (opCode) {
+            case OP_LOAD: return "LOAD";
+            case OP_STORE: return "STORE";
+            case OP_MOV: return "MOV";
+            case OP_SUB: return "SUB";
+            case OP_ADD: return "ADD";
+            default: return null;
+        }
+    }
+    
+    /**
+     * Reconstruye el texto ensamblador de una palabra codificada
+     */
+    public static String disassemble(int word) {
+        int opCode = (word >>> 4) & 0xF;
+        int regCode = word & 0xF;
+        int immediate = word >> 8;
+        
+        String operation = operationName(opCode);
+        if (operation == null) {
+            return "??? (" + word + ")";
+        }
+        
+        String register;
+        switch (regCode) {
+            case REG_AX: register = "AX"; break;
+            case REG_BX: register = "BX"; break;
+            case REG_CX: register = "CX"; break;
+            case REG_DX: register = "DX"; break;
+            default: return operation + " ??? (" + word + ")";
+        }
+        
+        if (opCode == OP_MOV && immediate != 0) {
+            return operation + " " + register + ", " + immediate;
+        }
+        return operation + " " + register;
+    }
+    
     /**
      * Determina si la instrucción necesita un valor inmediato
      */
@@ -140,6 +229,14 @@ public class Instruction {
     public String getOperation() { return operation; }
     public String getRegister() { return register; }
     public int getValue() { return value; }
+    public int getOpCode() { return opCode; }
+    public int getRegCode() { return regCode; }
+    public boolean hasImmediateValue() { return needsImmediateValue(); }
+    
+    /**
+     * Palabra codificada lista para CPU.executeInstruction(int)
+     */
+    public int getEncodedWord() { return encodedWord; }
     
     @Override
     public String toString() {
@@ -0,0 +1,280 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Mapa int a int con direccionamiento abierto y sondeo lineal, sin objetos por entrada
+ * Las claves deben ser no negativas; una clave ausente vale 0
+ */
+public class IntIntHashMap {
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+    
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    
+    public IntIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    /**
+     * @param expectedSize cantidad de entradas esperada, para evitar crecer al principio
+     */
+    public IntIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+    
+    /**
+     * Recorrido de entradas sin crear objetos
+     */
+    public interface EntryVisitor {
+        void visit(int key, int value);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Valor asociado a la clave, o 0 si no está
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+    
+    public int getOrDefault(int key, int defaultValue) {
+        checkKey(key);
+        int slot = findSlot(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+    
+    public boolean containsKey(int key) {
+        checkKey(key);
+        return keys[findSlot(key)] == key;
+    }
+    
+    /**
+     * Asocia el valor a la clave
+     * @return el valor anterior, o 0 si no estaba
+     */
+    public int put(int key, int value) {
+        checkKey(key);
+        int slot = findSlot(key);
+        if (keys[slot] == key) {
+            int old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return 0;
+    }
+    
+    /**
+     * Quita la clave
+     * @return el valor que tenía, o 0 si no estaba
+     */
+    public int remove(int key) {
+        checkKey(key);
+        int slot = findSlot(key);
+        if (keys[slot] != key) {
+            return 0;
+        }
+        int old = values[slot];
+        deleteSlot(slot);
+        size--;
+        return old;
+    }
+    
+    /**
+     * Quita todas las claves en [from, to)
+     */
+    public void removeRange(int from, int to) {
+        if (size == 0 || from >= to) {
+            return;
+        }
+        
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        int removed = 0;
+        for (int key : oldKeys) {
+            if (key != EMPTY && key >= from && key < to) {
+                removed++;
+            }
+        }
+        if (removed == 0) {
+            return;
+        }
+        
+        // Reconstruir es más simple y barato que borrar con corrimientos uno por uno
+        allocate(capacityFor(size - removed));
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != EMPTY && (key < from || key >= to)) {
+                insertNew(key, oldValues[i]);
+            }
+        }
+    }
+    
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+    
+    /**
+     * Visita todas las entradas, sin orden definido
+     */
+    public void forEach(EntryVisitor visitor) {
+        int[] currentKeys = keys;
+        int[] currentValues = values;
+        for (int i = 0; i < currentKeys.length; i++) {
+            if (currentKeys[i] != EMPTY) {
+                visitor.visit(currentKeys[i], currentValues[i]);
+            }
+        }
+    }
+    
+    /**
+     * Entradas con clave en [from, to) ordenadas por clave
+     * Cada entrada va empaquetada en un long: clave en los 32 bits altos y valor en los bajos
+     * (se extraen con entryKey y entryValue)
+     */
+    public long[] sortedEntries(int from, int to) {
+        long[] result = new long[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int key = keys[i];
+            if (key != EMPTY && key >= from && key < to) {
+                result[count++] = ((long) key << 32) | (values[i] & 0xFFFFFFFFL);
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+    
+    public static int entryKey(long entry) {
+        return (int) (entry >>> 32);
+    }
+    
+    public static int entryValue(long entry) {
+        return (int) entry;
+    }
+    
+    /**
+     * Menor clave en [from, to), o -1 si no hay
+     * Recorre toda la tabla: para buscar varias veces conviene sortedEntries una sola vez
+     */
+    public int minKey(int from, int to) {
+        int min = -1;
+        for (int key : keys) {
+            if (key != EMPTY && key >= from && key < to && (min < 0 || key < min)) {
+                min = key;
+            }
+        }
+        return min;
+    }
+    
+    /**
+     * Las claves negativas no se aceptan: -1 marca las posiciones libres (EMPTY)
+     */
+    private static void checkKey(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Clave negativa: " + key);
+        }
+    }
+    
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Posición donde está la clave, o el primer hueco donde iría
+     */
+    private int findSlot(int key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void insertNew(int key, int value) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+    
+    /**
+     * Borra una posición corriendo hacia atrás las entradas que dependían de ella
+     * Así no hacen falta marcas de borrado y las búsquedas siguen cortando en el primer hueco
+     */
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // La entrada puede ocupar el hueco si su posición ideal no está entre el hueco y ella
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+    }
+    
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insertNew(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+    
+    /**
+     * Potencia de 2 que mantiene la carga en 50% o menos
+     */
+    private static int capacityFor(int expectedSize) {
+        int needed = Math.max(MIN_CAPACITY, expectedSize * 2);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
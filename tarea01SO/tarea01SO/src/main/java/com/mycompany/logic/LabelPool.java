@@ -0,0 +1,129 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Tabla de etiquetas sin repetir: cada texto distinto se guarda una vez y se identifica con un entero
+ * Las memorias guardan solo el identificador, así que cargar el mismo programa muchas veces
+ * comparte el texto de sus etiquetas
+ * Cada identificador cuenta las posiciones que lo usan: intern suma una y release la quita. Cuando
+ * no queda ninguna el texto sale de la tabla y su identificador se reutiliza, así que una tabla
+ * compartida entre varias memorias no crece con los programas que ya se descargaron.
+ * Es segura entre hilos para que la usen varias máquinas en paralelo
+ */
+public class LabelPool {
+    private static final LabelPool SHARED = new LabelPool();
+    
+    private final Map<String, Integer> ids = new HashMap<>();
+    // El índice 0 queda libre para representar "sin etiqueta"
+    private String[] labels = new String[64];
+    // Posiciones que usan cada identificador
+    private int[] references = new int[64];
+    // Identificadores liberados, para reutilizar antes de agregar al final
+    private int[] free = new int[16];
+    private int freeCount;
+    private int count = 1;
+    
+    /**
+     * Tabla compartida entre las memorias que la reciben en el constructor
+     */
+    public static LabelPool getShared() {
+        return SHARED;
+    }
+    
+    /**
+     * Identificador de la etiqueta, agregándola si es nueva, con una posición más que lo usa
+     * @return 0 para una etiqueta vacía o null
+     */
+    public synchronized int intern(String label) {
+        if (label == null || label.isEmpty()) {
+            return 0;
+        }
+        Integer existing = ids.get(label);
+        if (existing != null) {
+            references[existing]++;
+            return existing;
+        }
+        
+        int id;
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        } else {
+            if (count == labels.length) {
+                labels = Arrays.copyOf(labels, labels.length * 2);
+                references = Arrays.copyOf(references, references.length * 2);
+            }
+            id = count++;
+        }
+        labels[id] = label;
+        references[id] = 1;
+        ids.put(label, id);
+        return id;
+    }
+    
+    /**
+     * Identificadores de varias etiquetas tomando el candado una sola vez
+     */
+    public synchronized int[] internAll(String[] values, int offset, int length) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = intern(values[offset + i]);
+        }
+        return result;
+    }
+    
+    /**
+     * Texto de un identificador devuelto por intern, o "" para 0
+     */
+    public synchronized String get(int id) {
+        return id == 0 ? "" : labels[id];
+    }
+    
+    /**
+     * Una posición deja de usar el identificador; sin ninguna, la etiqueta sale de la tabla
+     * @param id identificador devuelto por intern, o 0 (no hace nada)
+     */
+    public synchronized void release(int id) {
+        if (id == 0) {
+            return;
+        }
+        if (references[id] <= 0) {
+            throw new IllegalStateException("Etiqueta " + id + " liberada más veces de las que se usó");
+        }
+        if (--references[id] == 0) {
+            ids.remove(labels[id]);
+            labels[id] = null;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, free.length * 2);
+            }
+            free[freeCount++] = id;
+        }
+    }
+    
+    /**
+     * release de varios identificadores tomando el candado una sola vez
+     */
+    public synchronized void releaseAll(int[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            release(values[i]);
+        }
+    }
+    
+    /**
+     * Cantidad de etiquetas distintas guardadas
+     */
+    public synchronized int size() {
+        return ids.size();
+    }
+}
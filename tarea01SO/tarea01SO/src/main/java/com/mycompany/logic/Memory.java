@@ -4,6 +4,10 @@
  */
 package com.mycompany.logic;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  *
  * @author gadyr
@@ -13,13 +17,37 @@ package com.mycompany.logic;
  * Clase que representa la memoria de la mini computadora
  * Maneja la separación entre memoria del SO y del usuario
  */
-public class Memory {
-    private int[] memory;
-    private String[] memoryLabels; 
+public class Memory implements MemoryPort {
+    // Cantidad máxima de rangos sucios antes de fusionarlos entre sí
+    static final int MAX_DIRTY_RANGES = 16;
+    
+    private MemoryStorage memory;
+    // Solo las posiciones con etiqueta, como identificador en labelPool
+    private final IntIntHashMap labelIds = new IntIntHashMap();
+    // Cada posición en labelIds cuenta como un uso de su identificador (ver LabelPool.release)
+    private final LabelPool labelPool;
+    // Programa cargado en [programBase, programBase + tamaño): sus etiquetas se arman al pedirlas
+    private AssembledProgram program;
+    private int programBase;
     private int totalSize;
+    private final MemoryStorage.Type storageType;
     private int osMemoryEnd; 
     private int userMemoryStart; 
     
+    // Posiciones con valor distinto de 0, mantenido en cada escritura
+    private int usedPositions;
+    
+    // Rangos modificados desde la última publicación
+    private final int[] dirtyStarts = new int[MAX_DIRTY_RANGES];
+    private final int[] dirtyEnds = new int[MAX_DIRTY_RANGES];
+    private int dirtyCount;
+    private boolean sizeChanged;
+    private final List<MemoryChangeListener> listeners = new CopyOnWriteArrayList<>();
+    // Instrucciones decodificadas de la región de código, invalidadas en cada escritura; null si no hay
+    private DecodedInstructionCache codeCache;
+    // Historial que guarda en sus fotos solo lo escrito desde la anterior; null si no hay
+    private ExecutionHistory history;
+    
     /**
      * Constructor por defecto con memoria de 100 posiciones
      */
@@ -33,16 +61,28 @@ public class Memory {
      * @param osSize tamaño reservado para el SO
      */
     public Memory(int totalSize, int osSize) {
+        this(totalSize, osSize, MemoryStorage.Type.PAGED);
+    }
+    
+    /**
+     * Constructor eligiendo dónde se guardan los valores
+     * @param storageType forma de guardar los valores, ver MemoryStorage.Type
+     */
+    public Memory(int totalSize, int osSize, MemoryStorage.Type storageType) {
+        this(totalSize, osSize, storageType, null);
+    }
+    
+    /**
+     * Constructor indicando además la tabla donde se guarda el texto de las etiquetas
+     * @param labelPool tabla compartida con otras memorias (ver LabelPool.getShared), o null para una propia
+     */
+    public Memory(int totalSize, int osSize, MemoryStorage.Type storageType, LabelPool labelPool) {
+        this.labelPool = labelPool != null ? labelPool : new LabelPool();
         this.totalSize = totalSize;
         this.osMemoryEnd = osSize - 1;
         this.userMemoryStart = osSize;
-        this.memory = new int[totalSize];
-        this.memoryLabels = new String[totalSize];
-        
-        for (int i = 0; i < totalSize; i++) {
-            memory[i] = 0;
-            memoryLabels[i] = "";
-        }
+        this.storageType = storageType;
+        this.memory = storageType.create(totalSize);
     }
     
     /**
@@ -52,7 +92,7 @@ public class Memory {
      */
     public int readFromMemory(int address) {
         if (isValidAddress(address)) {
-            return memory[address];
+            return memory.get(address);
         }
         return 0;
     }
@@ -65,14 +105,39 @@ public class Memory {
      */
     public boolean writeToMemory(int address, int value) {
         if (isValidUserAddress(address)) {
-            memory[address] = value;
-           
+            setCell(address, value);
+            markDirty(address, address);
             return true;
         }
 //        System.out.println("ERROR: Intento de escribir en área protegida. Dirección " + address + " no está en área de usuario (" + userMemoryStart + "-" + (totalSize-1) + ")");
         return false;
     }
     
+    @Override
+    public int read(int address) {
+        return readFromMemory(address);
+    }
+    
+    @Override
+    public boolean write(int address, int value) {
+        return writeToMemory(address, value);
+    }
+    
+    @Override
+    public boolean isWritable(int address) {
+        return isValidUserAddress(address);
+    }
+    
+    /**
+     * Copia en bloque valores de la memoria a un arreglo
+     */
+    public void readBlock(int startAddress, int[] target, int offset, int length) {
+        if (startAddress < 0 || (long) startAddress + length > totalSize) {
+            throw new IllegalArgumentException("Bloque fuera de la memoria: " + startAddress + "+" + length);
+        }
+        memory.copyTo(startAddress, target, offset, length);
+    }
+    
     /**
      * Escribe un valor en la memoria con etiqueta (SOLO área de usuario)
      * @param address dirección donde escribir
@@ -82,8 +147,9 @@ public class Memory {
      */
     public boolean writeToMemory(int address, int value, String label) {
         if (isValidUserAddress(address)) {
-            memory[address] = value;
-            memoryLabels[address] = label != null ? label : "";
+            setCell(address, value);
+            setLabel(address, label);
+            markDirty(address, address);
             return true;
         }
         System.out.println("ERROR: Intento de escribir en área protegida. Dirección " + address + " no está en área de usuario (" + userMemoryStart + "-" + (totalSize-1) + ")");
@@ -95,8 +161,9 @@ public class Memory {
      */
     public boolean writeToMemoryForce(int address, int value, String label) {
         if (isValidAddress(address)) {
-            memory[address] = value;
-            memoryLabels[address] = label != null ? label : "";
+            setCell(address, value);
+            setLabel(address, label);
+            markDirty(address, address);
             return true;
         }
         return false;
@@ -118,13 +185,97 @@ public class Memory {
             int value = (Integer) instructions[i][0];
             String label = (String) instructions[i][1];
             
-            memory[startAddress + i] = value;
-            memoryLabels[startAddress + i] = label;
+            setCell(startAddress + i, value);
+            setLabel(startAddress + i, label);
+        }
+        
+        if (instructions.length > 0) {
+            markDirty(startAddress, startAddress + instructions.length - 1);
+        }
+        return true;
+    }
+    
+    /**
+     * Carga un programa copiando en bloque valores y etiquetas (solo en área de usuario)
+     * @param values valores de cada posición
+     * @param labels etiqueta de cada posición, o null para dejarlas vacías
+     */
+    public boolean loadProgram(int[] values, String[] labels, int startAddress) {
+        if (startAddress < userMemoryStart || (long) startAddress + values.length > totalSize) {
+            return false;
+        }
+        if (values.length == 0) {
+            return true;
         }
         
+        int end = startAddress + values.length;
+        usedPositions -= countUsed(startAddress, end);
+        memory.copyFrom(values, 0, startAddress, values.length);
+        for (int value : values) {
+            if (value != 0) {
+                usedPositions++;
+            }
+        }
+        
+        removeLabels(startAddress, end);
+        program = null;
+        if (labels != null) {
+            int[] ids = labelPool.internAll(labels, 0, values.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != 0) {
+                    labelIds.put(startAddress + i, ids[i]);
+                }
+            }
+        }
+        
+        markDirty(startAddress, end - 1);
         return true;
     }
     
+    /**
+     * Copia un bloque de valores sin restricción de área (restauración de estado)
+     */
+    void writeBlockForce(int startAddress, int[] values, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        int end = startAddress + length;
+        usedPositions -= countUsed(startAddress, end);
+        memory.copyFrom(values, offset, startAddress, length);
+        for (int i = offset; i < offset + length; i++) {
+            if (values[i] != 0) {
+                usedPositions++;
+            }
+        }
+        markDirty(startAddress, end - 1);
+    }
+    
+    /**
+     * Cambia solo el valor de una posición, conservando su etiqueta (deshacer un paso)
+     */
+    void setValueForce(int address, int value) {
+        if (isValidAddress(address)) {
+            setCell(address, value);
+            markDirty(address, address);
+        }
+    }
+    
+    /**
+     * Reemplaza todos los valores por los indicados, conservando las etiquetas
+     * @param addresses posiciones con valor distinto de 0
+     * @param values valor de cada una de esas posiciones
+     */
+    void replaceValues(int[] addresses, int[] values, int count) {
+        memory.clear(0, totalSize);
+        usedPositions = 0;
+        for (int i = 0; i < count; i++) {
+            setCell(addresses[i], values[i]);
+        }
+        if (totalSize > 0) {
+            markDirty(0, totalSize - 1);
+        }
+    }
+    
     /**
      * Verifica si una dirección es válida en toda la memoria
      */
@@ -143,10 +294,227 @@ public class Memory {
      * Limpia toda la memoria del usuario
      */
     public void clearUserMemory() {
-        for (int i = userMemoryStart; i < totalSize; i++) {
-            memory[i] = 0;
-            memoryLabels[i] = "";
+        usedPositions -= countUsed(userMemoryStart, totalSize);
+        memory.clear(userMemoryStart, totalSize);
+        removeLabels(userMemoryStart, totalSize);
+        program = null;
+        
+        if (userMemoryStart < totalSize) {
+            markDirty(userMemoryStart, totalSize - 1);
+        }
+    }
+    
+    /**
+     * Escribe una celda manteniendo el contador de posiciones usadas
+     */
+    private void setCell(int address, int value) {
+        int old = memory.get(address);
+        if (old == 0 && value != 0) {
+            usedPositions++;
+        } else if (old != 0 && value == 0) {
+            usedPositions--;
+        }
+        memory.set(address, value);
+    }
+    
+    /**
+     * Cantidad de posiciones distintas de 0 en [from, to)
+     */
+    private int countUsed(int from, int to) {
+        return memory.countNonZero(from, to);
+    }
+    
+    private void setLabel(int address, String label) {
+        int id = labelPool.intern(label);
+        int old = id != 0 ? labelIds.put(address, id) : labelIds.remove(address);
+        labelPool.release(old);
+    }
+    
+    /**
+     * Quita las etiquetas de [from, to) y devuelve sus usos a la tabla
+     * Sin esto, cada programa cargado dejaría su texto en la tabla mientras viva la memoria.
+     */
+    private void removeLabels(int from, int to) {
+        if (labelIds.isEmpty() || from >= to) {
+            return;
         }
+        int[] released = new int[labelIds.size()];
+        int[] count = new int[1];
+        labelIds.forEach((address, id) -> {
+            if (address >= from && address < to) {
+                released[count[0]++] = id;
+            }
+        });
+        labelPool.releaseAll(released, count[0]);
+        labelIds.removeRange(from, to);
+    }
+    
+    /**
+     * Usa el texto de las instrucciones del programa como etiqueta de su región, sin copiarlo
+     * Las etiquetas escritas después con writeToMemory tienen prioridad; clearUserMemory y loadProgram
+     * dejan de usar el programa.
+     * @param program programa cargado desde base, o null para quitarlo
+     */
+    public void setProgramLabels(AssembledProgram program, int base) {
+        this.program = program;
+        this.programBase = base;
+    }
+    
+    /**
+     * Recorrido de las posiciones que tienen etiqueta
+     */
+    public interface LabelVisitor {
+        void visit(int address, String label);
+    }
+    
+    /**
+     * Visita las posiciones con etiqueta propia, sin orden definido (no las del programa, ver setProgramLabels)
+     */
+    public void forEachLabel(LabelVisitor visitor) {
+        labelIds.forEach((address, id) -> visitor.visit(address, labelPool.get(id)));
+    }
+    
+    /**
+     * Etiqueta de una posición válida, o "" si no tiene
+     */
+    public String getLabel(int address) {
+        int id = labelIds.get(address);
+        if (id == 0 && program != null && address >= programBase && address - programBase < program.size()) {
+            return program.getSourceLine(address - programBase);
+        }
+        return labelPool.get(id);
+    }
+    
+    /**
+     * Marca [from, to] como modificado, fusionándolo con un rango que se toque o solape
+     * Todas las escrituras pasan por aquí, así que también invalida las instrucciones decodificadas
+     * y avisa al historial
+     */
+    private void markDirty(int from, int to) {
+        if (codeCache != null) {
+            codeCache.invalidate(from, to);
+        }
+        if (history != null) {
+            history.memoryWritten(from, to);
+        }
+        
+        // Caso común: escrituras consecutivas o repetidas sobre el último rango
+        if (dirtyCount > 0) {
+            int last = dirtyCount - 1;
+            if (from <= dirtyEnds[last] + 1 && to >= dirtyStarts[last] - 1) {
+                dirtyStarts[last] = Math.min(dirtyStarts[last], from);
+                dirtyEnds[last] = Math.max(dirtyEnds[last], to);
+                return;
+            }
+        }
+        
+        int closest = -1;
+        long closestGap = Long.MAX_VALUE;
+        for (int i = 0; i < dirtyCount; i++) {
+            long gap = Math.max((long) from - dirtyEnds[i], (long) dirtyStarts[i] - to);
+            if (gap <= 1) {
+                dirtyStarts[i] = Math.min(dirtyStarts[i], from);
+                dirtyEnds[i] = Math.max(dirtyEnds[i], to);
+                return;
+            }
+            if (gap < closestGap) {
+                closestGap = gap;
+                closest = i;
+            }
+        }
+        
+        if (dirtyCount < MAX_DIRTY_RANGES) {
+            dirtyStarts[dirtyCount] = from;
+            dirtyEnds[dirtyCount] = to;
+            dirtyCount++;
+        } else {
+            // Sin espacio: se agranda el rango más cercano para cubrir el nuevo
+            dirtyStarts[closest] = Math.min(dirtyStarts[closest], from);
+            dirtyEnds[closest] = Math.max(dirtyEnds[closest], to);
+        }
+    }
+    
+    /**
+     * Indica si hay cambios sin publicar
+     */
+    public boolean hasPendingChanges() {
+        return dirtyCount > 0 || sizeChanged;
+    }
+    
+    /**
+     * Envía a los suscriptores los rangos modificados desde la última publicación
+     * Los rangos se entregan ordenados y fusionados en un solo lote
+     */
+    public void publishChanges() {
+        if (!hasPendingChanges()) {
+            return;
+        }
+        
+        MemoryChangeBatch batch = takeChanges();
+        for (MemoryChangeListener listener : listeners) {
+            listener.memoryChanged(batch);
+        }
+    }
+    
+    /**
+     * Devuelve los cambios pendientes como lote y los descarta, sin notificar a nadie
+     */
+    public MemoryChangeBatch takeChanges() {
+        long[] packed = new long[dirtyCount];
+        for (int i = 0; i < dirtyCount; i++) {
+            packed[i] = ((long) dirtyStarts[i] << 32) | (dirtyEnds[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        
+        int[] starts = new int[packed.length];
+        int[] ends = new int[packed.length];
+        int count = 0;
+        for (long range : packed) {
+            int start = (int) (range >> 32);
+            int end = (int) range;
+            if (count > 0 && start <= ends[count - 1] + 1) {
+                ends[count - 1] = Math.max(ends[count - 1], end);
+            } else {
+                starts[count] = start;
+                ends[count] = end;
+                count++;
+            }
+        }
+        
+        MemoryChangeBatch batch = new MemoryChangeBatch(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+                                                        sizeChanged, totalSize, usedPositions);
+        dirtyCount = 0;
+        sizeChanged = false;
+        return batch;
+    }
+    
+    public void addChangeListener(MemoryChangeListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeChangeListener(MemoryChangeListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Avisa a la caché de instrucciones decodificadas de cada escritura en su región (null para dejar de avisar)
+     */
+    void watchCode(DecodedInstructionCache codeCache) {
+        this.codeCache = codeCache;
+    }
+    
+    /**
+     * Indica si la dirección está en la región de código vigilada (ver watchCode)
+     */
+    boolean isCode(int address) {
+        return codeCache != null && codeCache.contains(address);
+    }
+    
+    /**
+     * Avisa al historial de cada escritura (null para dejar de avisar)
+     */
+    void watchWrites(ExecutionHistory history) {
+        this.history = history;
     }
     
     /**
@@ -157,26 +525,28 @@ public class Memory {
             return false;
         }
         
-        int[] newMemory = new int[newSize];
-        String[] newLabels = new String[newSize];
         int copySize = Math.min(totalSize, newSize);
         
-        System.arraycopy(memory, 0, newMemory, 0, copySize);
-        System.arraycopy(memoryLabels, 0, newLabels, 0, copySize);
+        // Descontar las posiciones usadas que quedan fuera al achicar
+        usedPositions -= countUsed(copySize, totalSize);
         
-        for (int i = copySize; i < newSize; i++) {
-            newMemory[i] = 0;
-            newLabels[i] = "";
+        this.memory = memory.resize(newSize);
+        if (newSize < totalSize) {
+            removeLabels(newSize, totalSize);
         }
-        
-        this.memory = newMemory;
-        this.memoryLabels = newLabels;
         this.totalSize = newSize;
         
         int newOsSize = Math.max(10, newSize / 5);
         this.osMemoryEnd = newOsSize - 1;
         this.userMemoryStart = newOsSize;
         
+        // Los rangos pendientes pueden quedar fuera del nuevo tamaño
+        this.dirtyCount = 0;
+        this.sizeChanged = true;
+        if (codeCache != null) {
+            codeCache.invalidateAll();
+        }
+        
         return true;
     }
     
@@ -185,6 +555,19 @@ public class Memory {
     public int getOsMemoryEnd() { return osMemoryEnd; }
     public int getUserMemoryStart() { return userMemoryStart; }
     public int getUserMemorySize() { return totalSize - userMemoryStart; }
+    public int getUsedPositions() { return usedPositions; }
+    public MemoryStorage.Type getStorageType() { return storageType; }
+    // Posiciones con etiqueta propia, sin contar las del programa (ver setProgramLabels)
+    public int getLabeledPositions() { return labelIds.size(); }
+    
+    /**
+     * Copia del contenido completo de la memoria
+     */
+    public int[] dumpMemory() {
+        int[] contents = new int[totalSize];
+        memory.copyTo(0, contents, 0, totalSize);
+        return contents;
+    }
     
     /**
      * Obtiene una representación de la memoria para mostrar en la tabla
@@ -192,29 +575,63 @@ public class Memory {
      */
     public Object[][] getMemoryForTable() {
         Object[][] tableData = new Object[totalSize][2];
-
+        
         for (int i = 0; i < totalSize; i++) {
             tableData[i][0] = i; // Posición
-
-            String areaType;
-            if (i <= osMemoryEnd) {
-                areaType = "SO";
-            } else {
-                areaType = "User";
-            }
-
-            if (!memoryLabels[i].isEmpty()) {
-                tableData[i][1] = areaType + " - " + memoryLabels[i] + " (" + memory[i] + ")";
-            } else if (memory[i] != 0) {
-                tableData[i][1] = areaType + " - " + memory[i];
-            } else {
-                tableData[i][1] = areaType + " empty space";
-            }
+            tableData[i][1] = getCellDescription(i);
         }
-
+        
+        return tableData;
+    }
+    
+    /**
+     * Como getMemoryForTable pero solo con las posiciones distintas de 0, en orden
+     * En memorias dispersas el costo depende de las celdas usadas y no del tamaño total
+     */
+    public Object[][] getUsedMemoryForTable() {
+        Object[][] tableData = new Object[usedPositions][];
+        int[] row = new int[1];
+        forEachUsedCell((address, value) -> tableData[row[0]++] = new Object[] {address, getCellDescription(address)});
         return tableData;
     }
     
+    /**
+     * Visita en orden las posiciones con valor distinto de 0
+     */
+    public void forEachUsedCell(MemoryStorage.CellVisitor visitor) {
+        memory.forEachNonZero(0, totalSize, visitor);
+    }
+    
+    /**
+     * Primera posición desde from con valor distinto de 0, o -1 si no hay
+     */
+    public int nextUsedAddress(int from) {
+        return memory.nextNonZero(Math.max(0, from), totalSize);
+    }
+    
+    /**
+     * Texto que describe una posición de memoria en la tabla
+     * @param address dirección válida de la memoria
+     */
+    public String getCellDescription(int address) {
+        String areaType;
+        if (address <= osMemoryEnd) {
+            areaType = "SO";
+        } else {
+            areaType = "User";
+        }
+        
+        int value = memory.get(address);
+        String label = getLabel(address);
+        if (!label.isEmpty()) {
+            return areaType + " - " + label + " (" + value + ")";
+        } else if (value != 0) {
+            return areaType + " - " + value;
+        } else {
+            return areaType + " empty space";
+        }
+    }
+    
     /**
      * Obtiene el estado de la memoria para debugging
      */
@@ -222,17 +639,12 @@ public class Memory {
         StringBuilder status = new StringBuilder();
         status.append("=== ESTADO MEMORIA ===\n");
         status.append("Tamaño total: ").append(totalSize).append("\n");
+        status.append("Almacenamiento: ").append(storageType).append("\n");
         status.append("Memoria SO: 0-").append(osMemoryEnd).append(" (PROTEGIDA)\n");
         status.append("Memoria Usuario: ").append(userMemoryStart).append("-").append(totalSize-1).append("\n");
         status.append("Posiciones usadas: ");
-        
-        int usedPositions = 0;
-        for (int i = 0; i < totalSize; i++) {
-            if (memory[i] != 0) {
-                usedPositions++;
-            }
-        }
         status.append(usedPositions).append("/").append(totalSize).append("\n");
+        status.append("Posiciones con etiqueta: ").append(labelIds.size()).append("\n");
         
         return status.toString();
     }
@@ -0,0 +1,100 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Lote inmutable de cambios de memoria: rangos [inicio, fin] ordenados y sin solaparse
+ */
+public class MemoryChangeBatch {
+    private final int[] starts;
+    private final int[] ends;
+    private final boolean sizeChanged;
+    private final int totalSize;
+    private final int usedPositions;
+    
+    MemoryChangeBatch(int[] starts, int[] ends, boolean sizeChanged, int totalSize, int usedPositions) {
+        this.starts = starts;
+        this.ends = ends;
+        this.sizeChanged = sizeChanged;
+        this.totalSize = totalSize;
+        this.usedPositions = usedPositions;
+    }
+    
+    /**
+     * Une dos lotes consecutivos (por ejemplo cuando la interfaz no llegó a mostrar el anterior)
+     * Si quedan más de Memory.MAX_DIRTY_RANGES rangos se unen los más cercanos entre sí
+     * @param older lote anterior, o null
+     */
+    static MemoryChangeBatch merge(MemoryChangeBatch older, MemoryChangeBatch newer) {
+        if (older == null || older.starts.length == 0 && !older.sizeChanged) {
+            return newer;
+        }
+        
+        int[] starts = new int[older.starts.length + newer.starts.length];
+        int[] ends = new int[starts.length];
+        int count = 0;
+        int a = 0;
+        int b = 0;
+        while (a < older.starts.length || b < newer.starts.length) {
+            boolean takeOlder = b >= newer.starts.length
+                                || (a < older.starts.length && older.starts[a] <= newer.starts[b]);
+            int start = takeOlder ? older.starts[a] : newer.starts[b];
+            int end = takeOlder ? older.ends[a++] : newer.ends[b++];
+            if (count > 0 && start <= ends[count - 1] + 1) {
+                ends[count - 1] = Math.max(ends[count - 1], end);
+            } else {
+                starts[count] = start;
+                ends[count] = end;
+                count++;
+            }
+        }
+        
+        while (count > Memory.MAX_DIRTY_RANGES) {
+            int closest = 0;
+            for (int i = 1; i < count - 1; i++) {
+                if ((long) starts[i + 1] - ends[i] < (long) starts[closest + 1] - ends[closest]) {
+                    closest = i;
+                }
+            }
+            ends[closest] = ends[closest + 1];
+            System.arraycopy(starts, closest + 2, starts, closest + 1, count - closest - 2);
+            System.arraycopy(ends, closest + 2, ends, closest + 1, count - closest - 2);
+            count--;
+        }
+        
+        return new MemoryChangeBatch(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+                                     older.sizeChanged || newer.sizeChanged, newer.totalSize, newer.usedPositions);
+    }
+    
+    public int getRangeCount() { return starts.length; }
+    public int getStart(int range) { return starts[range]; }
+    public int getEnd(int range) { return ends[range]; }
+    
+    /**
+     * true si la memoria cambió de tamaño; en ese caso conviene refrescar todo
+     */
+    public boolean isSizeChanged() { return sizeChanged; }
+    public int getTotalSize() { return totalSize; }
+    public int getUsedPositions() { return usedPositions; }
+    
+    /**
+     * Indica si la dirección está dentro de algún rango modificado
+     */
+    public boolean contains(int address) {
+        for (int i = 0; i < starts.length; i++) {
+            if (address >= starts[i] && address <= ends[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
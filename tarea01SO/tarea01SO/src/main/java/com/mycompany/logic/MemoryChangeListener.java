@@ -0,0 +1,18 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Suscriptor a los cambios de una Memory
+ * Recibe un lote con los rangos modificados cada vez que se llama a Memory.publishChanges
+ */
+public interface MemoryChangeListener {
+    void memoryChanged(MemoryChangeBatch batch);
+}
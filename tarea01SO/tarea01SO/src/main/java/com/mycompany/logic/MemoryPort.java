@@ -0,0 +1,50 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Acceso del CPU a la memoria
+ * La implementación directa es Memory (direcciones físicas); VirtualMemory traduce
+ * direcciones virtuales por proceso antes de llegar a la memoria física y Cache
+ * agrega niveles de caché delante de cualquiera de las dos
+ */
+public interface MemoryPort {
+    
+    /**
+     * Lee una posición
+     * @return el valor, o 0 si la dirección no es válida
+     */
+    int read(int address);
+    
+    /**
+     * Escribe una posición
+     * @return true si la escritura fue exitosa
+     */
+    boolean write(int address, int value);
+    
+    /**
+     * Indica si write aceptaría la dirección, sin escribir nada
+     */
+    boolean isWritable(int address);
+    
+    /**
+     * Lee una posición sin afectar estadísticas ni el estado de reemplazo (depuración)
+     */
+    default int peek(int address) {
+        return read(address);
+    }
+    
+    /**
+     * Baja hasta la memoria lo escrito en la dirección si quedó retenido en el camino (caché WRITE_BACK)
+     * Se usa al escribir en la región de código, porque la búsqueda de instrucciones lee la memoria
+     */
+    default void flush(int address) {
+    }
+}
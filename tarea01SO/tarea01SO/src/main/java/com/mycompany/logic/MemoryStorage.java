@@ -0,0 +1,139 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Almacenamiento de los valores de la memoria simulada
+ * Memory se encarga de las áreas, etiquetas y cambios; la implementación solo guarda enteros
+ * Las posiciones nunca escritas valen 0
+ */
+public interface MemoryStorage {
+    
+    /**
+     * Cantidad de posiciones
+     */
+    int size();
+    
+    /**
+     * Valor de una posición válida
+     */
+    int get(int address);
+    
+    /**
+     * Escribe una posición válida
+     */
+    void set(int address, int value);
+    
+    /**
+     * Copia en bloque length valores desde source[offset] a partir de address
+     */
+    void copyFrom(int[] source, int offset, int address, int length);
+    
+    /**
+     * Copia en bloque length valores desde address a target[offset]
+     */
+    void copyTo(int address, int[] target, int offset, int length);
+    
+    /**
+     * Pone en 0 el rango [from, to)
+     */
+    void clear(int from, int to);
+    
+    /**
+     * Primera posición en [from, to) con valor distinto de 0, o -1 si no hay
+     */
+    int nextNonZero(int from, int to);
+    
+    /**
+     * Cambia la cantidad de posiciones conservando los valores que siguen entrando
+     * Las posiciones nuevas valen 0
+     * @return el almacenamiento redimensionado, que puede ser este mismo
+     */
+    MemoryStorage resize(int newSize);
+    
+    /**
+     * Cantidad de posiciones distintas de 0 en [from, to)
+     */
+    default int countNonZero(int from, int to) {
+        int count = 0;
+        int address = nextNonZero(from, to);
+        while (address >= 0) {
+            count++;
+            address = nextNonZero(address + 1, to);
+        }
+        return count;
+    }
+    
+    /**
+     * Visita en orden de dirección las posiciones distintas de 0 en [from, to)
+     */
+    default void forEachNonZero(int from, int to, CellVisitor visitor) {
+        int address = nextNonZero(from, to);
+        while (address >= 0) {
+            visitor.visit(address, get(address));
+            address = nextNonZero(address + 1, to);
+        }
+    }
+    
+    /**
+     * Recorrido de posiciones sin crear objetos por celda
+     */
+    interface CellVisitor {
+        void visit(int address, int value);
+    }
+    
+    /**
+     * Tipos de almacenamiento que se pueden elegir al crear una Memory
+     */
+    enum Type {
+        // Arreglo int[] en el heap de Java
+        HEAP,
+        // Bloques en el heap creados al escribirlos; redimensionar no copia los datos
+        PAGED,
+        // Segmento nativo fuera del heap, sin presión sobre el GC
+        OFF_HEAP,
+        // Mapa de posiciones usadas: crear es instantáneo y solo cuestan las celdas distintas de 0
+        SPARSE;
+        
+        /**
+         * Crea un almacenamiento de este tipo con todas las posiciones en 0
+         */
+        public MemoryStorage create(int size) {
+            switch (this) {
+                case OFF_HEAP:
+                    return new OffHeapMemoryStorage(size);
+                case SPARSE:
+                    return new SparseMemoryStorage(size);
+                case PAGED:
+                    return new PagedMemoryStorage(size);
+                default:
+                    return new HeapMemoryStorage(size);
+            }
+        }
+        
+        /**
+         * Interpreta el nombre usado en la línea de comandos (heap, paged, offheap, sparse)
+         */
+        public static Type fromName(String name) {
+            switch (name.toLowerCase().replace("-", "").replace("_", "")) {
+                case "heap":
+                    return HEAP;
+                case "paged":
+                    return PAGED;
+                case "offheap":
+                    return OFF_HEAP;
+                case "sparse":
+                    return SPARSE;
+                default:
+                    throw new IllegalArgumentException("Tipo de memoria desconocido: " + name);
+            }
+        }
+    }
+}
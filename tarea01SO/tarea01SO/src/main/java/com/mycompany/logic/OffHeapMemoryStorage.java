@@ -0,0 +1,97 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Almacenamiento de memoria en un segmento nativo (Foreign Function & Memory API)
+ * Los valores no viven en el heap, así que memorias de varios GB no afectan al GC
+ * El segmento se libera cuando el almacenamiento deja de ser alcanzable
+ */
+public class OffHeapMemoryStorage implements MemoryStorage {
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+    
+    private final MemorySegment segment;
+    private final int size;
+    
+    public OffHeapMemoryStorage(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Tamaño de memoria inválido: " + size);
+        }
+        this.size = size;
+        // Arena automática: la memoria nativa se devuelve cuando el GC descarta el segmento
+        // allocate deja el segmento en 0; se alinea a 8 para poder leerlo de a long
+        this.segment = Arena.ofAuto().allocate(Math.max(1L, (long) size * Integer.BYTES), Long.BYTES);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public int get(int address) {
+        return segment.getAtIndex(INT, address);
+    }
+    
+    @Override
+    public void set(int address, int value) {
+        segment.setAtIndex(INT, address, value);
+    }
+    
+    @Override
+    public void copyFrom(int[] source, int offset, int address, int length) {
+        MemorySegment.copy(source, offset, segment, INT, (long) address * Integer.BYTES, length);
+    }
+    
+    @Override
+    public void copyTo(int address, int[] target, int offset, int length) {
+        MemorySegment.copy(segment, INT, (long) address * Integer.BYTES, target, offset, length);
+    }
+    
+    @Override
+    public void clear(int from, int to) {
+        if (to > from) {
+            segment.asSlice((long) from * Integer.BYTES, (long) (to - from) * Integer.BYTES).fill((byte) 0);
+        }
+    }
+    
+    @Override
+    public int nextNonZero(int from, int to) {
+        // Se recorre de a 8 bytes para saltar rápido las zonas vacías
+        int i = from;
+        while (i < to && (i & 1) != 0) {
+            if (get(i) != 0) {
+                return i;
+            }
+            i++;
+        }
+        for (; i + 1 < to; i += 2) {
+            if (segment.get(ValueLayout.JAVA_LONG, (long) i * Integer.BYTES) != 0) {
+                return get(i) != 0 ? i : i + 1;
+            }
+        }
+        if (i < to && get(i) != 0) {
+            return i;
+        }
+        return -1;
+    }
+    
+    @Override
+    public MemoryStorage resize(int newSize) {
+        OffHeapMemoryStorage resized = new OffHeapMemoryStorage(newSize);
+        long bytes = (long) Math.min(size, newSize) * Integer.BYTES;
+        MemorySegment.copy(segment, 0, resized.segment, 0, bytes);
+        return resized;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Resultado de ProgramOptimizer (inmutable)
+ * El programa optimizado conserva el texto de las instrucciones que no cambiaron y, en
+ * getLineNumber, la línea del archivo original de cada una; getOriginalIndex da la instrucción
+ * del programa original de la que sale cada instrucción optimizada.
+ */
+public class OptimizedProgram {
+    private final AssembledProgram original;
+    private final AssembledProgram program;
+    private final int[] sourceMap;
+    private final int removedNoOps;
+    private final int removedDeadWrites;
+    private final int foldedRuns;
+    private final int rewrittenMoves;
+    private final String skippedReason;
+    
+    OptimizedProgram(AssembledProgram original, AssembledProgram program, int[] sourceMap, int removedNoOps,
+                     int removedDeadWrites, int foldedRuns, int rewrittenMoves, String skippedReason) {
+        this.original = original;
+        this.program = program;
+        this.sourceMap = sourceMap;
+        this.removedNoOps = removedNoOps;
+        this.removedDeadWrites = removedDeadWrites;
+        this.foldedRuns = foldedRuns;
+        this.rewrittenMoves = rewrittenMoves;
+        this.skippedReason = skippedReason;
+    }
+    
+    /**
+     * Posición en el programa original de la instrucción optimizada (la primera, si reemplaza una racha)
+     */
+    public int getOriginalIndex(int index) {
+        return sourceMap[index];
+    }
+    
+    /**
+     * Instrucción optimizada que le sigue a una del original: la que la reemplaza o, si se quitó,
+     * la próxima que quedó (program.size() si no queda ninguna)
+     */
+    public int getOptimizedIndex(int originalIndex) {
+        int low = 0;
+        int high = sourceMap.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sourceMap[middle] < originalIndex) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("=== OPTIMIZADOR ===\n");
+        if (skippedReason != null) {
+            report.append("Sin optimizar: ").append(skippedReason).append("\n");
+            return report.toString();
+        }
+        report.append("Instrucciones: ").append(original.size()).append(" -> ").append(program.size()).append("\n");
+        report.append("Sin efecto: ").append(removedNoOps).append("  Escrituras muertas: ").append(removedDeadWrites)
+              .append("  Rachas ADD/SUB: ").append(foldedRuns).append("  MOV con constante: ").append(rewrittenMoves)
+              .append("\n");
+        return report.toString();
+    }
+    
+    public AssembledProgram getOriginal() { return original; }
+    public AssembledProgram getProgram() { return program; }
+    public boolean isOptimized() { return skippedReason == null; }
+    // Por qué no se optimizó, o null si se optimizó
+    public String getSkippedReason() { return skippedReason; }
+}
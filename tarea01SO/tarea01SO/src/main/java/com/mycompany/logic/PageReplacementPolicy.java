@@ -0,0 +1,24 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Políticas para elegir qué página sale de memoria física cuando no hay marcos libres
+ */
+public enum PageReplacementPolicy {
+    // La página que lleva más tiempo cargada
+    FIFO,
+    // La página usada hace más tiempo
+    LRU,
+    // Segunda oportunidad con bit de referencia y puntero circular
+    CLOCK,
+    // La página que se vuelve a usar más tarde; necesita conocer la traza completa
+    OPTIMAL
+}
@@ -0,0 +1,165 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Almacenamiento de memoria en bloques de tamaño fijo indexados por un directorio
+ * Un bloque nunca escrito es null y se lee como ceros, sin ocupar memoria
+ * Redimensionar solo agrega o quita bloques: el costo depende de la diferencia, no del total
+ */
+public class PagedMemoryStorage implements MemoryStorage {
+    // 4096 posiciones (16 KB) por bloque
+    static final int CHUNK_BITS = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    private int[][] chunks;
+    private int size;
+    
+    public PagedMemoryStorage(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Tamaño de memoria inválido: " + size);
+        }
+        this.size = size;
+        this.chunks = new int[chunkCount(size)][];
+    }
+    
+    private static int chunkCount(int size) {
+        return (int) (((long) size + CHUNK_MASK) >>> CHUNK_BITS);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public int get(int address) {
+        int[] chunk = chunks[address >>> CHUNK_BITS];
+        return chunk != null ? chunk[address & CHUNK_MASK] : 0;
+    }
+    
+    @Override
+    public void set(int address, int value) {
+        int index = address >>> CHUNK_BITS;
+        int[] chunk = chunks[index];
+        if (chunk == null) {
+            if (value == 0) {
+                return;
+            }
+            chunk = new int[CHUNK_SIZE];
+            chunks[index] = chunk;
+        }
+        chunk[address & CHUNK_MASK] = value;
+    }
+    
+    @Override
+    public void copyFrom(int[] source, int offset, int address, int length) {
+        while (length > 0) {
+            int index = address >>> CHUNK_BITS;
+            int start = address & CHUNK_MASK;
+            int count = Math.min(length, CHUNK_SIZE - start);
+            int[] chunk = chunks[index];
+            if (chunk == null) {
+                chunk = new int[CHUNK_SIZE];
+                chunks[index] = chunk;
+            }
+            System.arraycopy(source, offset, chunk, start, count);
+            offset += count;
+            address += count;
+            length -= count;
+        }
+    }
+    
+    @Override
+    public void copyTo(int address, int[] target, int offset, int length) {
+        while (length > 0) {
+            int start = address & CHUNK_MASK;
+            int count = Math.min(length, CHUNK_SIZE - start);
+            int[] chunk = chunks[address >>> CHUNK_BITS];
+            if (chunk != null) {
+                System.arraycopy(chunk, start, target, offset, count);
+            } else {
+                Arrays.fill(target, offset, offset + count, 0);
+            }
+            offset += count;
+            address += count;
+            length -= count;
+        }
+    }
+    
+    @Override
+    public void clear(int from, int to) {
+        while (from < to) {
+            int index = from >>> CHUNK_BITS;
+            int start = from & CHUNK_MASK;
+            int count = Math.min(to - from, CHUNK_SIZE - start);
+            if (count == CHUNK_SIZE) {
+                // Bloque completo: se suelta y vuelve a ser una página de ceros
+                chunks[index] = null;
+            } else if (chunks[index] != null) {
+                Arrays.fill(chunks[index], start, start + count, 0);
+            }
+            from += count;
+        }
+    }
+    
+    @Override
+    public int nextNonZero(int from, int to) {
+        int address = from;
+        while (address < to) {
+            int index = address >>> CHUNK_BITS;
+            int[] chunk = chunks[index];
+            int chunkEnd = (int) Math.min(to, ((long) index + 1) << CHUNK_BITS);
+            if (chunk != null) {
+                for (int i = address; i < chunkEnd; i++) {
+                    if (chunk[i & CHUNK_MASK] != 0) {
+                        return i;
+                    }
+                }
+            }
+            address = chunkEnd;
+        }
+        return -1;
+    }
+    
+    @Override
+    public MemoryStorage resize(int newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Tamaño de memoria inválido: " + newSize);
+        }
+        int newCount = chunkCount(newSize);
+        if (newSize < size) {
+            // Limpiar la cola del último bloque parcial para que al volver a crecer se lea en 0
+            clear(newSize, (int) Math.min(size, (long) newCount << CHUNK_BITS));
+        }
+        if (newCount != chunks.length) {
+            // Solo se copia el directorio (una referencia por bloque), nunca los datos
+            chunks = Arrays.copyOf(chunks, newCount);
+        }
+        size = newSize;
+        return this;
+    }
+    
+    /**
+     * Cantidad de bloques con datos, para estadísticas
+     */
+    public int getAllocatedChunks() {
+        int count = 0;
+        for (int[] chunk : chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * BCP (Bloque de Control de Proceso)
+ * Guarda el contexto de un proceso mientras no está en el CPU:
+ * registros, PC, IR, estado y la partición de memoria que ocupa
+ */
+public class ProcessControlBlock {
+    private final int pid;
+    private final String name;
+    private final AssembledProgram program;
+    private final int priority;
+    private final long arrivalTime;
+    private final int memoryBase;
+    private final int memoryLimit;
+    
+    // Contexto del CPU: [0] AC, [1] AX, [2] BX, [3] CX, [4] DX
+    final int[] registers = new int[Instruction.REG_DX + 1];
+    int ir;
+    int pc;
+    
+    private ProcessState state = ProcessState.NEW;
+    private int programIndex;
+    private long startTime = -1;
+    private long finishTime = -1;
+    private String errorMessage;
+    
+    ProcessControlBlock(int pid, String name, AssembledProgram program, int priority,
+                        long arrivalTime, int memoryBase, int memoryLimit) {
+        this.pid = pid;
+        this.name = name;
+        this.program = program;
+        this.priority = priority;
+        this.arrivalTime = arrivalTime;
+        this.memoryBase = memoryBase;
+        this.memoryLimit = memoryLimit;
+        this.pc = memoryBase;
+    }
+    
+    /**
+     * Avanza a la siguiente instrucción del programa
+     */
+    void advance() {
+        programIndex++;
+    }
+    
+    void setState(ProcessState state) {
+        this.state = state;
+    }
+    
+    void markStarted(long time) {
+        if (startTime < 0) {
+            startTime = time;
+        }
+    }
+    
+    void terminate(long time, String errorMessage) {
+        this.state = ProcessState.TERMINATED;
+        this.finishTime = time;
+        this.errorMessage = errorMessage;
+    }
+    
+    // Getters
+    public int getPid() { return pid; }
+    public String getName() { return name; }
+    public AssembledProgram getProgram() { return program; }
+    public int getPriority() { return priority; }
+    public long getArrivalTime() { return arrivalTime; }
+    public int getMemoryBase() { return memoryBase; }
+    public int getMemoryLimit() { return memoryLimit; }
+    public ProcessState getState() { return state; }
+    public int getProgramIndex() { return programIndex; }
+    public boolean isFinished() { return programIndex >= program.size(); }
+    public int getBurstTime() { return program.size(); }
+    public int getRemainingTime() { return program.size() - programIndex; }
+    public long getStartTime() { return startTime; }
+    public long getFinishTime() { return finishTime; }
+    public String getErrorMessage() { return errorMessage; }
+    public int getAC() { return registers[0]; }
+    public int getAX() { return registers[Instruction.REG_AX]; }
+    public int getBX() { return registers[Instruction.REG_BX]; }
+    public int getCX() { return registers[Instruction.REG_CX]; }
+    public int getDX() { return registers[Instruction.REG_DX]; }
+    public int getIR() { return ir; }
+    public int getPC() { return pc; }
+    
+    /**
+     * Tiempo de retorno: desde la llegada hasta que termina
+     */
+    public long getTurnaroundTime() {
+        return finishTime < 0 ? -1 : finishTime - arrivalTime;
+    }
+    
+    /**
+     * Tiempo de espera: retorno menos el tiempo que estuvo ejecutando
+     */
+    public long getWaitingTime() {
+        return finishTime < 0 ? -1 : getTurnaroundTime() - programIndex;
+    }
+    
+    /**
+     * Tiempo de respuesta: desde la llegada hasta que obtuvo el CPU por primera vez
+     */
+    public long getResponseTime() {
+        return startTime < 0 ? -1 : startTime - arrivalTime;
+    }
+    
+    /**
+     * Estado del proceso en formato de BCP
+     */
+    public String getStatus() {
+        StringBuilder status = new StringBuilder();
+        status.append("=== BCP P").append(pid).append(" (").append(name).append(") ===\n");
+        status.append("Estado: ").append(state).append("  Prioridad: ").append(priority).append("\n");
+        status.append("AX: ").append(getAX()).append("  BX: ").append(getBX())
+              .append("  CX: ").append(getCX()).append("  DX: ").append(getDX()).append("\n");
+        status.append("AC: ").append(getAC()).append("  IR: ").append(ir).append("  PC: ").append(pc).append("\n");
+        status.append("Memoria: ").append(memoryBase).append("-").append(memoryLimit - 1).append("\n");
+        if (errorMessage != null) {
+            status.append("Error: ").append(errorMessage).append("\n");
+        }
+        return status.toString();
+    }
+}
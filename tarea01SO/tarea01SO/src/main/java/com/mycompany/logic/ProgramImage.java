@@ -0,0 +1,209 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Formato binario de programa ya ensamblado (.mpi)
+ * Se escribe una vez y luego se carga mapeando el archivo y copiando en bloque,
+ * sin volver a parsear el texto.
+ *
+ * Estructura (little endian):
+ *   Encabezado (32 bytes): magic "MPCI", versión (short), flags (short), cantidad de instrucciones (int),
+ *                          offset de palabras (long), offset de depuración (long, 0 si no hay), reservado (int)
+ *   Palabras: una palabra codificada (int) por instrucción, igual que Instruction.getEncodedWord
+ *   Depuración (opcional): número de línea (int) por instrucción y, si el programa conserva
+ *                          su texto original, por cada instrucción la longitud (int) y los bytes UTF-8
+ *                          del texto (sin texto se reconstruye desensamblando)
+ */
+public class ProgramImage {
+    public static final String EXTENSION = "mpi";
+    
+    private static final int MAGIC = 0x4D504349; // "MPCI"
+    private static final short VERSION = 1;
+    private static final short FLAG_DEBUG = 1;
+    private static final short FLAG_SOURCE_TEXT = 2;
+    private static final int HEADER_SIZE = 32;
+    
+    private ProgramImage() {
+    }
+    
+    /**
+     * Indica si la ruta corresponde a una imagen binaria por su extensión
+     */
+    public static boolean isImageFile(String filePath) {
+        return filePath.toLowerCase().endsWith("." + EXTENSION);
+    }
+    
+    /**
+     * Escribe el programa en formato binario
+     * @param includeDebug si true, guarda también números de línea y texto fuente
+     */
+    public static void write(AssembledProgram program, Path file, boolean includeDebug) throws IOException {
+        int count = program.size();
+        long wordsOffset = HEADER_SIZE;
+        long debugOffset = includeDebug ? wordsOffset + 4L * count : 0;
+        boolean includeText = includeDebug && program.hasSourceText();
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort((short) ((includeDebug ? FLAG_DEBUG : 0) | (includeText ? FLAG_SOURCE_TEXT : 0)));
+            header.putInt(count);
+            header.putLong(wordsOffset);
+            header.putLong(debugOffset);
+            header.putInt(0);
+            header.flip();
+            writeFully(channel, header);
+            
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                buffer = ensure(channel, buffer, 4);
+                buffer.putInt(program.getWord(i));
+            }
+            
+            if (includeDebug) {
+                for (int i = 0; i < count; i++) {
+                    buffer = ensure(channel, buffer, 4);
+                    buffer.putInt(program.getLineNumber(i));
+                }
+            }
+            
+            if (includeText) {
+                for (int i = 0; i < count; i++) {
+                    byte[] text = program.getSourceLine(i).getBytes(StandardCharsets.UTF_8);
+                    buffer = ensure(channel, buffer, 4 + text.length);
+                    buffer.putInt(text.length);
+                    buffer.put(text);
+                }
+            }
+            
+            buffer.flip();
+            writeFully(channel, buffer);
+        }
+    }
+    
+    /**
+     * Vacía el buffer al canal si no quedan al menos "needed" bytes libres
+     */
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+        if (buffer.capacity() < needed) {
+            return ByteBuffer.allocateDirect(needed).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return buffer;
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    public static AssembledProgram read(String filePath) throws IOException {
+        return read(Paths.get(filePath));
+    }
+    
+    /**
+     * Carga una imagen mapeando el archivo y copiando las palabras en bloque
+     * @throws IllegalArgumentException si el archivo no es una imagen válida
+     */
+    public static AssembledProgram read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IllegalArgumentException("Archivo de programa binario inválido: " + file);
+            }
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // leer hasta completar el encabezado
+            }
+            header.flip();
+            
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Archivo de programa binario inválido: " + file);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Versión de programa binario no soportada: " + version);
+            }
+            short flags = header.getShort();
+            int count = header.getInt();
+            long wordsOffset = header.getLong();
+            long debugOffset = header.getLong();
+            
+            if (count < 0 || wordsOffset < HEADER_SIZE || wordsOffset > size || 4L * count > size - wordsOffset) {
+                throw new IllegalArgumentException("Archivo de programa binario truncado: " + file);
+            }
+            
+            int[] words = new int[count];
+            map(channel, wordsOffset, 4L * count).asIntBuffer().get(words);
+            
+            if ((flags & FLAG_DEBUG) == 0 || debugOffset == 0) {
+                return new AssembledProgram(words, null, null);
+            }
+            
+            if (debugOffset < HEADER_SIZE || debugOffset > size || 4L * count > size - debugOffset) {
+                throw new IllegalArgumentException("Archivo de programa binario truncado: " + file);
+            }
+            MappedByteBuffer debug = map(channel, debugOffset, size - debugOffset);
+            int[] lineNumbers = new int[count];
+            debug.asIntBuffer().get(lineNumbers);
+            debug.position(4 * count);
+            
+            if ((flags & FLAG_SOURCE_TEXT) == 0) {
+                return new AssembledProgram(words, null, lineNumbers);
+            }
+            
+            String[] sourceLines = new String[count];
+            for (int i = 0; i < count; i++) {
+                // Cada longitud se compara con lo que queda antes de reservar el arreglo
+                if (debug.remaining() < 4) {
+                    throw new IllegalArgumentException("Archivo de programa binario truncado: " + file);
+                }
+                int length = debug.getInt();
+                if (length < 0 || length > debug.remaining()) {
+                    throw new IllegalArgumentException("Texto de la instrucción " + (i + 1) + " inválido en: " + file);
+                }
+                byte[] text = new byte[length];
+                debug.get(text);
+                sourceLines[i] = new String(text, StandardCharsets.UTF_8);
+            }
+            
+            return new AssembledProgram(words, sourceLines, lineNumbers);
+        }
+    }
+    
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Sección demasiado grande para mapear: " + length + " bytes");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Optimizador de programas sin saltos
+ * Como no hay saltos ni lecturas de memoria y Simulator.load deja todos los registros en 0, el valor de
+ * AC y AX-DX antes de cada instrucción se conoce al ensamblar. Con eso se repiten dos pasadas hasta
+ * que el programa no cambia:
+ * - propagación de constantes: se quitan las instrucciones que no cambian ningún registro, MOV reg
+ *   pasa a MOV reg, valor cuando el AC es una constante, y cada racha de ADD/SUB se reemplaza por la
+ *   secuencia más corta que deja el mismo AC (nada, una sola instrucción o la cuenta neta por registro)
+ * - escrituras muertas: se quitan las que se pisan antes de leerse
+ *
+ * Un STORE puede fallar y detener el programa, así que antes de cada uno y al final todos los registros
+ * valen lo mismo que en el original; los STORE nunca se quitan. Un STORE puede escribir sobre una
+ * instrucción que ya se ejecutó, pero si escribe sobre una que todavía no (en el original o en el
+ * programa ya acortado) el programa se deja como está.
+ */
+public class ProgramOptimizer {
+    private static final int AC = 0;
+    private static final int REGISTERS = Instruction.REG_DX + 1;
+    private static final int ALL_LIVE = (1 << REGISTERS) - 1;
+    
+    private int[] words;
+    // Posición en el programa original de donde sale cada instrucción (mapa de fuente)
+    private int[] origins;
+    private int count;
+    private int removedNoOps;
+    private int removedDeadWrites;
+    private int foldedRuns;
+    private int rewrittenMoves;
+    
+    private ProgramOptimizer(AssembledProgram program) {
+        count = program.size();
+        words = new int[count];
+        origins = new int[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = program.getWord(i);
+            origins[i] = i;
+        }
+    }
+    
+    /**
+     * Optimiza instrucciones ya parseadas (ver Assembler.parse)
+     */
+    public static OptimizedProgram optimize(List<Instruction> instructions) {
+        return optimize(AssembledProgram.fromInstructions(instructions));
+    }
+    
+    public static OptimizedProgram optimize(AssembledProgram program) {
+        ProgramOptimizer optimizer = new ProgramOptimizer(program);
+        for (int i = 0; i < program.size(); i++) {
+            int word = program.getWord(i);
+            int regCode = word & 0xF;
+            if (Instruction.operationName((word >>> 4) & 0xF) == null || regCode < Instruction.REG_AX || regCode > Instruction.REG_DX) {
+                return unchanged(program, "la instrucción " + (i + 1) + " no es válida: " + Instruction.disassemble(word));
+            }
+        }
+        int store = optimizer.findPendingCodeWrite();
+        if (store >= 0) {
+            return unchanged(program, "el STORE de la instrucción " + (store + 1) + " modifica una instrucción posterior");
+        }
+        
+        boolean changed;
+        do {
+            changed = optimizer.propagateConstants();
+            changed |= optimizer.eliminateDeadWrites();
+        } while (changed);
+        
+        store = optimizer.findPendingCodeWrite();
+        if (store >= 0) {
+            return unchanged(program, "acortado, el STORE de la instrucción " + (optimizer.origins[store] + 1)
+                                      + " modificaría una instrucción posterior");
+        }
+        return optimizer.result(program);
+    }
+    
+    private static OptimizedProgram unchanged(AssembledProgram program, String reason) {
+        return new OptimizedProgram(program, program, identity(program.size()), 0, 0, 0, 0, reason);
+    }
+    
+    /**
+     * Primer STORE que escribe sobre una instrucción posterior del programa actual, o -1
+     * Se deja de buscar en el primer STORE con dirección negativa, que siempre falla.
+     */
+    private int findPendingCodeWrite() {
+        int[] registers = new int[REGISTERS];
+        for (int i = 0; i < count; i++) {
+            int word = words[i];
+            if (((word >>> 4) & 0xF) == Instruction.OP_STORE) {
+                int offset = registers[word & 0xF];
+                if (offset < 0) {
+                    break;
+                }
+                if (offset > i && offset < count) {
+                    return i;
+                }
+            }
+            execute(registers, word);
+        }
+        return -1;
+    }
+    
+    /**
+     * Aplica una instrucción válida a los registros, como CPU con un STORE exitoso
+     */
+    private static void execute(int[] registers, int word) {
+        int regCode = word & 0xF;
+        int immediate = word >> 8;
+        switch ((word >>> 4) & 0xF) {
+            case Instruction.OP_LOAD: registers[AC] = registers[regCode]; break;
+            case Instruction.OP_STORE: registers[regCode] = registers[AC]; break;
+            case Instruction.OP_MOV: registers[regCode] = immediate != 0 ? immediate : registers[AC]; break;
+            case Instruction.OP_SUB: registers[AC] -= registers[regCode]; break;
+            default: registers[AC] += registers[regCode]; break;
+        }
+    }
+    
+    /**
+     * Pasada hacia adelante con los valores conocidos de los registros
+     * @return true si cambió el programa
+     */
+    private boolean propagateConstants() {
+        int[] registers = new int[REGISTERS];
+        int[] newWords = new int[count];
+        int[] newOrigins = new int[count];
+        int out = 0;
+        boolean changed = false;
+        
+        for (int i = 0; i < count; i++) {
+            int word = words[i];
+            int opCode = (word >>> 4) & 0xF;
+            int regCode = word & 0xF;
+            
+            if (opCode == Instruction.OP_ADD || opCode == Instruction.OP_SUB) {
+                int before = registers[AC];
+                int end = i;
+                while (end < count && isAddOrSub(words[end])) {
+                    execute(registers, words[end]);
+                    end++;
+                }
+                
+                int[] replacement = foldRun(i, end, registers, before, registers[AC]);
+                if (replacement != null) {
+                    for (int folded : replacement) {
+                        newWords[out] = folded;
+                        newOrigins[out++] = origins[i];
+                    }
+                    foldedRuns++;
+                    changed = true;
+                } else {
+                    for (int j = i; j < end; j++) {
+                        newWords[out] = words[j];
+                        newOrigins[out++] = origins[j];
+                    }
+                }
+                i = end - 1;
+                continue;
+            }
+            
+            boolean noOp;
+            switch (opCode) {
+                case Instruction.OP_LOAD:
+                    noOp = registers[AC] == registers[regCode];
+                    break;
+                case Instruction.OP_MOV:
+                    noOp = registers[regCode] == ((word >> 8) != 0 ? word >> 8 : registers[AC]);
+                    if (!noOp && (word >> 8) == 0 && registers[AC] != 0
+                            && registers[AC] >= Instruction.MIN_IMMEDIATE && registers[AC] <= Instruction.MAX_IMMEDIATE) {
+                        // Con el valor explícito el MOV ya no lee el AC, y lo que lo calculó puede quedar muerto
+                        word = Instruction.encode(Instruction.OP_MOV, regCode, registers[AC]);
+                        rewrittenMoves++;
+                        changed = true;
+                    }
+                    break;
+                default:
+                    noOp = false;
+                    break;
+            }
+            if (noOp) {
+                removedNoOps++;
+                changed = true;
+                continue;
+            }
+            execute(registers, word);
+            newWords[out] = word;
+            newOrigins[out++] = origins[i];
+        }
+        
+        words = newWords;
+        origins = newOrigins;
+        count = out;
+        return changed;
+    }
+    
+    private static boolean isAddOrSub(int word) {
+        int opCode = (word >>> 4) & 0xF;
+        return opCode == Instruction.OP_ADD || opCode == Instruction.OP_SUB;
+    }
+    
+    /**
+     * Secuencia más corta que deja en el AC el mismo valor que la racha de ADD/SUB [from, to)
+     * Las rachas no cambian AX-DX, así que registers ya tiene sus valores; la suma es módulo 2^32
+     * igual que en el CPU, por lo que se puede reordenar.
+     * @param before valor del AC antes de la racha
+     * @param after valor del AC al terminar la racha
+     * @return palabras que la reemplazan, o null si no hay nada más corto
+     */
+    private int[] foldRun(int from, int to, int[] registers, int before, int after) {
+        int length = to - from;
+        int delta = after - before;
+        if (delta == 0) {
+            return new int[0];
+        }
+        if (length == 1) {
+            return null;
+        }
+        
+        for (int regCode = Instruction.REG_AX; regCode <= Instruction.REG_DX; regCode++) {
+            if (registers[regCode] == delta) {
+                return new int[] {Instruction.encode(Instruction.OP_ADD, regCode, 0)};
+            }
+            if (registers[regCode] == -delta) {
+                return new int[] {Instruction.encode(Instruction.OP_SUB, regCode, 0)};
+            }
+            if (registers[regCode] == after) {
+                return new int[] {Instruction.encode(Instruction.OP_LOAD, regCode, 0)};
+            }
+        }
+        
+        // Cuenta neta por registro: ADD AX; SUB AX se anulan aunque no se conozcan los valores
+        int[] net = new int[REGISTERS];
+        for (int i = from; i < to; i++) {
+            net[words[i] & 0xF] += ((words[i] >>> 4) & 0xF) == Instruction.OP_ADD ? 1 : -1;
+        }
+        int netLength = 0;
+        for (int regCode = Instruction.REG_AX; regCode <= Instruction.REG_DX; regCode++) {
+            netLength += Math.abs(net[regCode]);
+        }
+        if (netLength >= length) {
+            return null;
+        }
+        int[] replacement = new int[netLength];
+        int out = 0;
+        for (int regCode = Instruction.REG_AX; regCode <= Instruction.REG_DX; regCode++) {
+            int opCode = net[regCode] > 0 ? Instruction.OP_ADD : Instruction.OP_SUB;
+            for (int k = 0; k < Math.abs(net[regCode]); k++) {
+                replacement[out++] = Instruction.encode(opCode, regCode, 0);
+            }
+        }
+        return replacement;
+    }
+    
+    /**
+     * Pasada hacia atrás con los registros vivos (bit i = registro i, AC en el bit 0)
+     * @return true si cambió el programa
+     */
+    private boolean eliminateDeadWrites() {
+        boolean[] dead = new boolean[count];
+        int live = ALL_LIVE;
+        int removed = 0;
+        
+        for (int i = count - 1; i >= 0; i--) {
+            int word = words[i];
+            int register = 1 << (word & 0xF);
+            switch ((word >>> 4) & 0xF) {
+                case Instruction.OP_STORE:
+                    // Si falla, el programa termina y se ven todos los registros
+                    live = ALL_LIVE;
+                    continue;
+                case Instruction.OP_LOAD:
+                    dead[i] = (live & 1 << AC) == 0;
+                    live = dead[i] ? live : (live & ~(1 << AC)) | register;
+                    break;
+                case Instruction.OP_MOV:
+                    dead[i] = (live & register) == 0;
+                    if (!dead[i]) {
+                        live = (live & ~register) | ((word >> 8) == 0 ? 1 << AC : 0);
+                    }
+                    break;
+                default:
+                    dead[i] = (live & 1 << AC) == 0;
+                    live = dead[i] ? live : live | register;
+                    break;
+            }
+            if (dead[i]) {
+                removed++;
+            }
+        }
+        if (removed == 0) {
+            return false;
+        }
+        
+        int out = 0;
+        for (int i = 0; i < count; i++) {
+            if (!dead[i]) {
+                words[out] = words[i];
+                origins[out++] = origins[i];
+            }
+        }
+        count = out;
+        removedDeadWrites += removed;
+        return true;
+    }
+    
+    private OptimizedProgram result(AssembledProgram original) {
+        int[] optimizedWords = Arrays.copyOf(words, count);
+        int[] sourceMap = Arrays.copyOf(origins, count);
+        String[] sourceLines = new String[count];
+        int[] lineNumbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            int origin = sourceMap[i];
+            // Las instrucciones que quedan igual conservan su texto; las nuevas se desensamblan
+            sourceLines[i] = optimizedWords[i] == original.getWord(origin) ? original.getSourceLine(origin)
+                                                                             : Instruction.disassemble(optimizedWords[i]);
+            lineNumbers[i] = original.getLineNumber(origin);
+        }
+        return new OptimizedProgram(original, new AssembledProgram(optimizedWords, sourceLines, lineNumbers), sourceMap,
+                                    removedNoOps, removedDeadWrites, foldedRuns, rewrittenMoves, null);
+    }
+    
+    private static int[] identity(int size) {
+        int[] map = new int[size];
+        for (int i = 0; i < size; i++) {
+            map[i] = i;
+        }
+        return map;
+    }
+    
+    /**
+     * Ejecuta el original y el optimizado en máquinas nuevas y compara lo que el optimizador promete
+     * conservar: registros AC-DX, forma de terminar y la memoria fuera de la región del programa original
+     * @return diferencias encontradas; vacía si coinciden
+     */
+    public static List<String> verify(OptimizedProgram optimized, int totalSize, int osSize) {
+        Simulator original = newMachine(totalSize, osSize);
+        Simulator reduced = newMachine(totalSize, osSize);
+        original.load(optimized.getOriginal());
+        SimulationResult expected = original.run();
+        reduced.load(optimized.getProgram());
+        SimulationResult actual = reduced.run();
+        
+        List<String> differences = new ArrayList<>();
+        compare(differences, "AC", expected.getAC(), actual.getAC());
+        compare(differences, "AX", expected.getAX(), actual.getAX());
+        compare(differences, "BX", expected.getBX(), actual.getBX());
+        compare(differences, "CX", expected.getCX(), actual.getCX());
+        compare(differences, "DX", expected.getDX(), actual.getDX());
+        if (expected.getStopReason() != actual.getStopReason()) {
+            differences.add("fin: " + expected.getStopReason() + " / " + actual.getStopReason());
+        }
+        
+        int[] expectedMemory = original.getMemory().dumpMemory();
+        int[] actualMemory = reduced.getMemory().dumpMemory();
+        int codeStart = original.getMemory().getUserMemoryStart();
+        int codeEnd = codeStart + optimized.getOriginal().size();
+        for (int address = 0; address < expectedMemory.length; address++) {
+            if ((address < codeStart || address >= codeEnd) && expectedMemory[address] != actualMemory[address]) {
+                differences.add("memoria[" + address + "]: " + expectedMemory[address] + " / " + actualMemory[address]);
+                break;
+            }
+        }
+        return differences;
+    }
+    
+    private static Simulator newMachine(int totalSize, int osSize) {
+        Memory memory = new Memory(totalSize, osSize, MemoryStorage.Type.HEAP);
+        return new Simulator(memory, new CPU(memory));
+    }
+    
+    private static void compare(List<String> differences, String name, int expected, int actual) {
+        if (expected != actual) {
+            differences.add(name + ": " + expected + " / " + actual + " (original / optimizado)");
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Planificador de procesos sobre un único CPU
+ * Cada programa admitido recibe su propia partición de memoria y su BCP.
+ * El tiempo se mide en ticks: un tick es una instrucción ejecutada.
+ * Las instrucciones se buscan en la memoria en el PC, con una DecodedInstructionCache por partición,
+ * así un proceso que modifica su propio código ejecuta lo que escribió.
+ */
+public class Scheduler {
+    // Niveles de prioridad: 0 es la más alta
+    public static final int PRIORITY_LEVELS = 32;
+    
+    private final Memory memory;
+    private final CPU cpu;
+    private final SchedulingPolicy policy;
+    private final int quantum;
+    private final ReadyQueue readyQueue;
+    
+    private final List<ProcessControlBlock> processes = new ArrayList<>();
+    // Instrucciones decodificadas de la partición de cada proceso, por pid - 1
+    private final List<DecodedInstructionCache> codeCaches = new ArrayList<>();
+    private final ArrayDeque<ProcessControlBlock> arrivals = new ArrayDeque<>();
+    private int nextFreeAddress;
+    private long clock;
+    private long contextSwitches;
+    
+    /**
+     * @param quantum instrucciones por turno, solo se usa en ROUND_ROBIN
+     */
+    public Scheduler(Memory memory, CPU cpu, SchedulingPolicy policy, int quantum) {
+        if (policy == SchedulingPolicy.ROUND_ROBIN && quantum < 1) {
+            throw new IllegalArgumentException("El quantum debe ser al menos 1");
+        }
+        this.memory = memory;
+        this.cpu = cpu;
+        this.policy = policy;
+        this.quantum = quantum;
+        this.nextFreeAddress = memory.getUserMemoryStart();
+        
+        switch (policy) {
+            case SJF: readyQueue = new ShortestJobQueue(); break;
+            case PRIORITY: readyQueue = new PriorityBucketQueue(); break;
+            default: readyQueue = new FifoQueue(); break;
+        }
+    }
+    
+    /**
+     * Admite un proceso y carga su programa en la siguiente partición libre
+     * @param partitionSize tamaño de la partición (al menos el tamaño del programa)
+     * @param priority prioridad entre 0 (más alta) y PRIORITY_LEVELS - 1
+     * @param arrivalTime tick en que el proceso llega a la cola de listos
+     */
+    public ProcessControlBlock admit(String name, AssembledProgram program, int partitionSize,
+                                     int priority, long arrivalTime) {
+        if (priority < 0 || priority >= PRIORITY_LEVELS) {
+            throw new IllegalArgumentException("Prioridad fuera de rango: " + priority);
+        }
+        
+        int size = Math.max(partitionSize, program.size());
+        if ((long) nextFreeAddress + size > memory.getTotalSize()) {
+            throw new IllegalArgumentException("No hay memoria libre para el proceso " + name);
+        }
+        
+        int pid = processes.size() + 1;
+        int base = nextFreeAddress;
+        // Etiquetas sin el pid: procesos con el mismo programa comparten su texto (ver getLabel)
+        String[] labels = new String[program.size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = program.getSourceLine(i);
+        }
+        memory.loadProgram(program.copyWords(), labels, base);
+        nextFreeAddress += size;
+        codeCaches.add(new DecodedInstructionCache(memory, base, program.size()));
+        
+        ProcessControlBlock pcb = new ProcessControlBlock(pid, name, program, priority, arrivalTime, base, base + size);
+        processes.add(pcb);
+        return pcb;
+    }
+    
+    /**
+     * Admite varios procesos que llegan en el tick 0 con prioridad 0
+     * @param partitionSize tamaño de cada partición, o 0 para repartir en partes iguales la memoria de usuario libre
+     */
+    public List<ProcessControlBlock> admitAll(List<String> names, List<AssembledProgram> programs, int partitionSize) {
+        if (names.size() != programs.size()) {
+            throw new IllegalArgumentException("Hay " + names.size() + " nombres para " + programs.size() + " programas");
+        }
+        if (partitionSize < 0) {
+            throw new IllegalArgumentException("Tamaño de partición inválido: " + partitionSize);
+        }
+        int size = partitionSize;
+        if (size == 0 && !programs.isEmpty()) {
+            size = (memory.getTotalSize() - nextFreeAddress) / programs.size();
+        }
+        
+        List<ProcessControlBlock> admitted = new ArrayList<>();
+        for (int i = 0; i < programs.size(); i++) {
+            admitted.add(admit(names.get(i), programs.get(i), size, 0, 0));
+        }
+        return admitted;
+    }
+    
+    /**
+     * Ejecuta todos los procesos admitidos hasta que terminen
+     */
+    public SchedulerReport runAll() {
+        long start = System.nanoTime();
+        
+        List<ProcessControlBlock> pending = new ArrayList<>();
+        for (ProcessControlBlock pcb : processes) {
+            if (pcb.getState() == ProcessState.NEW) {
+                pending.add(pcb);
+            }
+        }
+        pending.sort(Comparator.comparingLong(ProcessControlBlock::getArrivalTime));
+        arrivals.addAll(pending);
+        
+        while (!readyQueue.isEmpty() || !arrivals.isEmpty()) {
+            admitArrivals();
+            
+            if (readyQueue.isEmpty()) {
+                // CPU ocioso hasta la próxima llegada
+                clock = arrivals.peekFirst().getArrivalTime();
+                continue;
+            }
+            
+            ProcessControlBlock pcb = readyQueue.poll();
+            dispatch(pcb);
+        }
+        
+        memory.watchCode(null);
+        memory.publishChanges();
+        return new SchedulerReport(policy, quantum, processes, clock, contextSwitches, System.nanoTime() - start);
+    }
+    
+    /**
+     * Pasa a la cola de listos los procesos cuyo tiempo de llegada ya ocurrió
+     */
+    private void admitArrivals() {
+        while (!arrivals.isEmpty() && arrivals.peekFirst().getArrivalTime() <= clock) {
+            ProcessControlBlock pcb = arrivals.pollFirst();
+            pcb.setState(ProcessState.READY);
+            readyQueue.add(pcb);
+        }
+    }
+    
+    /**
+     * Da el CPU a un proceso durante su turno
+     */
+    private void dispatch(ProcessControlBlock pcb) {
+        contextSwitches++;
+        cpu.loadContext(pcb);
+        pcb.setState(ProcessState.RUNNING);
+        pcb.markStarted(clock);
+        
+        AssembledProgram program = pcb.getProgram();
+        int slice = policy == SchedulingPolicy.ROUND_ROBIN ? quantum : Integer.MAX_VALUE;
+        // Solo el proceso en ejecución escribe en su partición, así que basta con vigilar su código
+        DecodedInstructionCache code = codeCaches.get(pcb.getPid() - 1);
+        memory.watchCode(code);
+        
+        for (int executed = 0; executed < slice && !pcb.isFinished(); executed++) {
+            int index = pcb.getProgramIndex();
+            int word = code.decode(cpu.getPC());
+            if (!cpu.executeDecoded(word, DecodedInstructionCache.getOpCode(word),
+                                    DecodedInstructionCache.getRegCode(word), DecodedInstructionCache.getImmediate(word))) {
+                cpu.saveContext(pcb);
+                pcb.terminate(clock, "Error ejecutando " + program.describe(index)
+                              + (word != program.getWord(index) ? " (modificada en memoria: " + Instruction.disassemble(word) + ")" : ""));
+                return;
+            }
+            cpu.incrementPC();
+            pcb.advance();
+            clock++;
+        }
+        
+        cpu.saveContext(pcb);
+        
+        if (pcb.isFinished()) {
+            pcb.terminate(clock, null);
+        } else {
+            // Los que llegaron durante el turno entran a la cola antes que el proceso expropiado
+            admitArrivals();
+            pcb.setState(ProcessState.READY);
+            readyQueue.add(pcb);
+        }
+    }
+    
+    /**
+     * Etiqueta de una posición con el pid del proceso dueño de la partición, como "P2: MOV AX, 5"
+     * @return la etiqueta de la memoria sin prefijo si la posición no es de ningún proceso
+     */
+    public String getLabel(int address) {
+        String label = memory.getLabel(address);
+        if (label.isEmpty()) {
+            return label;
+        }
+        // Las particiones se asignan en orden creciente de dirección
+        int low = 0;
+        int high = processes.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            ProcessControlBlock pcb = processes.get(middle);
+            if (address < pcb.getMemoryBase()) {
+                high = middle - 1;
+            } else if (address >= pcb.getMemoryLimit()) {
+                low = middle + 1;
+            } else {
+                return "P" + pcb.getPid() + ": " + label;
+            }
+        }
+        return label;
+    }
+    
+    // Getters
+    public List<ProcessControlBlock> getProcesses() { return processes; }
+    public SchedulingPolicy getPolicy() { return policy; }
+    public long getClock() { return clock; }
+    
+    /**
+     * Cola de listos; cada política define el orden de salida
+     */
+    private interface ReadyQueue {
+        void add(ProcessControlBlock pcb);
+        ProcessControlBlock poll();
+        boolean isEmpty();
+    }
+    
+    /**
+     * FCFS y Round Robin: cola FIFO, O(1)
+     */
+    private static final class FifoQueue implements ReadyQueue {
+        private final ArrayDeque<ProcessControlBlock> queue = new ArrayDeque<>();
+        
+        public void add(ProcessControlBlock pcb) { queue.addLast(pcb); }
+        public ProcessControlBlock poll() { return queue.pollFirst(); }
+        public boolean isEmpty() { return queue.isEmpty(); }
+    }
+    
+    /**
+     * Prioridad: una cola FIFO por nivel y un mapa de bits de niveles no vacíos, O(1)
+     */
+    private static final class PriorityBucketQueue implements ReadyQueue {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final ArrayDeque<ProcessControlBlock>[] buckets = new ArrayDeque[PRIORITY_LEVELS];
+        private int nonEmpty;
+        
+        PriorityBucketQueue() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new ArrayDeque<>();
+            }
+        }
+        
+        public void add(ProcessControlBlock pcb) {
+            buckets[pcb.getPriority()].addLast(pcb);
+            nonEmpty |= 1 << pcb.getPriority();
+        }
+        
+        public ProcessControlBlock poll() {
+            if (nonEmpty == 0) {
+                return null;
+            }
+            int level = Integer.numberOfTrailingZeros(nonEmpty);
+            ProcessControlBlock pcb = buckets[level].pollFirst();
+            if (buckets[level].isEmpty()) {
+                nonEmpty &= ~(1 << level);
+            }
+            return pcb;
+        }
+        
+        public boolean isEmpty() { return nonEmpty == 0; }
+    }
+    
+    /**
+     * SJF: el de menor ráfaga restante primero; a igual ráfaga, el de menor pid
+     * Las ráfagas no están acotadas, así que se usa un heap (O(log n))
+     */
+    private static final class ShortestJobQueue implements ReadyQueue {
+        private final PriorityQueue<ProcessControlBlock> queue = new PriorityQueue<>(
+            Comparator.comparingInt(ProcessControlBlock::getRemainingTime).thenComparingInt(ProcessControlBlock::getPid));
+        
+        public void add(ProcessControlBlock pcb) { queue.add(pcb); }
+        public ProcessControlBlock poll() { return queue.poll(); }
+        public boolean isEmpty() { return queue.isEmpty(); }
+    }
+}
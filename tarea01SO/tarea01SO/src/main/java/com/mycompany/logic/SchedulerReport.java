@@ -0,0 +1,91 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Métricas de una corrida del Scheduler
+ */
+public class SchedulerReport {
+    private final SchedulingPolicy policy;
+    private final int quantum;
+    private final List<ProcessControlBlock> processes;
+    private final long totalTicks;
+    private final long contextSwitches;
+    private final long elapsedNanos;
+    
+    SchedulerReport(SchedulingPolicy policy, int quantum, List<ProcessControlBlock> processes,
+                    long totalTicks, long contextSwitches, long elapsedNanos) {
+        this.policy = policy;
+        this.quantum = quantum;
+        this.processes = new ArrayList<>(processes);
+        this.totalTicks = totalTicks;
+        this.contextSwitches = contextSwitches;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    // Getters
+    public List<ProcessControlBlock> getProcesses() { return processes; }
+    public long getTotalTicks() { return totalTicks; }
+    public long getContextSwitches() { return contextSwitches; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    public double getAverageTurnaroundTime() {
+        long sum = 0;
+        for (ProcessControlBlock pcb : processes) {
+            sum += pcb.getTurnaroundTime();
+        }
+        return processes.isEmpty() ? 0 : (double) sum / processes.size();
+    }
+    
+    public double getAverageWaitingTime() {
+        long sum = 0;
+        for (ProcessControlBlock pcb : processes) {
+            sum += pcb.getWaitingTime();
+        }
+        return processes.isEmpty() ? 0 : (double) sum / processes.size();
+    }
+    
+    /**
+     * Procesos terminados por tick simulado
+     */
+    public double getThroughput() {
+        return totalTicks == 0 ? 0 : (double) processes.size() / totalTicks;
+    }
+    
+    /**
+     * Resumen en texto, con una línea por proceso
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("=== PLANIFICACIÓN ").append(policy);
+        if (policy == SchedulingPolicy.ROUND_ROBIN) {
+            report.append(" (quantum ").append(quantum).append(")");
+        }
+        report.append(" ===\n");
+        report.append(String.format("%-6s %-24s %8s %8s %8s %10s %8s%n",
+                                    "PID", "Nombre", "Llegada", "Ráfaga", "Fin", "Retorno", "Espera"));
+        for (ProcessControlBlock pcb : processes) {
+            report.append(String.format("%-6s %-24s %8d %8d %8d %10d %8d%s%n",
+                                        "P" + pcb.getPid(), pcb.getName(), pcb.getArrivalTime(), pcb.getBurstTime(),
+                                        pcb.getFinishTime(), pcb.getTurnaroundTime(), pcb.getWaitingTime(),
+                                        pcb.getErrorMessage() != null ? "  ERROR: " + pcb.getErrorMessage() : ""));
+        }
+        report.append(String.format("Retorno promedio: %.2f%n", getAverageTurnaroundTime()));
+        report.append(String.format("Espera promedio: %.2f%n", getAverageWaitingTime()));
+        report.append(String.format("Throughput: %.4f procesos/tick%n", getThroughput()));
+        report.append("Ticks totales: ").append(totalTicks).append("\n");
+        report.append("Cambios de contexto: ").append(contextSwitches).append("\n");
+        report.append("Tiempo: ").append(elapsedNanos / 1000).append(" us\n");
+        return report.toString();
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Políticas de planificación soportadas por el Scheduler
+ */
+public enum SchedulingPolicy {
+    FCFS,           // Primero en llegar, primero en ser servido (no expropiativo)
+    ROUND_ROBIN,    // Turnos con quantum configurable
+    SJF,            // Trabajo más corto primero (no expropiativo)
+    PRIORITY        // Mayor prioridad primero, 0 es la más alta (no expropiativo)
+}
@@ -0,0 +1,100 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Resultado de una ejecución del simulador
+ * Los registros se copian; la memoria se consulta en su lugar para no duplicar memorias grandes,
+ * por lo que refleja cambios si la simulación sigue después de obtener el resultado
+ */
+public class SimulationResult {
+    
+    /**
+     * Motivo por el que se detuvo la ejecución
+     */
+    public enum StopReason {
+        FINISHED,
+        BUDGET_EXHAUSTED,
+        ERROR
+    }
+    
+    private final int ax;
+    private final int bx;
+    private final int cx;
+    private final int dx;
+    private final int ac;
+    private final int ir;
+    private final int pc;
+    private final Memory memory;
+    private final int usedPositions;
+    private final StopReason stopReason;
+    private final String errorMessage;
+    private final long instructionsExecuted;
+    private final long elapsedNanos;
+    
+    SimulationResult(CPU cpu, Memory memory, StopReason stopReason, String errorMessage,
+                     long instructionsExecuted, long elapsedNanos) {
+        this.ax = cpu.getAX();
+        this.bx = cpu.getBX();
+        this.cx = cpu.getCX();
+        this.dx = cpu.getDX();
+        this.ac = cpu.getAC();
+        this.ir = cpu.getIR();
+        this.pc = cpu.getPC();
+        this.memory = memory;
+        this.usedPositions = memory.getUsedPositions();
+        this.stopReason = stopReason;
+        this.errorMessage = errorMessage;
+        this.instructionsExecuted = instructionsExecuted;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    // Getters
+    public int getAX() { return ax; }
+    public int getBX() { return bx; }
+    public int getCX() { return cx; }
+    public int getDX() { return dx; }
+    public int getAC() { return ac; }
+    public int getIR() { return ir; }
+    public int getPC() { return pc; }
+    public StopReason getStopReason() { return stopReason; }
+    public String getErrorMessage() { return errorMessage; }
+    public long getInstructionsExecuted() { return instructionsExecuted; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    /**
+     * Valor final de una posición de memoria
+     */
+    public int getMemoryValue(int address) {
+        return memory.readFromMemory(address);
+    }
+    
+    public int getMemorySize() { return memory.getTotalSize(); }
+    public int getUsedPositions() { return usedPositions; }
+    
+    /**
+     * Resumen en texto del resultado
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("=== RESULTADO ===\n");
+        report.append("Estado: ").append(stopReason).append("\n");
+        if (errorMessage != null) {
+            report.append("Error: ").append(errorMessage).append("\n");
+        }
+        report.append("AX: ").append(ax).append("  BX: ").append(bx)
+              .append("  CX: ").append(cx).append("  DX: ").append(dx).append("\n");
+        report.append("AC: ").append(ac).append("  IR: ").append(ir).append("  PC: ").append(pc).append("\n");
+        report.append("Instrucciones ejecutadas: ").append(instructionsExecuted).append("\n");
+        report.append("Tiempo: ").append(elapsedNanos / 1000).append(" us\n");
+        report.append("Posiciones de memoria usadas: ").append(usedPositions).append("/").append(memory.getTotalSize()).append("\n");
+        return report.toString();
+    }
+}
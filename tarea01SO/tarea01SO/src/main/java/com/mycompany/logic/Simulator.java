@@ -0,0 +1,395 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Motor de ejecución sin interfaz gráfica
+ * Carga un programa ensamblado en memoria y lo ejecuta sobre un CPU
+ * tan rápido como sea posible, sin pausas entre instrucciones
+ *
+ * Cada paso busca la instrucción en la memoria en la dirección del PC (a través de una
+ * DecodedInstructionCache) y termina cuando el PC sale de la región donde se cargó el programa.
+ */
+public class Simulator {
+    private final Memory memory;
+    private final CPU cpu;
+    private AssembledProgram program;
+    // Región de código en memoria con sus instrucciones decodificadas; null sin programa
+    private DecodedInstructionCache decodedCache;
+    private int currentIndex;
+    private long instructionsExecuted;
+    private String lastError;
+    // Historial para retroceder pasos; null si está desactivado
+    private ExecutionHistory history;
+    // Traducción de bloques calientes a bytecode; null si está desactivada
+    private BlockCompiler compiler;
+    // Despacho por manejadores con superinstrucciones (ver ThreadedCode); null si está desactivado
+    private ThreadedCode threadedCode;
+    private final ExecutionCounters counters = new ExecutionCounters();
+    
+    public Simulator(Memory memory, CPU cpu) {
+        this.memory = memory;
+        this.cpu = cpu;
+    }
+    
+    /**
+     * Reinicia el CPU, limpia la memoria de usuario y carga el programa
+     * desde el inicio del área de usuario
+     */
+    public void load(AssembledProgram program) {
+        int startAddress = memory.getUserMemoryStart();
+        
+        if (startAddress + program.size() > memory.getTotalSize()) {
+            throw new IllegalArgumentException("El programa (" + program.size() + " instrucciones) no cabe en la memoria de usuario");
+        }
+        
+        // Las escrituras de la carga no invalidan los manejadores: attach los compara con las palabras nuevas
+        memory.watchCode(null);
+        cpu.reset();
+        memory.clearUserMemory();
+        cpu.setProgramStart(startAddress);
+        
+        // La palabra completa: el valor inmediato de MOV también se lee de memoria al ejecutar
+        int[] values = program.copyWords();
+        memory.loadProgram(values, null, startAddress);
+        // Las etiquetas se toman del programa cuando se muestran, sin armar un String por instrucción
+        memory.setProgramLabels(program, startAddress);
+        
+        attachCode(program);
+        decodedCache.prime(values);
+        if (threadedCode != null) {
+            threadedCode.attach(decodedCache);
+        }
+        if (compiler != null) {
+            compiler.prepare(program);
+        }
+        this.program = program;
+        this.currentIndex = 0;
+        this.instructionsExecuted = 0;
+        this.lastError = null;
+        counters.reset();
+        
+        if (history != null) {
+            history.reset();
+        }
+    }
+    
+    /**
+     * Activa el historial para poder retroceder pasos con stepBack y goToStep
+     * @param journalCapacity cantidad de pasos recientes que se deshacen sin volver a ejecutar
+     */
+    public void enableHistory(int journalCapacity) {
+        history = new ExecutionHistory(this, journalCapacity);
+        history.reset();
+    }
+    
+    public void disableHistory() {
+        if (history != null) {
+            history.detach();
+        }
+        history = null;
+    }
+    
+    /**
+     * Traduce a bytecode los bloques que se ejecutan a menudo (ver BlockCompiler)
+     * Solo se usa en run y en la ejecución por lotes, sin historial y con las trazas apagadas;
+     * step siempre pasa por el intérprete.
+     */
+    public void enableCompiler(BlockCompiler compiler) {
+        this.compiler = compiler;
+        compiler.prepare(program);
+    }
+    
+    public void disableCompiler() {
+        compiler = null;
+    }
+    
+    /**
+     * Ejecuta con un arreglo de manejadores en lugar del switch del CPU (ver ThreadedCode)
+     * Es el escalón entre el intérprete y los bloques traducidos: con ambos activados, los bloques
+     * calientes usan BlockCompiler y el resto los manejadores. Valen las mismas condiciones que
+     * para enableCompiler.
+     */
+    public void enableThreadedDispatch() {
+        threadedCode = new ThreadedCode();
+        if (decodedCache != null) {
+            threadedCode.attach(decodedCache);
+        }
+    }
+    
+    public void disableThreadedDispatch() {
+        threadedCode = null;
+        if (decodedCache != null) {
+            decodedCache.watchHandlers(null);
+        }
+    }
+    
+    /**
+     * Manejadores de la región de código, o null si el despacho por manejadores no está activado
+     */
+    public ThreadedCode getThreadedCode() {
+        return threadedCode;
+    }
+    
+    /**
+     * Compilador de bloques, o null si no está activado
+     */
+    public BlockCompiler getCompiler() {
+        return compiler;
+    }
+    
+    /**
+     * Historial de ejecución, o null si no está activado
+     */
+    public ExecutionHistory getHistory() {
+        return history;
+    }
+    
+    public boolean canStepBack() {
+        return history != null && history.canStepBack();
+    }
+    
+    /**
+     * Deshace la última instrucción ejecutada (requiere enableHistory)
+     * @return false si no hay nada para deshacer
+     */
+    public boolean stepBack() {
+        return history != null && history.stepBack();
+    }
+    
+    /**
+     * Lleva la ejecución al estado después de "step" instrucciones (requiere enableHistory para ir hacia atrás)
+     */
+    public boolean goToStep(int step) {
+        if (history != null) {
+            return history.goToStep(step);
+        }
+        if (step < currentIndex) {
+            return false;
+        }
+        while (currentIndex < step) {
+            if (!step()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Ejecuta la instrucción actual y avanza el PC
+     * @return true si la instrucción se ejecutó correctamente
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        
+        // Búsqueda en memoria en la dirección del PC; solo se decodifica la primera vez o tras una escritura
+        DecodedInstructionCache code = decodedCache;
+        int word = code.decode(cpu.getPC());
+        if (history != null) {
+            history.beforeStep(word);
+        }
+        
+        boolean sample = counters.shouldSample();
+        long start = sample ? System.nanoTime() : 0;
+        boolean success = cpu.executeDecoded(word, DecodedInstructionCache.getOpCode(word),
+                                             DecodedInstructionCache.getRegCode(word),
+                                             DecodedInstructionCache.getImmediate(word));
+        if (sample) {
+            counters.recordLatency(System.nanoTime() - start);
+        }
+        counters.recordStep(word, success);
+        
+        if (!success) {
+            int index = cpu.getPC() - code.getBase();
+            lastError = "Error ejecutando " + program.describe(index)
+                        + (word != program.getWord(index) ? " (modificada en memoria: " + Instruction.disassemble(word) + ")" : "");
+            return false;
+        }
+        
+        cpu.incrementPC();
+        currentIndex++;
+        instructionsExecuted++;
+        
+        if (history != null) {
+            history.afterStep();
+        }
+        return true;
+    }
+    
+    /**
+     * Ejecuta el programa hasta terminarlo, encontrar un error o agotar el presupuesto
+     * @param maxInstructions máximo de instrucciones a ejecutar en esta llamada
+     * @return estado final de registros, memoria y contadores
+     */
+    public SimulationResult run(long maxInstructions) {
+        long start = System.nanoTime();
+        long executed = executeBatch(maxInstructions);
+        
+        SimulationResult.StopReason reason = SimulationResult.StopReason.FINISHED;
+        if (!isFinished()) {
+            reason = executed >= maxInstructions ? SimulationResult.StopReason.BUDGET_EXHAUSTED
+                                                 : SimulationResult.StopReason.ERROR;
+        }
+        
+        if (cpu.getMemoryPort() instanceof Cache) {
+            // Con WRITE_BACK parte de lo escrito sigue en la caché; el resultado muestra la memoria
+            ((Cache) cpu.getMemoryPort()).flush();
+        }
+        memory.publishChanges();
+        return new SimulationResult(cpu, memory, reason, lastError, instructionsExecuted, System.nanoTime() - start);
+    }
+    
+    /**
+     * Ejecuta hasta maxInstructions instrucciones sin publicar cambios ni armar un resultado
+     * (para ejecutar en lotes, ver ClockedRunner)
+     * @return instrucciones ejecutadas; si son menos que maxInstructions el programa terminó o hubo un error
+     */
+    long executeBatch(long maxInstructions) {
+        long start = System.nanoTime();
+        long executed = 0;
+        while (executed < maxInstructions) {
+            int compiled = compiler != null ? executeCompiled(maxInstructions - executed) : 0;
+            if (compiled == 0 && threadedCode != null) {
+                compiled = executeThreaded(maxInstructions - executed);
+            }
+            if (compiled > 0) {
+                executed += compiled;
+            } else if (step()) {
+                executed++;
+            } else {
+                break;
+            }
+        }
+        counters.recordRun(executed, System.nanoTime() - start);
+        return executed;
+    }
+    
+    /**
+     * Si el PC está al inicio de un bloque traducido que entra en el presupuesto, lo ejecuta
+     * @return instrucciones ejecutadas; 0 si hay que seguir con el intérprete
+     */
+    private int executeCompiled(long budget) {
+        int slot = fastPathSlot();
+        if (slot < 0) {
+            return 0;
+        }
+        DecodedInstructionCache code = decodedCache;
+        int address = cpu.getPC();
+        if (slot % BlockCompiler.BLOCK_SIZE != 0 || code.isBlockModified(slot / BlockCompiler.BLOCK_SIZE)) {
+            return 0;
+        }
+        CompiledBlock block = compiler.blockFor(slot / BlockCompiler.BLOCK_SIZE);
+        if (block == null || block.getLength() > budget) {
+            return 0;
+        }
+        
+        int executed = block.execute(cpu, address, code.getBase(), code.getBase() + code.getSize(), counters);
+        currentIndex += executed;
+        instructionsExecuted += executed;
+        return executed;
+    }
+    
+    /**
+     * Ejecuta con los manejadores desde el PC hasta un error, el presupuesto o el final de la región
+     * Con el compilador activado se detiene al inicio del bloque siguiente para que executeCompiled lo vea.
+     * @return instrucciones ejecutadas; 0 si hay que seguir con el intérprete
+     */
+    private int executeThreaded(long budget) {
+        int slot = fastPathSlot();
+        if (slot < 0) {
+            return 0;
+        }
+        int end = decodedCache.getSize();
+        if (compiler != null) {
+            end = Math.min(end, (slot / BlockCompiler.BLOCK_SIZE + 1) * BlockCompiler.BLOCK_SIZE);
+        }
+        
+        int executed = threadedCode.run(cpu, slot, end, budget, counters);
+        currentIndex += executed;
+        instructionsExecuted += executed;
+        return executed;
+    }
+    
+    /**
+     * Posición del PC en la región de código si se puede dejar el intérprete de lado, o -1
+     * El historial y las trazas necesitan ver cada instrucción, así que con ellos siempre se interpreta.
+     */
+    private int fastPathSlot() {
+        if (history != null || cpu.getTracer().getLevel() != TraceLevel.OFF) {
+            return -1;
+        }
+        DecodedInstructionCache code = decodedCache;
+        int address = cpu.getPC();
+        if (code == null || !code.contains(address)) {
+            return -1;
+        }
+        return address - code.getBase();
+    }
+    
+    /**
+     * Ejecuta el programa completo sin límite de instrucciones
+     */
+    public SimulationResult run() {
+        return run(Long.MAX_VALUE);
+    }
+    
+    /**
+     * Retoma una ejecución guardada: la memoria y el CPU ya deben tener el estado restaurado
+     */
+    void restore(AssembledProgram program, int currentIndex, long instructionsExecuted, String lastError) {
+        if (program != this.program) {
+            memory.setProgramLabels(program, memory.getUserMemoryStart());
+            attachCode(program);
+            if (program != null) {
+                decodedCache.markModified(program);
+                if (threadedCode != null) {
+                    threadedCode.attach(decodedCache);
+                }
+            }
+            if (compiler != null) {
+                compiler.prepare(program);
+            }
+        }
+        this.program = program;
+        this.currentIndex = currentIndex;
+        this.instructionsExecuted = instructionsExecuted;
+        this.lastError = lastError;
+    }
+    
+    /**
+     * Prepara las instrucciones decodificadas de la región donde está cargado el programa
+     */
+    private void attachCode(AssembledProgram program) {
+        decodedCache = program == null ? null
+                       : new DecodedInstructionCache(memory, memory.getUserMemoryStart(), program.size());
+        memory.watchCode(decodedCache);
+    }
+    
+    /**
+     * Copia de las métricas acumuladas desde la última carga de programa
+     */
+    public ExecutionStats getStats() {
+        return counters.snapshot();
+    }
+    
+    public boolean isLoaded() { return program != null; }
+    // Termina cuando el PC sale de la región de código
+    public boolean isFinished() { return decodedCache == null || !decodedCache.contains(cpu.getPC()); }
+    public int getCurrentIndex() { return currentIndex; }
+    public long getInstructionsExecuted() { return instructionsExecuted; }
+    public String getLastError() { return lastError; }
+    public AssembledProgram getProgram() { return program; }
+    // Instrucciones decodificadas de la región de código, o null sin programa
+    public DecodedInstructionCache getDecodedCache() { return decodedCache; }
+    public CPU getCpu() { return cpu; }
+    public Memory getMemory() { return memory; }
+}
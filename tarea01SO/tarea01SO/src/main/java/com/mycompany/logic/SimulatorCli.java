@@ -0,0 +1,444 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package com.mycompany.logic;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Punto de entrada por línea de comandos, sin interfaz gráfica
+ * Uso: SimulatorCli [--memory N] [--os N] [--storage heap|paged|offheap|sparse] [--max N] [--trace NIVEL] archivo.asm...
+ * Con --schedule POLITICA [--quantum N] [--partition N] todos los archivos se ejecutan como procesos en un mismo CPU;
+ * sin --partition cada proceso recibe una parte igual de la memoria de usuario
+ * Con --batch DIRECTORIO|GLOB [--threads N] cada archivo se ejecuta en paralelo con su propia máquina
+ * Con --compile SALIDA.mpi el único archivo .asm se ensambla a una imagen binaria en lugar de ejecutarse
+ * Los archivos .mpi se cargan directamente, sin volver a ensamblar
+ * Con --checkpoint SALIDA.mck el estado final de la ejecución se guarda para retomarla
+ * con --resume ENTRADA.mck (por ejemplo después de cortar con --max); al retomar valen --cache, --stats,
+ * --jit on y --dispatch, pero no --vm, --jit verify ni --optimize, que necesitan el programa desde el principio
+ * Con --vm FIFO|LRU|CLOCK [--frames N] [--page-size N] [--tlb N] los STORE pasan por memoria
+ * virtual paginada (marcos después del programa, intercambio en un archivo temporal) y se muestran sus estadísticas
+ * Con --cache CONJUNTOSxVÍASxLÍNEA[,wt][,random] (repetible: L1, L2...) los STORE pasan por una jerarquía de cachés
+ * Con --stats on se agregan las métricas de ejecución (instrucciones por operación, latencia por paso...)
+ * Con --jit on los bloques se traducen a bytecode la primera vez que se ejecutan (ver BlockCompiler);
+ * con --jit verify además se compara el resultado con el del intérprete
+ * Con --dispatch threaded las instrucciones se ejecutan con manejadores y superinstrucciones en lugar
+ * del switch del CPU (ver ThreadedCode); combinado con --jit, los bloques no traducidos usan los manejadores
+ * Con --optimize on el programa pasa antes por ProgramOptimizer (también al usar --compile);
+ * con --optimize verify además se compara el estado final con el del programa sin optimizar
+ */
+public class SimulatorCli {
+    
+    public static void main(String[] args) {
+        int totalSize = 100;
+        int osSize = 20;
+        MemoryStorage.Type storageType = MemoryStorage.Type.PAGED;
+        long maxInstructions = Long.MAX_VALUE;
+        TraceLevel traceLevel = TraceLevel.OFF;
+        SchedulingPolicy policy = null;
+        int quantum = 2;
+        int partitionSize = 0;
+        String batch = null;
+        int threads = 0;
+        String compileOutput = null;
+        String checkpointOutput = null;
+        String resumeFile = null;
+        PageReplacementPolicy vmPolicy = null;
+        int frames = 4;
+        int pageSize = 4;
+        int tlbEntries = 4;
+        List<String> cacheLevels = new ArrayList<>();
+        boolean showStats = false;
+        String jitMode = "off";
+        boolean threadedDispatch = false;
+        String optimizeMode = "off";
+        int firstFile = 0;
+        
+        try {
+            while (firstFile < args.length && args[firstFile].startsWith("--")) {
+                String option = args[firstFile];
+                if (firstFile + 1 >= args.length) {
+                    throw new IllegalArgumentException("Falta el valor de " + option);
+                }
+                String value = args[firstFile + 1];
+                switch (option) {
+                    case "--memory": totalSize = Integer.parseInt(value); break;
+                    case "--os": osSize = Integer.parseInt(value); break;
+                    case "--storage": storageType = MemoryStorage.Type.fromName(value); break;
+                    case "--max": maxInstructions = Long.parseLong(value); break;
+                    case "--trace": traceLevel = TraceLevel.valueOf(value.toUpperCase()); break;
+                    case "--schedule": policy = SchedulingPolicy.valueOf(value.toUpperCase()); break;
+                    case "--quantum": quantum = Integer.parseInt(value); break;
+                    case "--partition": partitionSize = Integer.parseInt(value); break;
+                    case "--batch": batch = value; break;
+                    case "--threads": threads = Integer.parseInt(value); break;
+                    case "--compile": compileOutput = value; break;
+                    case "--checkpoint": checkpointOutput = value; break;
+                    case "--resume": resumeFile = value; break;
+                    case "--vm": vmPolicy = PageReplacementPolicy.valueOf(value.toUpperCase()); break;
+                    case "--frames": frames = Integer.parseInt(value); break;
+                    case "--page-size": pageSize = Integer.parseInt(value); break;
+                    case "--tlb": tlbEntries = Integer.parseInt(value); break;
+                    case "--cache": cacheLevels.add(value); break;
+                    case "--stats": showStats = parseSwitch(option, value); break;
+                    case "--jit": jitMode = parseMode(option, value); break;
+                    case "--optimize": optimizeMode = parseMode(option, value); break;
+                    case "--dispatch": threadedDispatch = parseDispatch(value); break;
+                    default: throw new IllegalArgumentException("Opción desconocida: " + option);
+                }
+                firstFile += 2;
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println("Error: " + ex.getMessage());
+            printUsage();
+            System.exit(2);
+        }
+        
+        if (vmPolicy == PageReplacementPolicy.OPTIMAL) {
+            // OPTIMAL necesita la traza completa de antemano; no sirve para una ejecución en vivo
+            System.err.println("Error: --vm no admite OPTIMAL");
+            printUsage();
+            System.exit(2);
+        }
+        
+        if (jitMode.equals("verify") && (vmPolicy != null || !cacheLevels.isEmpty())) {
+            // La verificación arma sus propias máquinas con memoria directa
+            System.err.println("Error: --jit verify no se combina con --vm ni --cache");
+            printUsage();
+            System.exit(2);
+        }
+        
+        if (resumeFile != null && (vmPolicy != null || jitMode.equals("verify") || !optimizeMode.equals("off"))) {
+            // El punto de control no guarda la memoria virtual ni el programa sin optimizar
+            System.err.println("Error: --resume no se combina con --vm, --jit verify ni --optimize");
+            printUsage();
+            System.exit(2);
+        }
+        
+        if (batch != null) {
+            System.exit(runBatch(batch, totalSize, osSize, maxInstructions, threads) ? 0 : 1);
+        }
+        
+        if (resumeFile != null) {
+            System.exit(resume(resumeFile, maxInstructions, traceLevel, checkpointOutput, cacheLevels, showStats,
+                               !jitMode.equals("off"), threadedDispatch) ? 0 : 1);
+        }
+        
+        if (firstFile >= args.length) {
+            printUsage();
+            System.exit(2);
+        }
+        
+        if (compileOutput != null) {
+            System.exit(compile(args, firstFile, compileOutput, !optimizeMode.equals("off")) ? 0 : 1);
+        }
+        
+        if (policy != null) {
+            System.exit(runScheduled(args, firstFile, totalSize, osSize, storageType, traceLevel, policy, quantum,
+                                     partitionSize) ? 0 : 1);
+        }
+        
+        boolean allOk = true;
+        for (int i = firstFile; i < args.length; i++) {
+            String filePath = args[i];
+            System.out.println("### " + filePath);
+            try {
+                AssembledProgram program = Assembler.loadProgram(filePath);
+                OptimizedProgram optimized = null;
+                if (!optimizeMode.equals("off")) {
+                    optimized = ProgramOptimizer.optimize(program);
+                    program = optimized.getProgram();
+                    System.out.print(optimized.getReport());
+                }
+                Memory memory = new Memory(totalSize, osSize, storageType);
+                CPU cpu = new CPU(memory);
+                cpu.getTracer().setLevel(traceLevel);
+                Simulator simulator = new Simulator(memory, cpu);
+                BlockCompiler compiler = null;
+                if (!jitMode.equals("off")) {
+                    compiler = new BlockCompiler(0);
+                    simulator.enableCompiler(compiler);
+                }
+                if (threadedDispatch) {
+                    simulator.enableThreadedDispatch();
+                }
+                simulator.load(program);
+                
+                VirtualMemory virtualMemory = null;
+                SwapStore swap = null;
+                if (vmPolicy != null) {
+                    swap = SwapStore.createTemporary(pageSize);
+                    virtualMemory = new VirtualMemory(memory, memory.getUserMemoryStart() + program.size(), frames, pageSize,
+                                                      tlbEntries, Math.min(2, tlbEntries), vmPolicy, swap);
+                    virtualMemory.createAddressSpace(1, totalSize - memory.getUserMemoryStart());
+                    virtualMemory.attach(cpu, 1);
+                }
+                List<Cache> caches = buildCaches(cacheLevels, cpu.getMemoryPort());
+                if (!caches.isEmpty()) {
+                    cpu.setMemoryPort(caches.get(0));
+                }
+                
+                SimulationResult result;
+                try {
+                    result = simulator.run(maxInstructions);
+                } finally {
+                    if (swap != null) {
+                        swap.close();
+                    }
+                }
+                System.out.print(result.getReport());
+                if (showStats) {
+                    System.out.print(simulator.getStats().getReport());
+                }
+                for (Cache cache : caches) {
+                    System.out.print(cache.getStats().getReport());
+                }
+                if (virtualMemory != null) {
+                    System.out.print(virtualMemory.getStats().getReport());
+                }
+                if (compiler != null && showStats) {
+                    System.out.print(compiler.getReport());
+                }
+                if (simulator.getThreadedCode() != null && showStats) {
+                    System.out.print(simulator.getThreadedCode().getReport());
+                }
+                if (jitMode.equals("verify")) {
+                    List<String> differences = BlockCompiler.verify(program, totalSize, osSize, maxInstructions);
+                    System.out.println(differences.isEmpty() ? "Verificación del traductor: OK"
+                                                             : "Verificación del traductor: DIFERENCIAS " + differences);
+                    allOk &= differences.isEmpty();
+                }
+                if (optimizeMode.equals("verify")) {
+                    List<String> differences = ProgramOptimizer.verify(optimized, totalSize, osSize);
+                    System.out.println(differences.isEmpty() ? "Verificación del optimizador: OK"
+                                                             : "Verificación del optimizador: DIFERENCIAS " + differences);
+                    allOk &= differences.isEmpty();
+                }
+                
+                if (result.getStopReason() == SimulationResult.StopReason.ERROR) {
+                    allOk = false;
+                }
+                if (checkpointOutput != null) {
+                    Checkpoint.save(simulator, Paths.get(checkpointOutput), true);
+                    System.out.println("Punto de control guardado en " + checkpointOutput);
+                }
+            } catch (Exception ex) {
+                System.out.println("Error: " + ex.getMessage());
+                allOk = false;
+            }
+        }
+        
+        System.exit(allOk ? 0 : 1);
+    }
+    
+    private static String parseMode(String option, String value) {
+        String mode = value.toLowerCase();
+        if (!mode.equals("on") && !mode.equals("off") && !mode.equals("verify")) {
+            throw new IllegalArgumentException(option + " espera on, off o verify: " + value);
+        }
+        return mode;
+    }
+    
+    /**
+     * true para threaded, false para switch (el intérprete de CPU)
+     */
+    private static boolean parseDispatch(String value) {
+        switch (value.toLowerCase()) {
+            case "threaded": return true;
+            case "switch": return false;
+            default: throw new IllegalArgumentException("--dispatch espera switch o threaded: " + value);
+        }
+    }
+    
+    private static boolean parseSwitch(String option, String value) {
+        switch (value.toLowerCase()) {
+            case "on": return true;
+            case "off": return false;
+            default: throw new IllegalArgumentException(option + " espera on u off: " + value);
+        }
+    }
+    
+    /**
+     * Arma la jerarquía de cachés delante del puerto de memoria
+     * Cada nivel se describe como CONJUNTOSxVÍASxLÍNEA con ",wt" para WRITE_THROUGH y ",random" para reemplazo aleatorio
+     * @return niveles desde L1 hacia la memoria
+     */
+    private static List<Cache> buildCaches(List<String> levels, MemoryPort memoryPort) {
+        Cache[] caches = new Cache[levels.size()];
+        MemoryPort next = memoryPort;
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            String[] parts = levels.get(i).toLowerCase().split(",");
+            String[] geometry = parts[0].split("x");
+            if (geometry.length != 3) {
+                throw new IllegalArgumentException("Caché inválida, se esperaba CONJUNTOSxVÍASxLÍNEA: " + levels.get(i));
+            }
+            Cache.WritePolicy writePolicy = Cache.WritePolicy.WRITE_BACK;
+            Cache.Replacement replacement = Cache.Replacement.LRU;
+            for (int p = 1; p < parts.length; p++) {
+                switch (parts[p]) {
+                    case "wb": writePolicy = Cache.WritePolicy.WRITE_BACK; break;
+                    case "wt": writePolicy = Cache.WritePolicy.WRITE_THROUGH; break;
+                    case "lru": replacement = Cache.Replacement.LRU; break;
+                    case "random": replacement = Cache.Replacement.RANDOM; break;
+                    default: throw new IllegalArgumentException("Opción de caché desconocida: " + parts[p]);
+                }
+            }
+            caches[i] = new Cache("L" + (i + 1), Integer.parseInt(geometry[0]), Integer.parseInt(geometry[1]),
+                                  Integer.parseInt(geometry[2]), writePolicy, replacement, next);
+            next = caches[i];
+        }
+        return List.of(caches);
+    }
+    
+    /**
+     * Ensambla un único archivo y lo guarda como imagen binaria con información de depuración
+     */
+    private static boolean compile(String[] args, int firstFile, String output, boolean optimize) {
+        if (args.length - firstFile != 1) {
+            System.err.println("Error: --compile necesita exactamente un archivo .asm");
+            return false;
+        }
+        try {
+            AssembledProgram program = Assembler.loadProgram(args[firstFile]);
+            if (optimize) {
+                OptimizedProgram optimized = ProgramOptimizer.optimize(program);
+                System.out.print(optimized.getReport());
+                program = optimized.getProgram();
+            }
+            ProgramImage.write(program, Paths.get(output), true);
+            System.out.println(program.size() + " instrucciones escritas en " + output);
+            return true;
+        } catch (Exception ex) {
+            System.out.println("Error: " + ex.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Retoma una ejecución desde un punto de control y opcionalmente guarda otro al terminar
+     * Las cachés y las métricas empiezan vacías: el punto de control no las guarda.
+     */
+    private static boolean resume(String resumeFile, long maxInstructions, TraceLevel traceLevel,
+                                  String checkpointOutput, List<String> cacheLevels, boolean showStats,
+                                  boolean jit, boolean threadedDispatch) {
+        try {
+            Simulator simulator = Checkpoint.restore(Paths.get(resumeFile));
+            CPU cpu = simulator.getCpu();
+            cpu.getTracer().setLevel(traceLevel);
+            BlockCompiler compiler = null;
+            if (jit) {
+                compiler = new BlockCompiler(0);
+                simulator.enableCompiler(compiler);
+            }
+            if (threadedDispatch) {
+                simulator.enableThreadedDispatch();
+            }
+            List<Cache> caches = buildCaches(cacheLevels, cpu.getMemoryPort());
+            if (!caches.isEmpty()) {
+                cpu.setMemoryPort(caches.get(0));
+            }
+            
+            SimulationResult result = simulator.run(maxInstructions);
+            System.out.print(result.getReport());
+            if (showStats) {
+                System.out.print(simulator.getStats().getReport());
+            }
+            for (Cache cache : caches) {
+                System.out.print(cache.getStats().getReport());
+            }
+            if (compiler != null && showStats) {
+                System.out.print(compiler.getReport());
+            }
+            if (simulator.getThreadedCode() != null && showStats) {
+                System.out.print(simulator.getThreadedCode().getReport());
+            }
+            
+            if (checkpointOutput != null) {
+                Checkpoint.save(simulator, Paths.get(checkpointOutput), true);
+                System.out.println("Punto de control guardado en " + checkpointOutput);
+            }
+            return result.getStopReason() != SimulationResult.StopReason.ERROR;
+        } catch (Exception ex) {
+            System.out.println("Error: " + ex.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Ejecuta en paralelo todos los .asm de un directorio o patrón glob
+     */
+    private static boolean runBatch(String dirOrGlob, int totalSize, int osSize, long maxInstructions, int threads) {
+        try {
+            List<Path> files = BatchRunner.findPrograms(dirOrGlob);
+            if (files.isEmpty()) {
+                System.out.println("No se encontraron archivos .asm en " + dirOrGlob);
+                return false;
+            }
+            
+            BatchReport report = new BatchRunner(totalSize, osSize, maxInstructions, threads).run(files);
+            System.out.print(report.getReport());
+            return report.getFailedCount() == 0;
+        } catch (IOException ex) {
+            System.out.println("Error: " + ex.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Carga todos los archivos como procesos y los ejecuta con el planificador
+     */
+    private static boolean runScheduled(String[] args, int firstFile, int totalSize, int osSize,
+                                        MemoryStorage.Type storageType, TraceLevel traceLevel,
+                                        SchedulingPolicy policy, int quantum, int partitionSize) {
+        try {
+            Memory memory = new Memory(totalSize, osSize, storageType);
+            CPU cpu = new CPU(memory);
+            cpu.getTracer().setLevel(traceLevel);
+            Scheduler scheduler = new Scheduler(memory, cpu, policy, quantum);
+            
+            List<String> names = new ArrayList<>();
+            List<AssembledProgram> programs = new ArrayList<>();
+            for (int i = firstFile; i < args.length; i++) {
+                names.add(args[i]);
+                programs.add(Assembler.loadProgram(args[i]));
+            }
+            scheduler.admitAll(names, programs, partitionSize);
+            
+            SchedulerReport report = scheduler.runAll();
+            System.out.print(report.getReport());
+            
+            for (ProcessControlBlock pcb : report.getProcesses()) {
+                if (pcb.getErrorMessage() != null) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception ex) {
+            System.out.println("Error: " + ex.getMessage());
+            return false;
+        }
+    }
+    
+    private static void printUsage() {
+        System.err.println("Uso: SimulatorCli [--memory N] [--os N] [--storage heap|paged|offheap|sparse] [--max N] [--trace OFF|ERROR|INFO|DEBUG] [--stats on|off]");
+        System.err.println("                  [--jit on|off|verify] [--dispatch switch|threaded] [--optimize on|off|verify]");
+        System.err.println("                  [--schedule FCFS|ROUND_ROBIN|SJF|PRIORITY] [--quantum N] [--partition N] archivo.asm...");
+        System.err.println("       SimulatorCli [--memory N] [--os N] [--max N] --batch DIRECTORIO|GLOB [--threads N]");
+        System.err.println("       SimulatorCli [--optimize on] --compile SALIDA.mpi archivo.asm");
+        System.err.println("       SimulatorCli [--max N] [--checkpoint SALIDA.mck] archivo.asm");
+        System.err.println("       SimulatorCli [--max N] [--checkpoint SALIDA.mck] [--cache ...] [--stats on|off] [--jit on|off]");
+        System.err.println("                  [--dispatch switch|threaded] --resume ENTRADA.mck");
+        System.err.println("       SimulatorCli --vm FIFO|LRU|CLOCK [--frames N] [--page-size N] [--tlb N] archivo.asm");
+        System.err.println("       SimulatorCli --cache CONJUNTOSxVÍASxLÍNEA[,wt][,random] [--cache ...] archivo.asm");
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Almacenamiento de memoria disperso: solo guarda las posiciones distintas de 0
+ * Pensado para espacios de direcciones enormes y casi vacíos
+ */
+public class SparseMemoryStorage implements MemoryStorage {
+    private final IntIntHashMap cells = new IntIntHashMap();
+    // Claves de cells en orden para nextNonZero; null si cambiaron desde que se armó
+    private int[] sortedKeys;
+    private int size;
+    
+    public SparseMemoryStorage(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Tamaño de memoria inválido: " + size);
+        }
+        this.size = size;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public int get(int address) {
+        return cells.get(address);
+    }
+    
+    @Override
+    public void set(int address, int value) {
+        // Un 0 no se guarda: así el mapa solo crece con las celdas usadas
+        // (y un valor guardado nunca es 0, así que 0 de vuelta indica que la clave no estaba)
+        if (value == 0) {
+            if (cells.remove(address) != 0) {
+                sortedKeys = null;
+            }
+        } else if (cells.put(address, value) == 0) {
+            sortedKeys = null;
+        }
+    }
+    
+    @Override
+    public void copyFrom(int[] source, int offset, int address, int length) {
+        for (int i = 0; i < length; i++) {
+            set(address + i, source[offset + i]);
+        }
+    }
+    
+    @Override
+    public void copyTo(int address, int[] target, int offset, int length) {
+        // Igual que en nextNonZero: un bloque chico se lee dirección por dirección
+        if (length <= cells.size()) {
+            for (int i = 0; i < length; i++) {
+                target[offset + i] = cells.get(address + i);
+            }
+            return;
+        }
+        Arrays.fill(target, offset, offset + length, 0);
+        cells.forEach((key, value) -> {
+            if (key >= address && key < address + length) {
+                target[offset + key - address] = value;
+            }
+        });
+    }
+    
+    @Override
+    public void clear(int from, int to) {
+        cells.removeRange(from, to);
+        sortedKeys = null;
+    }
+    
+    @Override
+    public int nextNonZero(int from, int to) {
+        // Si el rango es más chico que el mapa conviene consultarlo dirección por dirección
+        if ((long) to - from <= cells.size()) {
+            for (int i = from; i < to; i++) {
+                if (cells.containsKey(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        // Recorrer con nextNonZero(address + 1) arma las claves ordenadas una sola vez
+        if (sortedKeys == null) {
+            long[] entries = cells.sortedEntries(0, Integer.MAX_VALUE);
+            sortedKeys = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                sortedKeys[i] = IntIntHashMap.entryKey(entries[i]);
+            }
+        }
+        int index = Arrays.binarySearch(sortedKeys, from);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < sortedKeys.length && sortedKeys[index] < to ? sortedKeys[index] : -1;
+    }
+    
+    @Override
+    public int countNonZero(int from, int to) {
+        if (from <= 0 && to >= size) {
+            return cells.size();
+        }
+        if ((long) to - from <= cells.size()) {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (cells.containsKey(i)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        int[] count = new int[1];
+        cells.forEach((key, value) -> {
+            if (key >= from && key < to) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+    
+    @Override
+    public void forEachNonZero(int from, int to, CellVisitor visitor) {
+        for (long entry : cells.sortedEntries(from, to)) {
+            visitor.visit(IntIntHashMap.entryKey(entry), IntIntHashMap.entryValue(entry));
+        }
+    }
+    
+    @Override
+    public MemoryStorage resize(int newSize) {
+        if (newSize < size) {
+            cells.removeRange(newSize, size);
+            sortedKeys = null;
+        }
+        size = newSize;
+        return this;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Ensamblador para archivos .asm muy grandes
+ * Mapea el archivo en memoria, lo divide en bloques que terminan en fin de línea y
+ * los parsea en paralelo. Cada bloque recorre los bytes una sola vez, sin expresiones
+ * regulares ni String por línea, y escribe las palabras codificadas en arreglos de int.
+ * Acepta el mismo formato que Assembler: líneas vacías y comentarios (; o //) se ignoran.
+ */
+public class StreamingAssembler {
+    // Tamaño nominal de cada bloque que se parsea en paralelo
+    private static final int CHUNK_SIZE = 8 * 1024 * 1024;
+    // Bytes que se mapean después del final del bloque para terminar su última línea
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+    
+    private StreamingAssembler() {
+    }
+    
+    public static AssembledProgram assembleFile(String filePath) throws IOException {
+        return assembleFile(Paths.get(filePath));
+    }
+    
+    /**
+     * Ensambla un archivo completo
+     * @throws IllegalArgumentException con el número de línea si alguna instrucción es inválida
+     */
+    public static AssembledProgram assembleFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            
+            List<Chunk> chunks = new ArrayList<>();
+            for (long start = 0; start < size; start += CHUNK_SIZE) {
+                chunks.add(new Chunk(channel, start, Math.min(size, start + CHUNK_SIZE), size));
+            }
+            
+            if (chunks.size() == 1) {
+                chunks.get(0).compute();
+            } else {
+                ForkJoinTask.invokeAll(chunks);
+            }
+            
+            return merge(chunks);
+        }
+    }
+    
+    /**
+     * Une los resultados de los bloques y corrige los números de línea
+     */
+    private static AssembledProgram merge(List<Chunk> chunks) throws IOException {
+        int total = 0;
+        int lineOffset = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.ioError != null) {
+                throw chunk.ioError;
+            }
+            if (chunk.errorMessage != null) {
+                throw new IllegalArgumentException(chunk.errorMessage + (lineOffset + chunk.errorLine) + chunk.errorDetail);
+            }
+            total += chunk.count;
+            lineOffset += chunk.lineCount;
+        }
+        
+        if (total == 0) {
+            throw new IllegalArgumentException("El archivo no contiene instrucciones válidas");
+        }
+        
+        int[] words = new int[total];
+        int[] lineNumbers = new int[total];
+        int position = 0;
+        lineOffset = 0;
+        for (Chunk chunk : chunks) {
+            System.arraycopy(chunk.words, 0, words, position, chunk.count);
+            for (int i = 0; i < chunk.count; i++) {
+                lineNumbers[position + i] = lineOffset + chunk.lines[i];
+            }
+            position += chunk.count;
+            lineOffset += chunk.lineCount;
+        }
+        
+        return new AssembledProgram(words, null, lineNumbers);
+    }
+    
+    /**
+     * Bloque del archivo que se parsea en un hilo
+     * Procesa las líneas que empiezan dentro de [start, end), aunque terminen después de end.
+     * Solo se mapea hasta MAX_LINE_LENGTH bytes después de end; una línea más larga es un error.
+     */
+    private static final class Chunk extends RecursiveAction {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final long fileSize;
+        
+        int[] words = new int[1024];
+        int[] lines = new int[1024];
+        int count;
+        int lineCount;
+        String errorMessage;
+        String errorDetail;
+        int errorLine;
+        IOException ioError;
+        
+        Chunk(FileChannel channel, long start, long end, long fileSize) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.fileSize = fileSize;
+        }
+        
+        @Override
+        protected void compute() {
+            try {
+                // Se mapea desde el byte anterior para saber si el bloque empieza en un inicio de línea
+                long mapStart = Math.max(0, start - 1);
+                long mapEnd = Math.min(fileSize, end + MAX_LINE_LENGTH);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+                parse(buffer, (int) (start - mapStart), (int) (end - mapStart), (int) (mapEnd - mapStart), mapEnd == fileSize);
+            } catch (IOException ex) {
+                ioError = ex;
+            }
+        }
+        
+        /**
+         * @param size bytes mapeados
+         * @param toEndOfFile true si lo mapeado llega al final del archivo
+         */
+        private void parse(MappedByteBuffer buffer, int position, int limit, int size, boolean toEndOfFile) {
+            // Si el bloque empieza a mitad de una línea, esa línea pertenece al bloque anterior
+            if (position > 0 && buffer.get(position - 1) != '\n') {
+                while (position < size && buffer.get(position) != '\n') {
+                    position++;
+                }
+                position++;
+            }
+            
+            while (position < limit) {
+                int lineEnd = position;
+                while (lineEnd < size && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                lineCount++;
+                if (lineEnd == size && !toEndOfFile) {
+                    fail("Error en línea ", ": la línea supera " + MAX_LINE_LENGTH + " bytes");
+                    return;
+                }
+                if (!parseLine(buffer, position, lineEnd)) {
+                    return;
+                }
+                position = lineEnd + 1;
+            }
+        }
+        
+        /**
+         * Parsea una línea [from, to) sin crear objetos, salvo para reportar un error
+         * @return false si la línea es inválida (el error queda guardado)
+         */
+        private boolean parseLine(MappedByteBuffer buffer, int from, int to) {
+            // Equivalente a trim(): descarta espacios y caracteres de control en los extremos
+            while (from < to && (buffer.get(from) & 0xFF) <= ' ') {
+                from++;
+            }
+            while (to > from && (buffer.get(to - 1) & 0xFF) <= ' ') {
+                to--;
+            }
+            if (from == to) {
+                return true;
+            }
+            
+            byte first = buffer.get(from);
+            if (first == ';' || (first == '/' && to - from > 1 && buffer.get(from + 1) == '/')) {
+                return true;
+            }
+            
+            // Operación
+            int tokenEnd = skipToken(buffer, from, to);
+            int opCode = matchOperation(buffer, from, tokenEnd - from);
+            int position = skipSeparators(buffer, tokenEnd, to);
+            
+            // Registro
+            tokenEnd = skipToken(buffer, position, to);
+            int regCode = matchRegister(buffer, position, tokenEnd - position);
+            position = skipSeparators(buffer, tokenEnd, to);
+            
+            if (opCode < 0 || regCode < 0) {
+                return fail("Formato inválido en línea ", ": " + text(buffer, from, to));
+            }
+            
+            // Valor opcional; los tokens siguientes se ignoran
+            int value = 0;
+            if (position < to) {
+                tokenEnd = skipToken(buffer, position, to);
+                long parsed = parseInt(buffer, position, tokenEnd);
+                if (parsed == Long.MIN_VALUE) {
+                    return fail("Formato inválido en línea ", ": " + text(buffer, from, to));
+                }
+                value = (int) parsed;
+            }
+            
+            int immediate = 0;
+            if (opCode == Instruction.OP_MOV && value != 0) {
+                if (value < Instruction.MIN_IMMEDIATE || value > Instruction.MAX_IMMEDIATE) {
+                    return fail("Error en línea ", ": Valor inmediato fuera de rango: " + value);
+                }
+                immediate = value;
+            }
+            
+            if (count == words.length) {
+                words = Arrays.copyOf(words, count * 2);
+                lines = Arrays.copyOf(lines, count * 2);
+            }
+            words[count] = Instruction.encode(opCode, regCode, immediate);
+            lines[count] = lineCount;
+            count++;
+            return true;
+        }
+        
+        private boolean fail(String message, String detail) {
+            errorMessage = message;
+            errorDetail = detail;
+            errorLine = lineCount;
+            return false;
+        }
+        
+        private static boolean isSeparator(byte b) {
+            return b == ' ' || b == ',';
+        }
+        
+        private static int skipToken(MappedByteBuffer buffer, int position, int to) {
+            while (position < to && !isSeparator(buffer.get(position))) {
+                position++;
+            }
+            return position;
+        }
+        
+        private static int skipSeparators(MappedByteBuffer buffer, int position, int to) {
+            while (position < to && isSeparator(buffer.get(position))) {
+                position++;
+            }
+            return position;
+        }
+        
+        /**
+         * Letra en mayúscula (solo para ASCII)
+         */
+        private static int upper(MappedByteBuffer buffer, int position) {
+            int c = buffer.get(position) & 0xFF;
+            return c >= 'a' && c <= 'z' ? c - 32 : c;
+        }
+        
+        private static int matchOperation(MappedByteBuffer buffer, int from, int length) {
+            if (length == 3) {
+                int a = upper(buffer, from), b = upper(buffer, from + 1), c = upper(buffer, from + 2);
+                if (a == 'M' && b == 'O' && c == 'V') return Instruction.OP_MOV;
+                if (a == 'S' && b == 'U' && c == 'B') return Instruction.OP_SUB;
+                if (a == 'A' && b == 'D' && c == 'D') return Instruction.OP_ADD;
+            } else if (length == 4) {
+                if (upper(buffer, from) == 'L' && upper(buffer, from + 1) == 'O'
+                        && upper(buffer, from + 2) == 'A' && upper(buffer, from + 3) == 'D') {
+                    return Instruction.OP_LOAD;
+                }
+            } else if (length == 5) {
+                if (upper(buffer, from) == 'S' && upper(buffer, from + 1) == 'T' && upper(buffer, from + 2) == 'O'
+                        && upper(buffer, from + 3) == 'R' && upper(buffer, from + 4) == 'E') {
+                    return Instruction.OP_STORE;
+                }
+            }
+            return -1;
+        }
+        
+        private static int matchRegister(MappedByteBuffer buffer, int from, int length) {
+            if (length != 2 || upper(buffer, from + 1) != 'X') {
+                return -1;
+            }
+            switch (upper(buffer, from)) {
+                case 'A': return Instruction.REG_AX;
+                case 'B': return Instruction.REG_BX;
+                case 'C': return Instruction.REG_CX;
+                case 'D': return Instruction.REG_DX;
+                default: return -1;
+            }
+        }
+        
+        /**
+         * Igual que Integer.parseInt para dígitos ASCII
+         * @return el valor, o Long.MIN_VALUE si el token no es un entero válido
+         */
+        private static long parseInt(MappedByteBuffer buffer, int from, int to) {
+            boolean negative = false;
+            int position = from;
+            byte sign = buffer.get(position);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                position++;
+            }
+            if (position == to) {
+                return Long.MIN_VALUE;
+            }
+            
+            long value = 0;
+            for (; position < to; position++) {
+                int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    return Long.MIN_VALUE;
+                }
+                value = value * 10 + digit;
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    return Long.MIN_VALUE;
+                }
+            }
+            
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                return Long.MIN_VALUE;
+            }
+            return value;
+        }
+        
+        private static String text(MappedByteBuffer buffer, int from, int to) {
+            byte[] bytes = new byte[to - from];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(from + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Área de intercambio en archivo para las páginas que salen de memoria física
+ * El archivo se divide en ranuras de una página; las ranuras liberadas se reutilizan
+ */
+public class SwapStore implements Closeable {
+    private final FileChannel channel;
+    private final int pageSize;
+    private final ByteBuffer buffer;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int nextSlot;
+    
+    /**
+     * @param pageSize cantidad de posiciones (enteros) por página
+     */
+    public SwapStore(Path file, int pageSize) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                              StandardOpenOption.TRUNCATE_EXISTING), pageSize);
+    }
+    
+    private SwapStore(FileChannel channel, int pageSize) {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.buffer = ByteBuffer.allocateDirect(pageSize * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     * Crea un área de intercambio en un archivo temporal que se borra al cerrarla
+     */
+    public static SwapStore createTemporary(int pageSize) throws IOException {
+        Path file = Files.createTempFile("swap", ".bin");
+        return new SwapStore(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                              StandardOpenOption.DELETE_ON_CLOSE), pageSize);
+    }
+    
+    /**
+     * Reserva una ranura para una página
+     */
+    public int allocate() {
+        return freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+    }
+    
+    /**
+     * Devuelve una ranura para reutilizarla
+     */
+    public void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+    
+    public void write(int slot, int[] page) throws IOException {
+        buffer.clear();
+        buffer.asIntBuffer().put(page, 0, pageSize);
+        long position = (long) slot * pageSize * Integer.BYTES;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+    
+    public void read(int slot, int[] page) throws IOException {
+        buffer.clear();
+        long position = (long) slot * pageSize * Integer.BYTES;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                // Ranura nunca escrita completa: el resto se lee como ceros
+                while (buffer.hasRemaining()) {
+                    buffer.put((byte) 0);
+                }
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+        buffer.asIntBuffer().get(page, 0, pageSize);
+    }
+    
+    public int getPageSize() { return pageSize; }
+    public int getSlotsInUse() { return nextSlot - freeCount; }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
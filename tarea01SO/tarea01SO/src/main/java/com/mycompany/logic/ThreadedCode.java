@@ -0,0 +1,448 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Región de código traducida a un arreglo de manejadores, uno por dirección
+ * Cada manejador es un objeto chico con la operación y los registros ya resueltos, así que ejecutarlo
+ * no pasa por el switch de CPU.dispatch y la JVM puede compilar su cuerpo completo. Las secuencias
+ * frecuentes se funden en superinstrucciones que ejecutan varias instrucciones en una sola llamada:
+ * MOV r, n + LOAD r, LOAD + ADD + STORE, LOAD + ADD y LOAD + SUB.
+ *
+ * Como este CPU no tiene saltos, el manejador de cada dirección es la superinstrucción más larga que
+ * empieza en ella. Los manejadores se arman al conectar la región (attach), con las palabras que
+ * Simulator.load acaba de cargar en la DecodedInstructionCache, siguiendo el orden de ejecución: las
+ * posiciones que quedan dentro de una superinstrucción no se arman hasta que la ejecución entra por
+ * ellas (por ejemplo después de un error o de invalidate). Una escritura en la región descarta los
+ * manejadores que la leyeron y se vuelven a armar al llegar a ellos. Al cargar otra vez una región del
+ * mismo tamaño se conservan los manejadores cuyas palabras siguen en la memoria, sea cual sea el programa.
+ */
+public class ThreadedCode {
+    // Instrucciones de la superinstrucción más larga; una escritura invalida hasta MAX_FUSED - 1 manejadores antes
+    static final int MAX_FUSED = 3;
+    
+    private DecodedInstructionCache code;
+    // Manejadores de una sola instrucción sin inmediato, indexados por la palabra (entra en 8 bits);
+    // no guardan estado, así que todas las posiciones y regiones los comparten
+    private static final Handler[] SINGLES = new Handler[256];
+    
+    // null = sin armar
+    private Handler[] handlers = new Handler[0];
+    // Instrucciones por código de operación desde la última llamada a run
+    private final long[] opcodeCounts = new long[16];
+    private long builtHandlers;
+    private long fusedHandlers;
+    
+    /**
+     * Una o más instrucciones consecutivas ya decodificadas
+     */
+    abstract static class Handler {
+        final int[] words;
+        
+        Handler(int... words) {
+            this.words = words;
+        }
+        
+        /**
+         * @param counts instrucciones ejecutadas por código de operación; se suman las que se completaron
+         * @return instrucciones completadas; menos que words.length si un STORE falló
+         */
+        abstract int execute(int[] registers, CPU cpu, long[] counts);
+    }
+    
+    /**
+     * Pasa a ejecutar la región de código indicada y arma sus manejadores (ver Simulator.load y Simulator.restore)
+     * Los manejadores que ya había se conservan si sus palabras siguen en la memoria.
+     */
+    void attach(DecodedInstructionCache code) {
+        int base = code.getBase();
+        if (handlers.length != code.getSize()) {
+            handlers = new Handler[code.getSize()];
+        } else {
+            for (int slot = 0; slot < handlers.length; slot++) {
+                Handler handler = handlers[slot];
+                if (handler != null && !matches(handler, code, base + slot)) {
+                    handlers[slot] = null;
+                }
+            }
+        }
+        this.code = code;
+        
+        // Desde el principio, saltando lo que cubre cada superinstrucción, como avanza run
+        int slot = 0;
+        while (slot < handlers.length) {
+            Handler handler = handlers[slot];
+            if (handler == null) {
+                handler = build(slot);
+            }
+            slot += handler.words.length;
+        }
+        code.watchHandlers(this);
+    }
+    
+    private static boolean matches(Handler handler, DecodedInstructionCache code, int address) {
+        for (int i = 0; i < handler.words.length; i++) {
+            if (code.decode(address + i) != handler.words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Ejecuta manejadores desde una posición de la región mientras no falle ninguno
+     * Deja PC e IR como los dejaría el intérprete. Una instrucción inválida o un STORE que falla no se
+     * ejecutan aquí: quedan para el intérprete, que produce el error.
+     * @param slot posición de la primera instrucción (dirección - base)
+     * @param end posición donde hay que detenerse; no se empieza un manejador que la cruce
+     * @return instrucciones ejecutadas
+     */
+    int run(CPU cpu, int slot, int end, long budget, ExecutionCounters counters) {
+        int[] registers = cpu.registerFile();
+        long[] counts = opcodeCounts;
+        int base = code.getBase();
+        int start = slot;
+        int limit = budget >= end - slot ? end : slot + (int) budget;
+        int lastWord = 0;
+        
+        while (slot < limit) {
+            Handler handler = handlers[slot];
+            if (handler == null) {
+                handler = build(slot);
+            }
+            if (slot + handler.words.length > limit) {
+                break;
+            }
+            int completed = handler.execute(registers, cpu, counts);
+            if (completed > 0) {
+                lastWord = handler.words[completed - 1];
+                slot += completed;
+            }
+            if (completed < handler.words.length) {
+                break;
+            }
+        }
+        
+        if (slot > start) {
+            cpu.setPC(base + slot);
+            cpu.setIR(lastWord & 0xFF);
+            counters.recordBlock(counts);
+            Arrays.fill(counts, 0);
+        }
+        return slot - start;
+    }
+    
+    /**
+     * Arma el manejador de una posición con las palabras que hay ahora en la memoria
+     */
+    private Handler build(int slot) {
+        int base = code.getBase();
+        int first = code.decode(base + slot);
+        int second = slot + 1 < handlers.length ? code.decode(base + slot + 1) : 0;
+        int third = slot + 2 < handlers.length ? code.decode(base + slot + 2) : 0;
+        
+        Handler handler = fuse(first, second, third);
+        if (handler != null) {
+            fusedHandlers++;
+        } else if (first >= 0 && first < SINGLES.length) {
+            handler = SINGLES[first];
+            if (handler == null) {
+                handler = single(first);
+                SINGLES[first] = handler;
+            }
+        } else {
+            handler = single(first);
+        }
+        handlers[slot] = handler;
+        builtHandlers++;
+        return handler;
+    }
+    
+    /**
+     * Superinstrucción que empieza con first, o null si la secuencia no es una de las fundidas
+     * Una palabra inválida (o 0 al final de la región) nunca coincide con un patrón.
+     */
+    private static Handler fuse(int first, int second, int third) {
+        if (!isValid(first) || !isValid(second)) {
+            return null;
+        }
+        int op1 = (first >>> 4) & 0xF;
+        int op2 = (second >>> 4) & 0xF;
+        if (op1 == Instruction.OP_MOV && op2 == Instruction.OP_LOAD && (first & 0xF) == (second & 0xF)) {
+            return new MovLoad(first, second);
+        }
+        if (op1 != Instruction.OP_LOAD) {
+            return null;
+        }
+        if (op2 == Instruction.OP_ADD) {
+            if (isValid(third) && ((third >>> 4) & 0xF) == Instruction.OP_STORE) {
+                return new LoadAddStore(first, second, third);
+            }
+            return new LoadAdd(first, second);
+        }
+        if (op2 == Instruction.OP_SUB) {
+            return new LoadSub(first, second);
+        }
+        return null;
+    }
+    
+    private static Handler single(int word) {
+        if (!isValid(word)) {
+            return new Invalid(word);
+        }
+        switch ((word >>> 4) & 0xF) {
+            case Instruction.OP_LOAD: return new Load(word);
+            case Instruction.OP_STORE: return new Store(word);
+            case Instruction.OP_MOV: return (word >> 8) != 0 ? new MovImmediate(word) : new MovAccumulator(word);
+            case Instruction.OP_SUB: return new Sub(word);
+            default: return new Add(word);
+        }
+    }
+    
+    private static boolean isValid(int word) {
+        int regCode = word & 0xF;
+        return Instruction.operationName((word >>> 4) & 0xF) != null
+               && regCode >= Instruction.REG_AX && regCode <= Instruction.REG_DX;
+    }
+    
+    /**
+     * STORE con las mismas comprobaciones que CPU.executeStore
+     * @return false si la dirección está fuera de la partición o la memoria rechazó la escritura
+     */
+    static boolean store(int[] registers, CPU cpu, int register) {
+        int ac = registers[0];
+        int memoryBase = cpu.getMemoryBase();
+        int address = memoryBase + registers[register];
+        if (address < memoryBase || address >= cpu.getMemoryLimit() || !cpu.writeData(address, ac)) {
+            return false;
+        }
+        registers[register] = ac;
+        return true;
+    }
+    
+    /**
+     * Descarta los manejadores que leyeron alguna posición de [first, last] (ver DecodedInstructionCache.invalidate)
+     */
+    void invalidate(int first, int last) {
+        Arrays.fill(handlers, Math.max(0, first - (MAX_FUSED - 1)), last + 1, null);
+    }
+    
+    void invalidateAll() {
+        Arrays.fill(handlers, null);
+    }
+    
+    public String getReport() {
+        return String.format("=== MANEJADORES ===%nManejadores armados: %d  Superinstrucciones: %d%n",
+                             builtHandlers, fusedHandlers);
+    }
+    
+    public long getBuiltHandlers() { return builtHandlers; }
+    public long getFusedHandlers() { return fusedHandlers; }
+    
+    private static final class Load extends Handler {
+        private final int register;
+        
+        Load(int word) {
+            super(word);
+            register = word & 0xF;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            registers[0] = registers[register];
+            counts[Instruction.OP_LOAD]++;
+            return 1;
+        }
+    }
+    
+    private static final class Store extends Handler {
+        private final int register;
+        
+        Store(int word) {
+            super(word);
+            register = word & 0xF;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            if (!store(registers, cpu, register)) {
+                return 0;
+            }
+            counts[Instruction.OP_STORE]++;
+            return 1;
+        }
+    }
+    
+    private static final class MovImmediate extends Handler {
+        private final int register;
+        private final int immediate;
+        
+        MovImmediate(int word) {
+            super(word);
+            register = word & 0xF;
+            immediate = word >> 8;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            registers[register] = immediate;
+            counts[Instruction.OP_MOV]++;
+            return 1;
+        }
+    }
+    
+    // MOV reg sin valor: copia el AC
+    private static final class MovAccumulator extends Handler {
+        private final int register;
+        
+        MovAccumulator(int word) {
+            super(word);
+            register = word & 0xF;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            registers[register] = registers[0];
+            counts[Instruction.OP_MOV]++;
+            return 1;
+        }
+    }
+    
+    private static final class Add extends Handler {
+        private final int register;
+        
+        Add(int word) {
+            super(word);
+            register = word & 0xF;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            registers[0] += registers[register];
+            counts[Instruction.OP_ADD]++;
+            return 1;
+        }
+    }
+    
+    private static final class Sub extends Handler {
+        private final int register;
+        
+        Sub(int word) {
+            super(word);
+            register = word & 0xF;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            registers[0] -= registers[register];
+            counts[Instruction.OP_SUB]++;
+            return 1;
+        }
+    }
+    
+    // Palabra que no es una instrucción: el intérprete la ejecuta para producir el error
+    private static final class Invalid extends Handler {
+        Invalid(int word) {
+            super(word);
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            return 0;
+        }
+    }
+    
+    // MOV r, n + LOAD r: r y AC quedan con el valor (con n = 0, MOV copia el AC y LOAD no lo cambia)
+    private static final class MovLoad extends Handler {
+        private final int register;
+        private final int immediate;
+        
+        MovLoad(int mov, int load) {
+            super(mov, load);
+            register = mov & 0xF;
+            immediate = mov >> 8;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            int value = immediate != 0 ? immediate : registers[0];
+            registers[register] = value;
+            registers[0] = value;
+            counts[Instruction.OP_MOV]++;
+            counts[Instruction.OP_LOAD]++;
+            return 2;
+        }
+    }
+    
+    private static final class LoadAdd extends Handler {
+        private final int loaded;
+        private final int added;
+        
+        LoadAdd(int load, int add) {
+            super(load, add);
+            loaded = load & 0xF;
+            added = add & 0xF;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            registers[0] = registers[loaded] + registers[added];
+            counts[Instruction.OP_LOAD]++;
+            counts[Instruction.OP_ADD]++;
+            return 2;
+        }
+    }
+    
+    private static final class LoadSub extends Handler {
+        private final int loaded;
+        private final int subtracted;
+        
+        LoadSub(int load, int sub) {
+            super(load, sub);
+            loaded = load & 0xF;
+            subtracted = sub & 0xF;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            registers[0] = registers[loaded] - registers[subtracted];
+            counts[Instruction.OP_LOAD]++;
+            counts[Instruction.OP_SUB]++;
+            return 2;
+        }
+    }
+    
+    private static final class LoadAddStore extends Handler {
+        private final int loaded;
+        private final int added;
+        private final int stored;
+        
+        LoadAddStore(int load, int add, int store) {
+            super(load, add, store);
+            loaded = load & 0xF;
+            added = add & 0xF;
+            stored = store & 0xF;
+        }
+        
+        @Override
+        int execute(int[] registers, CPU cpu, long[] counts) {
+            registers[0] = registers[loaded] + registers[added];
+            counts[Instruction.OP_LOAD]++;
+            counts[Instruction.OP_ADD]++;
+            if (!store(registers, cpu, stored)) {
+                return 2;
+            }
+            counts[Instruction.OP_STORE]++;
+            return 3;
+        }
+    }
+}
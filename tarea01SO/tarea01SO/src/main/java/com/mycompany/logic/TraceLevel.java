@@ -0,0 +1,21 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Niveles de trazas, de menor a mayor detalle
+ * OFF apaga tanto los mensajes como el registro en el buffer circular
+ */
+public enum TraceLevel {
+    OFF,
+    ERROR,
+    INFO,
+    DEBUG
+}
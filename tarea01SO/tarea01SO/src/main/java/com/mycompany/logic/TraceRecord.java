@@ -0,0 +1,51 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Registro estructurado de una instrucción ejecutada, copiado desde el buffer del Tracer
+ */
+public class TraceRecord {
+    private final long sequence;
+    private final int pc;
+    private final int ir;
+    private final int opCode;
+    private final int regCode;
+    private final int acBefore;
+    private final int acAfter;
+    private final boolean success;
+    
+    TraceRecord(long sequence, int pc, int ir, int opCode, int regCode, int acBefore, int acAfter, boolean success) {
+        this.sequence = sequence;
+        this.pc = pc;
+        this.ir = ir;
+        this.opCode = opCode;
+        this.regCode = regCode;
+        this.acBefore = acBefore;
+        this.acAfter = acAfter;
+        this.success = success;
+    }
+    
+    // Getters
+    public long getSequence() { return sequence; }
+    public int getPC() { return pc; }
+    public int getIR() { return ir; }
+    public int getOpCode() { return opCode; }
+    public int getRegCode() { return regCode; }
+    public int getAcBefore() { return acBefore; }
+    public int getAcAfter() { return acAfter; }
+    public boolean isSuccess() { return success; }
+    
+    @Override
+    public String toString() {
+        return "#" + sequence + " PC=" + pc + " IR=" + ir + " op=" + opCode + " reg=" + regCode
+            + " AC: " + acBefore + " -> " + acAfter + (success ? "" : " (ERROR)");
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Subsistema de trazas del simulador
+ * Los mensajes se construyen solo si su nivel está activo y se envían a un Sink reemplazable.
+ * Además guarda las últimas instrucciones ejecutadas en un buffer circular sin bloqueos,
+ * que se puede volcar a pedido o automáticamente cuando ocurre un error.
+ */
+public class Tracer {
+    
+    /**
+     * Destino de los mensajes de traza
+     */
+    public interface Sink {
+        void write(TraceLevel level, String message);
+    }
+    
+    public static final int DEFAULT_CAPACITY = 1024;
+    
+    // Destino por defecto: la consola, como hacía el simulador originalmente
+    private static final Sink CONSOLE = (level, message) -> System.out.println(message);
+    
+    private volatile TraceLevel level;
+    private volatile Sink sink = CONSOLE;
+    private volatile boolean dumpOnError = true;
+    
+    // Buffer circular: cada campo en su propio arreglo primitivo, indexado por slot
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Ring ring;
+    
+    /**
+     * Crea un tracer con el nivel indicado en la propiedad "simulator.trace" (OFF si no existe)
+     */
+    public Tracer() {
+        this(levelFromProperty(), DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * @param level nivel inicial
+     * @param capacity cantidad de registros del buffer (se redondea a potencia de 2)
+     */
+    public Tracer(TraceLevel level, int capacity) {
+        this.level = level;
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.mask = this.capacity - 1;
+    }
+    
+    private static TraceLevel levelFromProperty() {
+        String value = System.getProperty("simulator.trace");
+        if (value == null) {
+            return TraceLevel.OFF;
+        }
+        try {
+            return TraceLevel.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return TraceLevel.OFF;
+        }
+    }
+    
+    /**
+     * Indica si los mensajes del nivel dado se emiten
+     */
+    public boolean isEnabled(TraceLevel messageLevel) {
+        TraceLevel current = level;
+        return current != TraceLevel.OFF && messageLevel.ordinal() <= current.ordinal();
+    }
+    
+    /**
+     * Emite un mensaje; el texto solo se construye si el nivel está activo
+     */
+    public void log(TraceLevel messageLevel, Supplier<String> message) {
+        if (isEnabled(messageLevel)) {
+            sink.write(messageLevel, message.get());
+        }
+    }
+    
+    public void debug(Supplier<String> message) { log(TraceLevel.DEBUG, message); }
+    public void info(Supplier<String> message) { log(TraceLevel.INFO, message); }
+    public void error(Supplier<String> message) { log(TraceLevel.ERROR, message); }
+    
+    /**
+     * Avisa que una instrucción falló: si está configurado, vuelca el buffer de instrucciones recientes
+     */
+    public void onError() {
+        if (dumpOnError && isEnabled(TraceLevel.ERROR)) {
+            dump();
+        }
+    }
+    
+    /**
+     * Guarda una instrucción ejecutada en el buffer circular
+     * Varios hilos pueden registrar a la vez: cada uno reserva su slot con un contador atómico.
+     */
+    public void record(int pc, int ir, int opCode, int regCode, int acBefore, int acAfter, boolean success) {
+        if (level == TraceLevel.OFF) {
+            return;
+        }
+        
+        Ring r = ring;
+        if (r == null) {
+            r = initRing();
+        }
+        
+        long seq = sequence.getAndIncrement();
+        int slot = (int) (seq & mask);
+        
+        // El slot queda inválido mientras se escriben los campos y se publica al final
+        r.stamps.set(slot, 0);
+        VarHandle.storeStoreFence();
+        r.pcs[slot] = pc;
+        r.irs[slot] = ir;
+        r.ops[slot] = opCode;
+        r.regs[slot] = regCode;
+        r.acBefore[slot] = acBefore;
+        r.acAfter[slot] = acAfter;
+        r.success[slot] = success;
+        r.stamps.lazySet(slot, seq + 1);
+    }
+    
+    private synchronized Ring initRing() {
+        if (ring == null) {
+            ring = new Ring(capacity);
+        }
+        return ring;
+    }
+    
+    /**
+     * Copia los registros disponibles del buffer, del más antiguo al más reciente
+     * Los slots que se estén sobrescribiendo durante la copia se omiten.
+     */
+    public List<TraceRecord> snapshot() {
+        List<TraceRecord> records = new ArrayList<>();
+        Ring r = ring;
+        if (r == null) {
+            return records;
+        }
+        
+        long end = sequence.get();
+        long start = Math.max(0, end - capacity);
+        
+        for (long seq = start; seq < end; seq++) {
+            int slot = (int) (seq & mask);
+            long stamp = r.stamps.get(slot);
+            if (stamp != seq + 1) {
+                continue;
+            }
+            TraceRecord record = new TraceRecord(seq, r.pcs[slot], r.irs[slot], r.ops[slot], r.regs[slot],
+                                                 r.acBefore[slot], r.acAfter[slot], r.success[slot]);
+            VarHandle.loadLoadFence();
+            if (r.stamps.get(slot) == stamp) {
+                records.add(record);
+            }
+        }
+        
+        return records;
+    }
+    
+    /**
+     * Vuelca el buffer al Sink actual
+     */
+    public void dump() {
+        Sink target = sink;
+        List<TraceRecord> records = snapshot();
+        target.write(TraceLevel.ERROR, "=== TRAZA: últimas " + records.size() + " instrucciones ===");
+        for (TraceRecord record : records) {
+            target.write(TraceLevel.ERROR, record.toString());
+        }
+    }
+    
+    /**
+     * Descarta los registros guardados
+     */
+    public void clear() {
+        Ring r = ring;
+        if (r != null) {
+            for (int i = 0; i < capacity; i++) {
+                r.stamps.set(i, 0);
+            }
+        }
+    }
+    
+    // Getters y setters
+    public TraceLevel getLevel() { return level; }
+    public void setLevel(TraceLevel level) { this.level = level; }
+    public void setSink(Sink sink) { this.sink = sink != null ? sink : CONSOLE; }
+    public void setDumpOnError(boolean dumpOnError) { this.dumpOnError = dumpOnError; }
+    public int getCapacity() { return capacity; }
+    public long getRecordedCount() { return sequence.get(); }
+    
+    /**
+     * Arreglos del buffer circular; se crean recién al registrar la primera instrucción
+     */
+    private static final class Ring {
+        final AtomicLongArray stamps;
+        final int[] pcs;
+        final int[] irs;
+        final int[] ops;
+        final int[] regs;
+        final int[] acBefore;
+        final int[] acAfter;
+        final boolean[] success;
+        
+        Ring(int capacity) {
+            stamps = new AtomicLongArray(capacity);
+            pcs = new int[capacity];
+            irs = new int[capacity];
+            ops = new int[capacity];
+            regs = new int[capacity];
+            acBefore = new int[capacity];
+            acAfter = new int[capacity];
+            success = new boolean[capacity];
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Bitácora circular de cambios por instrucción, sobre arreglos primitivos de tamaño fijo
+ * Cada entrada guarda lo necesario para deshacer un paso: el registro modificado y su valor anterior,
+ * la dirección escrita por STORE y su valor anterior, y el IR anterior
+ * Al llenarse se descartan las entradas más viejas, así la memoria usada no crece con la ejecución
+ */
+public class UndoJournal {
+    public static final int NO_REGISTER = -1;
+    public static final int NO_ADDRESS = -1;
+    
+    private final int[] registerCodes;
+    private final int[] oldRegisterValues;
+    private final int[] addresses;
+    private final int[] oldMemoryValues;
+    private final int[] oldIRs;
+    private int head; // posición donde va la próxima entrada
+    private int size;
+    
+    public UndoJournal(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad de la bitácora debe ser positiva: " + capacity);
+        }
+        registerCodes = new int[capacity];
+        oldRegisterValues = new int[capacity];
+        addresses = new int[capacity];
+        oldMemoryValues = new int[capacity];
+        oldIRs = new int[capacity];
+    }
+    
+    /**
+     * Agrega el cambio de un paso, pisando el más viejo si la bitácora está llena
+     * @param registerCode registro modificado (0 = AC) o NO_REGISTER
+     * @param address dirección escrita o NO_ADDRESS
+     */
+    public void record(int registerCode, int oldRegisterValue, int address, int oldMemoryValue, int oldIR) {
+        registerCodes[head] = registerCode;
+        oldRegisterValues[head] = oldRegisterValue;
+        addresses[head] = address;
+        oldMemoryValues[head] = oldMemoryValue;
+        oldIRs[head] = oldIR;
+        head = (head + 1) % registerCodes.length;
+        if (size < registerCodes.length) {
+            size++;
+        }
+    }
+    
+    /**
+     * Quita la entrada más nueva
+     * @return posición de la entrada para leerla con los getters, válida hasta el próximo record
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("La bitácora está vacía");
+        }
+        head = (head - 1 + registerCodes.length) % registerCodes.length;
+        size--;
+        return head;
+    }
+    
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+    
+    public int size() { return size; }
+    public int capacity() { return registerCodes.length; }
+    public boolean isEmpty() { return size == 0; }
+    
+    public int getRegisterCode(int slot) { return registerCodes[slot]; }
+    public int getOldRegisterValue(int slot) { return oldRegisterValues[slot]; }
+    public int getAddress(int slot) { return addresses[slot]; }
+    public int getOldMemoryValue(int slot) { return oldMemoryValues[slot]; }
+    public int getOldIR(int slot) { return oldIRs[slot]; }
+}
@@ -0,0 +1,504 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Memoria virtual paginada sobre la memoria física
+ * Cada proceso (identificado por su ASID) tiene su propio espacio de direcciones y tabla de páginas.
+ * Las páginas residentes ocupan marcos de un rango reservado de la memoria física; cuando no hay
+ * marcos libres la política de reemplazo elige una víctima, que se guarda en el área de intercambio
+ * si fue modificada.
+ *
+ * La traducción pasa primero por una TLB asociativa por conjuntos con entradas etiquetadas por ASID,
+ * así un cambio de proceso no obliga a vaciarla. Un acierto en la TLB solo recorre unos pocos
+ * enteros de arreglos primitivos.
+ *
+ * Para usarla con el CPU ver attach: las direcciones de STORE pasan a ser virtuales (desde 0).
+ */
+public class VirtualMemory implements MemoryPort {
+    private static final long INVALID_KEY = -1L;
+    
+    private final Memory physical;
+    private final int frameBase;
+    private final int frameCount;
+    private final int pageSize;
+    private final int pageShift;
+    private final int offsetMask;
+    private final PageReplacementPolicy policy;
+    private final SwapStore swap;
+    
+    // TLB: tlbSets conjuntos de tlbWays entradas; clave = (asid << 32) | página
+    private final int tlbSets;
+    private final int tlbWays;
+    private final long[] tlbKeys;
+    private final int[] tlbFrames;
+    private final long[] tlbStamps;
+    private int lastWay;
+    
+    // Estado de cada marco físico
+    private final PageTable[] frameOwner;
+    private final int[] framePage;
+    private final boolean[] frameDirty;
+    private final boolean[] frameReferenced;
+    private final long[] frameLoaded;
+    private final long[] frameLastUse;
+    private final int[] frameNextUse;
+    private final int[] freeFrames;
+    private int freeCount;
+    private int clockHand;
+    private long tick;
+    
+    private final Map<Integer, PageTable> spaces = new HashMap<>();
+    private PageTable current;
+    private final int[] pageBuffer;
+    
+    // Traza en curso para OPTIMAL: próxima posición donde se usa la página de cada acceso
+    private int[] traceNextUse;
+    private int tracePosition = -1;
+    
+    // Contadores
+    private long accesses;
+    private long tlbHits;
+    private long pageFaults;
+    private long evictions;
+    private long writeBacks;
+    private long swapIns;
+    
+    /**
+     * @param physical memoria física donde viven los marcos
+     * @param frameBase primera dirección física del rango de marcos (en el área de usuario)
+     * @param frameCount cantidad de marcos
+     * @param pageSize posiciones por página, potencia de 2
+     * @param tlbEntries entradas de la TLB, potencia de 2
+     * @param tlbWays entradas por conjunto de la TLB (1 = correspondencia directa)
+     * @param swap área de intercambio para las páginas desalojadas
+     */
+    public VirtualMemory(Memory physical, int frameBase, int frameCount, int pageSize, int tlbEntries,
+                         int tlbWays, PageReplacementPolicy policy, SwapStore swap) {
+        if (pageSize <= 0 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser potencia de 2: " + pageSize);
+        }
+        if (tlbEntries <= 0 || Integer.bitCount(tlbEntries) != 1 || tlbWays <= 0 || tlbEntries % tlbWays != 0
+                || Integer.bitCount(tlbEntries / tlbWays) != 1) {
+            throw new IllegalArgumentException("Configuración de TLB inválida: " + tlbEntries + " entradas, " + tlbWays + " vías");
+        }
+        if (frameCount <= 0 || frameBase < physical.getUserMemoryStart()
+                || (long) frameBase + (long) frameCount * pageSize > physical.getTotalSize()) {
+            throw new IllegalArgumentException("Los marcos deben caber en la memoria de usuario: " + frameCount + " x " + pageSize
+                                               + " desde " + frameBase);
+        }
+        if (swap.getPageSize() != pageSize) {
+            throw new IllegalArgumentException("El área de intercambio usa páginas de " + swap.getPageSize());
+        }
+        
+        this.physical = physical;
+        this.frameBase = frameBase;
+        this.frameCount = frameCount;
+        this.pageSize = pageSize;
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+        this.offsetMask = pageSize - 1;
+        this.policy = policy;
+        this.swap = swap;
+        
+        this.tlbWays = tlbWays;
+        this.tlbSets = tlbEntries / tlbWays;
+        this.tlbKeys = new long[tlbEntries];
+        this.tlbFrames = new int[tlbEntries];
+        this.tlbStamps = new long[tlbEntries];
+        Arrays.fill(tlbKeys, INVALID_KEY);
+        
+        this.frameOwner = new PageTable[frameCount];
+        this.framePage = new int[frameCount];
+        this.frameDirty = new boolean[frameCount];
+        this.frameReferenced = new boolean[frameCount];
+        this.frameLoaded = new long[frameCount];
+        this.frameLastUse = new long[frameCount];
+        this.frameNextUse = new int[frameCount];
+        this.freeFrames = new int[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            freeFrames[i] = frameCount - 1 - i;
+        }
+        this.freeCount = frameCount;
+        this.pageBuffer = new int[pageSize];
+    }
+    
+    /**
+     * Crea el espacio de direcciones de un proceso
+     * @param virtualSize cantidad de direcciones virtuales, desde 0
+     */
+    public void createAddressSpace(int asid, int virtualSize) {
+        if (asid < 0) {
+            throw new IllegalArgumentException("ASID inválido: " + asid);
+        }
+        if (spaces.containsKey(asid)) {
+            throw new IllegalArgumentException("El espacio de direcciones " + asid + " ya existe");
+        }
+        spaces.put(asid, new PageTable(asid, virtualSize, (int) (((long) virtualSize + offsetMask) >>> pageShift)));
+    }
+    
+    /**
+     * Libera los marcos, ranuras de intercambio y entradas de TLB de un proceso
+     */
+    public void destroyAddressSpace(int asid) {
+        PageTable table = spaces.remove(asid);
+        if (table == null) {
+            return;
+        }
+        for (int page = 0; page < table.frames.length; page++) {
+            int frame = table.frames[page];
+            if (frame >= 0) {
+                frameOwner[frame] = null;
+                freeFrames[freeCount++] = frame;
+                invalidateTlb(asid, page);
+            }
+            if (table.swapSlots[page] >= 0) {
+                swap.free(table.swapSlots[page]);
+            }
+        }
+        if (current == table) {
+            current = null;
+        }
+    }
+    
+    /**
+     * Cambia el proceso en ejecución (cambio de contexto); la TLB se conserva
+     */
+    public void switchTo(int asid) {
+        PageTable table = spaces.get(asid);
+        if (table == null) {
+            throw new IllegalArgumentException("No existe el espacio de direcciones " + asid);
+        }
+        current = table;
+    }
+    
+    /**
+     * Conecta el CPU a esta memoria virtual para el proceso indicado
+     * STORE pasa a usar direcciones virtuales en [0, tamaño del espacio)
+     */
+    public void attach(CPU cpu, int asid) {
+        switchTo(asid);
+        cpu.setMemoryPort(this);
+        cpu.setMemoryPartition(0, current.virtualSize);
+    }
+    
+    @Override
+    public int read(int address) {
+        int physicalAddress = translate(address, false);
+        return physicalAddress >= 0 ? physical.readFromMemory(physicalAddress) : 0;
+    }
+    
+    @Override
+    public boolean write(int address, int value) {
+        int physicalAddress = translate(address, true);
+        return physicalAddress >= 0 && physical.writeToMemory(physicalAddress, value);
+    }
+    
+    @Override
+    public boolean isWritable(int address) {
+        return current != null && address >= 0 && address < current.virtualSize;
+    }
+    
+    /**
+     * Lee sin pasar por la TLB ni provocar fallos: si la página no está en memoria se lee del intercambio
+     */
+    @Override
+    public int peek(int address) {
+        if (!isWritable(address)) {
+            return 0;
+        }
+        int page = address >>> pageShift;
+        int frame = current.frames[page];
+        if (frame >= 0) {
+            return physical.readFromMemory(frameBase + (frame << pageShift) + (address & offsetMask));
+        }
+        if (current.swapSlots[page] < 0) {
+            return 0;
+        }
+        try {
+            swap.read(current.swapSlots[page], pageBuffer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return pageBuffer[address & offsetMask];
+    }
+    
+    /**
+     * Recorre una traza de accesos del proceso indicado, como en los ejercicios de reemplazo de páginas
+     * Es la única forma de usar OPTIMAL, que necesita conocer los accesos futuros
+     * @param writes si no es null, indica qué accesos son escrituras
+     */
+    public void runTrace(int asid, int[] addresses, boolean[] writes) {
+        switchTo(asid);
+        
+        // Próximo uso de la página de cada acceso, calculado de atrás hacia adelante
+        int[] nextUse = new int[addresses.length];
+        IntIntHashMap lastSeen = new IntIntHashMap();
+        for (int i = addresses.length - 1; i >= 0; i--) {
+            int page = addresses[i] >>> pageShift;
+            nextUse[i] = lastSeen.containsKey(page) ? lastSeen.get(page) : Integer.MAX_VALUE;
+            lastSeen.put(page, i);
+        }
+        
+        traceNextUse = nextUse;
+        try {
+            for (int i = 0; i < addresses.length; i++) {
+                tracePosition = i;
+                translate(addresses[i], writes != null && writes[i]);
+            }
+        } finally {
+            tracePosition = -1;
+            traceNextUse = null;
+        }
+    }
+    
+    /**
+     * Traduce una dirección virtual del proceso actual a física
+     * @return dirección física, o -1 si está fuera del espacio del proceso
+     */
+    private int translate(int address, boolean write) {
+        PageTable table = current;
+        if (table == null || address < 0 || address >= table.virtualSize) {
+            return -1;
+        }
+        accesses++;
+        long now = ++tick;
+        int page = address >>> pageShift;
+        long key = ((long) table.asid << 32) | page;
+        
+        int way = lastWay;
+        if (tlbKeys[way] != key) {
+            way = lookupTlb(table, page, key);
+            lastWay = way;
+        } else {
+            // Accesos seguidos a la misma página: no hace falta recorrer el conjunto
+            tlbHits++;
+        }
+        tlbStamps[way] = now;
+        int frame = tlbFrames[way];
+        
+        frameReferenced[frame] = true;
+        frameLastUse[frame] = now;
+        if (write) {
+            frameDirty[frame] = true;
+        }
+        if (tracePosition >= 0) {
+            frameNextUse[frame] = traceNextUse[tracePosition];
+        }
+        return frameBase + (frame << pageShift) + (address & offsetMask);
+    }
+    
+    /**
+     * Busca la página en su conjunto de la TLB; si no está la trae de la tabla de páginas
+     * @return entrada de la TLB que quedó con la traducción
+     */
+    private int lookupTlb(PageTable table, int page, long key) {
+        int base = tlbSetBase(table.asid, page);
+        for (int way = base; way < base + tlbWays; way++) {
+            if (tlbKeys[way] == key) {
+                tlbHits++;
+                return way;
+            }
+        }
+        
+        int frame = table.frames[page];
+        if (frame < 0) {
+            frame = pageFault(table, page, tick);
+        }
+        return insertTlb(base, key, frame);
+    }
+    
+    private int tlbSetBase(int asid, int page) {
+        return ((page ^ (asid * 0x9E3779B9)) & (tlbSets - 1)) * tlbWays;
+    }
+    
+    private int insertTlb(int base, long key, int frame) {
+        int victim = base;
+        for (int way = base; way < base + tlbWays; way++) {
+            if (tlbKeys[way] == INVALID_KEY) {
+                victim = way;
+                break;
+            }
+            if (tlbStamps[way] < tlbStamps[victim]) {
+                victim = way;
+            }
+        }
+        tlbKeys[victim] = key;
+        tlbFrames[victim] = frame;
+        return victim;
+    }
+    
+    private void invalidateTlb(int asid, int page) {
+        long key = ((long) asid << 32) | page;
+        int base = tlbSetBase(asid, page);
+        for (int way = base; way < base + tlbWays; way++) {
+            if (tlbKeys[way] == key) {
+                tlbKeys[way] = INVALID_KEY;
+            }
+        }
+    }
+    
+    /**
+     * Trae la página a un marco, desalojando otra si hace falta
+     */
+    private int pageFault(PageTable table, int page, long now) {
+        pageFaults++;
+        int frame = freeCount > 0 ? freeFrames[--freeCount] : evict();
+        int frameAddress = frameBase + (frame << pageShift);
+        
+        try {
+            if (table.swapSlots[page] >= 0) {
+                swap.read(table.swapSlots[page], pageBuffer);
+                swapIns++;
+            } else {
+                // Primera vez que se usa: página en ceros
+                Arrays.fill(pageBuffer, 0);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        physical.writeBlockForce(frameAddress, pageBuffer, 0, pageSize);
+        
+        table.frames[page] = frame;
+        frameOwner[frame] = table;
+        framePage[frame] = page;
+        frameDirty[frame] = false;
+        frameLoaded[frame] = now;
+        frameNextUse[frame] = Integer.MAX_VALUE;
+        return frame;
+    }
+    
+    /**
+     * Elige una víctima según la política y la saca de memoria física
+     */
+    private int evict() {
+        int victim = chooseVictim();
+        PageTable owner = frameOwner[victim];
+        int page = framePage[victim];
+        evictions++;
+        
+        if (frameDirty[victim]) {
+            if (owner.swapSlots[page] < 0) {
+                owner.swapSlots[page] = swap.allocate();
+            }
+            physical.readBlock(frameBase + (victim << pageShift), pageBuffer, 0, pageSize);
+            try {
+                swap.write(owner.swapSlots[page], pageBuffer);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            writeBacks++;
+        }
+        
+        owner.frames[page] = -1;
+        invalidateTlb(owner.asid, page);
+        frameOwner[victim] = null;
+        return victim;
+    }
+    
+    private int chooseVictim() {
+        int victim = 0;
+        switch (policy) {
+            case FIFO:
+                for (int i = 1; i < frameCount; i++) {
+                    if (frameLoaded[i] < frameLoaded[victim]) {
+                        victim = i;
+                    }
+                }
+                return victim;
+            case LRU:
+                for (int i = 1; i < frameCount; i++) {
+                    if (frameLastUse[i] < frameLastUse[victim]) {
+                        victim = i;
+                    }
+                }
+                return victim;
+            case CLOCK:
+                while (frameReferenced[clockHand]) {
+                    frameReferenced[clockHand] = false;
+                    clockHand = (clockHand + 1) % frameCount;
+                }
+                victim = clockHand;
+                clockHand = (clockHand + 1) % frameCount;
+                return victim;
+            default:
+                if (tracePosition < 0) {
+                    throw new IllegalStateException("OPTIMAL necesita conocer los accesos futuros: usar runTrace");
+                }
+                for (int i = 1; i < frameCount; i++) {
+                    if (frameNextUse[i] > frameNextUse[victim]) {
+                        victim = i;
+                    }
+                }
+                return victim;
+        }
+    }
+    
+    /**
+     * Copia de los contadores actuales
+     */
+    public VirtualMemoryStats getStats() {
+        return new VirtualMemoryStats(policy, frameCount, pageSize, tlbKeys.length, accesses, tlbHits,
+                                      pageFaults, evictions, writeBacks, swapIns);
+    }
+    
+    public void resetStats() {
+        accesses = 0;
+        tlbHits = 0;
+        pageFaults = 0;
+        evictions = 0;
+        writeBacks = 0;
+        swapIns = 0;
+    }
+    
+    /**
+     * Página virtual de una dirección
+     */
+    public int pageOf(int address) {
+        return address >>> pageShift;
+    }
+    
+    /**
+     * Marco donde está una página del proceso, o -1 si no está en memoria física
+     */
+    public int getFrame(int asid, int page) {
+        PageTable table = spaces.get(asid);
+        return table != null && page >= 0 && page < table.frames.length ? table.frames[page] : -1;
+    }
+    
+    public int getPageSize() { return pageSize; }
+    public int getFrameCount() { return frameCount; }
+    public int getFreeFrames() { return freeCount; }
+    public PageReplacementPolicy getPolicy() { return policy; }
+    
+    /**
+     * Tabla de páginas de un proceso: marco de cada página (-1 si no está) y su ranura de intercambio
+     */
+    private static class PageTable {
+        final int asid;
+        final int virtualSize;
+        final int[] frames;
+        final int[] swapSlots;
+        
+        PageTable(int asid, int virtualSize, int pages) {
+            this.asid = asid;
+            this.virtualSize = virtualSize;
+            this.frames = new int[pages];
+            this.swapSlots = new int[pages];
+            Arrays.fill(frames, -1);
+            Arrays.fill(swapSlots, -1);
+        }
+    }
+}
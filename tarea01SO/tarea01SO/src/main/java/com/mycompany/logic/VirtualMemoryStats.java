@@ -0,0 +1,103 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Estadísticas de la memoria virtual en un momento dado (inmutable)
+ */
+public class VirtualMemoryStats {
+    // Tiempos por defecto para el tiempo efectivo de acceso
+    public static final double DEFAULT_TLB_NANOS = 1;
+    public static final double DEFAULT_MEMORY_NANOS = 100;
+    public static final double DEFAULT_FAULT_NANOS = 8_000_000;
+    
+    private final PageReplacementPolicy policy;
+    private final int frameCount;
+    private final int pageSize;
+    private final int tlbEntries;
+    private final long accesses;
+    private final long tlbHits;
+    private final long pageFaults;
+    private final long evictions;
+    private final long writeBacks;
+    private final long swapIns;
+    
+    VirtualMemoryStats(PageReplacementPolicy policy, int frameCount, int pageSize, int tlbEntries, long accesses,
+                       long tlbHits, long pageFaults, long evictions, long writeBacks, long swapIns) {
+        this.policy = policy;
+        this.frameCount = frameCount;
+        this.pageSize = pageSize;
+        this.tlbEntries = tlbEntries;
+        this.accesses = accesses;
+        this.tlbHits = tlbHits;
+        this.pageFaults = pageFaults;
+        this.evictions = evictions;
+        this.writeBacks = writeBacks;
+        this.swapIns = swapIns;
+    }
+    
+    /**
+     * Fracción de accesos resueltos por la TLB
+     */
+    public double getHitRatio() {
+        return accesses == 0 ? 0 : (double) tlbHits / accesses;
+    }
+    
+    /**
+     * Fracción de accesos que provocaron un fallo de página
+     */
+    public double getFaultRate() {
+        return accesses == 0 ? 0 : (double) pageFaults / accesses;
+    }
+    
+    /**
+     * Tiempo efectivo de acceso en nanosegundos
+     * Sin fallo: acierto de TLB = TLB + memoria, fallo de TLB = TLB + tabla de páginas + memoria
+     * Con fallo de página se paga el tiempo de servicio del fallo
+     */
+    public double getEffectiveAccessTime(double tlbNanos, double memoryNanos, double faultNanos) {
+        double h = getHitRatio();
+        double p = getFaultRate();
+        double resident = h * (tlbNanos + memoryNanos) + (1 - h) * (tlbNanos + 2 * memoryNanos);
+        return (1 - p) * resident + p * faultNanos;
+    }
+    
+    public long getTlbMisses() {
+        return accesses - tlbHits;
+    }
+    
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("=== MEMORIA VIRTUAL ===\n");
+        report.append("Política: ").append(policy).append("  Marcos: ").append(frameCount)
+              .append("  Página: ").append(pageSize).append("  TLB: ").append(tlbEntries).append("\n");
+        report.append("Accesos: ").append(accesses).append("  Aciertos TLB: ").append(tlbHits)
+              .append("  Fallos TLB: ").append(getTlbMisses()).append("\n");
+        report.append("Fallos de página: ").append(pageFaults).append("  Reemplazos: ").append(evictions)
+              .append("  Escrituras a swap: ").append(writeBacks).append("  Lecturas de swap: ").append(swapIns).append("\n");
+        report.append(String.format("Tasa de aciertos TLB: %.2f%%  Tasa de fallos de página: %.4f%%%n",
+                                    getHitRatio() * 100, getFaultRate() * 100));
+        report.append(String.format("Tiempo efectivo de acceso: %.1f ns (TLB %.0f ns, memoria %.0f ns, fallo %.0f ns)%n",
+                                    getEffectiveAccessTime(DEFAULT_TLB_NANOS, DEFAULT_MEMORY_NANOS, DEFAULT_FAULT_NANOS),
+                                    DEFAULT_TLB_NANOS, DEFAULT_MEMORY_NANOS, DEFAULT_FAULT_NANOS));
+        return report.toString();
+    }
+    
+    public PageReplacementPolicy getPolicy() { return policy; }
+    public int getFrameCount() { return frameCount; }
+    public int getPageSize() { return pageSize; }
+    public int getTlbEntries() { return tlbEntries; }
+    public long getAccesses() { return accesses; }
+    public long getTlbHits() { return tlbHits; }
+    public long getPageFaults() { return pageFaults; }
+    public long getEvictions() { return evictions; }
+    public long getWriteBacks() { return writeBacks; }
+    public long getSwapIns() { return swapIns; }
+}
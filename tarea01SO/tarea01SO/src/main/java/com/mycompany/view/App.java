@@ -29,9 +29,11 @@ public class App extends javax.swing.JFrame {
     private void initComponents() {
 
         execute = new javax.swing.JButton();
+        previousStep = new javax.swing.JButton();
         nextStep = new javax.swing.JButton();
         setNewMemory = new javax.swing.JButton();
         stadistics = new javax.swing.JButton();
+        executionSpeed = new javax.swing.JComboBox<>();
         loadFile = new javax.swing.JButton();
         jScrollPane3 = new javax.swing.JScrollPane();
         instrucctionTable = new javax.swing.JTable();
@@ -54,6 +56,8 @@ public class App extends javax.swing.JFrame {
             }
         });
 
+        previousStep.setText("previous step");
+
         nextStep.setText("next step");
 
         setNewMemory.setText("set");
@@ -70,6 +74,8 @@ public class App extends javax.swing.JFrame {
             }
         });
 
+        executionSpeed.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "1 Hz", "10 Hz", "100 Hz", "1000 Hz", "1000 / frame", "max speed" }));
+
         loadFile.setText("Load file");
 
         instrucctionTable.setModel(new javax.swing.table.DefaultTableModel(
@@ -260,10 +266,14 @@ public class App extends javax.swing.JFrame {
                     .addGroup(layout.createSequentialGroup()
                         .addComponent(execute)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                        .addComponent(previousStep)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addComponent(nextStep)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addComponent(stadistics)
-                        .addGap(45, 45, 45)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(executionSpeed, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addGap(18, 18, 18)
                         .addComponent(jLabel2, javax.swing.GroupLayout.PREFERRED_SIZE, 79, javax.swing.GroupLayout.PREFERRED_SIZE))
                     .addComponent(jLabel3, javax.swing.GroupLayout.PREFERRED_SIZE, 79, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -288,8 +298,10 @@ public class App extends javax.swing.JFrame {
                     .addGroup(layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                             .addComponent(execute)
+                            .addComponent(previousStep)
                             .addComponent(nextStep)
                             .addComponent(stadistics)
+                            .addComponent(executionSpeed, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                             .addComponent(jLabel2)
                             .addComponent(newMemorySize, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
@@ -362,6 +374,7 @@ public class App extends javax.swing.JFrame {
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     public javax.swing.JButton execute;
+    public javax.swing.JComboBox<String> executionSpeed;
     public javax.swing.JTable instrucctionTable;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel2;
@@ -374,6 +387,7 @@ public class App extends javax.swing.JFrame {
     public javax.swing.JTable memoryTable;
     public javax.swing.JTextField newMemorySize;
     public javax.swing.JButton nextStep;
+    public javax.swing.JButton previousStep;
     public javax.swing.JButton setNewMemory;
     public javax.swing.JButton stadistics;
     public javax.swing.JTextField userMemory;
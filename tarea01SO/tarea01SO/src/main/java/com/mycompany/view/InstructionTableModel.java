@@ -0,0 +1,55 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.view;
+
+import com.mycompany.logic.AssembledProgram;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Modelo de la tabla de instrucciones que lee directamente del programa ensamblado
+ * El texto de cada fila se genera al pintarla, así que programas de millones
+ * de instrucciones no se copian a la tabla
+ */
+public class InstructionTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {"Instruction", "Binary"};
+    
+    private AssembledProgram program;
+    
+    /**
+     * Cambia el programa mostrado; null deja la tabla vacía
+     */
+    public void setProgram(AssembledProgram program) {
+        this.program = program;
+        fireTableDataChanged();
+    }
+    
+    @Override
+    public int getRowCount() {
+        return program != null ? program.size() : 0;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (column == 0) {
+            return program.getSourceLine(row);
+        }
+        return program.getBinaryCode(row);
+    }
+}
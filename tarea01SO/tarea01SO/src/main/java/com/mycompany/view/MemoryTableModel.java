@@ -0,0 +1,130 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.view;
+
+import com.mycompany.logic.ExecutionSnapshot;
+import com.mycompany.logic.Memory;
+import com.mycompany.logic.MemoryChangeBatch;
+import com.mycompany.logic.MemoryChangeListener;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Modelo de la tabla de memoria que lee las celdas directamente de Memory
+ * Solo se consultan las filas visibles al pintar, así que no se copia la memoria
+ * y una memoria grande se puede recorrer sin bloquear la interfaz.
+ * Se suscribe a los cambios de Memory y repinta solo los rangos modificados.
+ * Durante una ejecución automática Memory cambia en otro hilo: entonces las celdas salen del
+ * último ExecutionSnapshot (ver showSnapshot) y las que no estaban a la vista quedan en blanco.
+ */
+public class MemoryTableModel extends AbstractTableModel implements MemoryChangeListener {
+    private static final String[] COLUMN_NAMES = {"Position", "Value in memory"};
+    
+    private Memory memory;
+    // Snapshot del que se dibuja mientras corre la ejecución automática; null para leer Memory
+    private ExecutionSnapshot snapshot;
+    
+    public MemoryTableModel(Memory memory) {
+        this.memory = memory;
+        memory.addChangeListener(this);
+    }
+    
+    /**
+     * Cambia la memoria mostrada (por ejemplo al reconfigurar su tamaño)
+     */
+    public void setMemory(Memory memory) {
+        this.memory.removeChangeListener(this);
+        this.memory = memory;
+        memory.addChangeListener(this);
+        fireTableDataChanged();
+    }
+    
+    @Override
+    public void memoryChanged(MemoryChangeBatch batch) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> memoryChanged(batch));
+            return;
+        }
+        
+        if (batch.isSizeChanged()) {
+            fireTableDataChanged();
+            return;
+        }
+        
+        for (int i = 0; i < batch.getRangeCount(); i++) {
+            addressesChanged(batch.getStart(i), batch.getEnd(i));
+        }
+    }
+    
+    /**
+     * Dibuja desde el snapshot en lugar de leer Memory (solo desde el hilo de la interfaz)
+     */
+    public void showSnapshot(ExecutionSnapshot snapshot) {
+        boolean first = this.snapshot == null;
+        this.snapshot = snapshot;
+        if (first || snapshot.getMemoryChanges().isSizeChanged()) {
+            fireTableDataChanged();
+        } else if (snapshot.getViewStart() <= snapshot.getViewEnd()) {
+            fireTableRowsUpdated(snapshot.getViewStart(), snapshot.getViewEnd());
+        }
+    }
+    
+    /**
+     * Vuelve a leer las celdas de Memory, una vez terminada la ejecución automática
+     */
+    public void showMemory() {
+        if (snapshot != null) {
+            snapshot = null;
+            fireTableDataChanged();
+        }
+    }
+    
+    /**
+     * Notifica que cambiaron las posiciones [fromAddress, toAddress]
+     */
+    public void addressesChanged(int fromAddress, int toAddress) {
+        int last = Math.min(toAddress, getRowCount() - 1);
+        if (fromAddress >= 0 && fromAddress <= last) {
+            fireTableRowsUpdated(fromAddress, last);
+        }
+    }
+    
+    @Override
+    public int getRowCount() {
+        return snapshot != null ? snapshot.getMemoryChanges().getTotalSize() : memory.getTotalSize();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? Integer.class : String.class;
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (column == 0) {
+            return row;
+        }
+        if (snapshot != null) {
+            String cell = snapshot.getViewCell(row);
+            return cell != null ? cell : "";
+        }
+        return memory.getCellDescription(row);
+    }
+}
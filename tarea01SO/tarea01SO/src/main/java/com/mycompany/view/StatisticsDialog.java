@@ -0,0 +1,82 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.view;
+
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.Frame;
+import java.util.function.Supplier;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Ventana no modal con las estadísticas de ejecución
+ * Mientras está visible un Timer de Swing vuelve a pedir el reporte y lo muestra,
+ * así se puede dejar abierta mientras el programa corre.
+ */
+public class StatisticsDialog extends JDialog {
+    private static final int REFRESH_MILLIS = 250;
+    
+    private final Supplier<String> reportSource;
+    private final JTextArea text = new JTextArea(24, 60);
+    private final Timer refreshTimer;
+    
+    /**
+     * @param reportSource se llama en el hilo de eventos en cada actualización
+     */
+    public StatisticsDialog(Frame owner, Supplier<String> reportSource) {
+        super(owner, "Estadísticas", false);
+        this.reportSource = reportSource;
+        
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> setVisible(false));
+        JPanel buttons = new JPanel();
+        buttons.add(close);
+        
+        getContentPane().add(new JScrollPane(text), BorderLayout.CENTER);
+        getContentPane().add(buttons, BorderLayout.SOUTH);
+        pack();
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
+        
+        // HIDE_ON_CLOSE pasa por setVisible(false), que detiene el Timer
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+    }
+    
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible) {
+            refresh();
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+        super.setVisible(visible);
+    }
+    
+    /**
+     * Vuelve a pedir el reporte sin mover la posición de desplazamiento
+     */
+    public void refresh() {
+        String report = reportSource.get();
+        if (!report.equals(text.getText())) {
+            int caret = Math.min(text.getCaretPosition(), report.length());
+            text.setText(report);
+            text.setCaretPosition(caret);
+        }
+    }
+}
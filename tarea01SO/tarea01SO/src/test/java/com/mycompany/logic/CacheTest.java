@@ -0,0 +1,157 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Escrituras de Cache hacia el siguiente nivel: WRITE_BACK retiene y solo baja las palabras
+ * modificadas de cada línea, también entre L1 y L2; WRITE_THROUGH baja cada escritura
+ */
+public class CacheTest {
+    private Memory memory;
+    private CountingPort port;
+    
+    /**
+     * Memoria con contadores de los accesos que le llegan
+     */
+    private static class CountingPort implements MemoryPort {
+        private final Memory memory;
+        private int reads;
+        private int writes;
+        
+        CountingPort(Memory memory) {
+            this.memory = memory;
+        }
+        
+        @Override
+        public int read(int address) {
+            reads++;
+            return memory.read(address);
+        }
+        
+        @Override
+        public boolean write(int address, int value) {
+            writes++;
+            return memory.write(address, value);
+        }
+        
+        @Override
+        public boolean isWritable(int address) {
+            return memory.isWritable(address);
+        }
+    }
+    
+    @BeforeEach
+    public void setUp() {
+        memory = new Memory(100, 20);
+        port = new CountingPort(memory);
+    }
+    
+    @Test
+    public void writeBackHoldsDirtyWordsUntilFlush() {
+        Cache cache = new Cache("L1", 4, 1, 4, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, port);
+        cache.write(32, 7);
+        cache.write(34, 9);
+        cache.write(34, 10);
+        
+        assertEquals(0, port.writes);
+        assertEquals(0, memory.read(32));
+        assertEquals(10, cache.read(34));
+        
+        cache.flush();
+        // Solo las dos palabras modificadas de la línea, una vez cada una
+        assertEquals(2, port.writes);
+        assertEquals(7, memory.read(32));
+        assertEquals(10, memory.read(34));
+        assertEquals(1, cache.getStats().getWriteBacks());
+        
+        // La línea queda limpia: otro flush no escribe
+        cache.flush();
+        assertEquals(2, port.writes);
+    }
+    
+    @Test
+    public void evictionMovesOnlyDirtyWordsIntoNextLevel() {
+        Cache l2 = new Cache("L2", 8, 2, 8, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, port);
+        Cache l1 = new Cache("L1", 4, 1, 4, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, l2);
+        l1.write(32, 3);
+        l1.write(33, 4);
+        
+        // 48 cae en el mismo conjunto de L1 (4 conjuntos de 4 palabras) y desaloja la línea de 32
+        l1.read(48);
+        assertEquals(1, l1.getStats().getEvictions());
+        assertEquals(1, l1.getStats().getWriteBacks());
+        // La línea desalojada se escribe en L2 con un solo acceso y queda retenida allí
+        assertEquals(1, l2.getStats().getWrites());
+        assertEquals(0, port.writes);
+        assertEquals(3, l2.peek(32));
+        assertEquals(0, memory.read(32));
+        
+        l1.flush();
+        assertEquals(2, port.writes);
+        assertEquals(3, memory.read(32));
+        assertEquals(4, memory.read(33));
+        assertEquals(1, l2.getStats().getWriteBacks());
+    }
+    
+    @Test
+    public void writeThroughSendsEveryStoreWithoutAllocating() {
+        Cache cache = new Cache("L1", 4, 2, 4, Cache.WritePolicy.WRITE_THROUGH, Cache.Replacement.LRU, port);
+        for (int i = 0; i < 5; i++) {
+            cache.write(40 + (i & 1), i);
+        }
+        assertEquals(5, port.writes);
+        // Un fallo de escritura no trae la línea
+        assertEquals(0, port.reads);
+        assertEquals(4, memory.read(40));
+        assertEquals(3, memory.read(41));
+        
+        cache.flush();
+        assertEquals(5, port.writes);
+        assertEquals(0, cache.getStats().getWriteBacks());
+    }
+    
+    @Test
+    public void flushOfAnAddressWritesOnlyItsLine() {
+        Cache l2 = new Cache("L2", 8, 2, 8, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, port);
+        Cache l1 = new Cache("L1", 4, 1, 4, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, l2);
+        l1.write(32, 5);
+        l1.write(40, 6);
+        
+        // Lo que hace CPU.writeData cuando un STORE cae en el código
+        l1.flush(33);
+        assertEquals(1, port.writes);
+        assertEquals(5, memory.read(32));
+        assertEquals(0, memory.read(40));
+        
+        l1.flush();
+        assertEquals(2, port.writes);
+        assertEquals(6, memory.read(40));
+    }
+    
+    @Test
+    public void peekDoesNotTouchStatistics() {
+        Cache cache = new Cache("L1", 4, 1, 4, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, port);
+        memory.write(50, 12);
+        cache.write(32, 8);
+        long reads = cache.getStats().getReads();
+        
+        assertEquals(8, cache.peek(32));
+        // Una dirección fuera de la caché se lee del siguiente nivel sin traer la línea
+        assertEquals(12, cache.peek(50));
+        assertEquals(reads, cache.getStats().getReads());
+        assertEquals(0, cache.getStats().getReadHits());
+        assertEquals(0, cache.getStats().getEvictions());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Puntos de control con una caché WRITE_BACK delante de la memoria y con la tabla de etiquetas
+ * dañada (el cuerpo sin comprimir termina con el último par dirección, índice)
+ */
+public class CheckpointTest {
+    
+    @TempDir
+    Path directory;
+    
+    private static Simulator labeledSimulator() {
+        Memory memory = new Memory(100, 20, MemoryStorage.Type.HEAP);
+        Simulator simulator = new Simulator(memory, new CPU(memory));
+        simulator.load(new AssembledProgram(new int[] {Instruction.encode(Instruction.OP_MOV, Instruction.REG_AX, 3)},
+                                            new String[] {"MOV AX, 3"}));
+        memory.writeToMemory(60, 5, "dato");
+        return simulator;
+    }
+    
+    @Test
+    public void saveIncludesWritesHeldInWriteBackCache() throws IOException {
+        Simulator simulator = labeledSimulator();
+        Memory memory = simulator.getMemory();
+        Cache cache = new Cache("L1", 4, 2, 4, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, memory);
+        simulator.getCpu().setMemoryPort(cache);
+        cache.write(70, 42);
+        assertEquals(0, memory.readFromMemory(70));
+        
+        Path file = directory.resolve("cache.mck");
+        Checkpoint.save(simulator, file, true);
+        assertEquals(42, Checkpoint.restore(file).getMemory().readFromMemory(70));
+    }
+    
+    @Test
+    public void restoresLabels() throws IOException {
+        Path file = directory.resolve("labels.mck");
+        Checkpoint.save(labeledSimulator(), file, false);
+        Memory restored = Checkpoint.restore(file).getMemory();
+        assertEquals("dato", restored.getLabel(60));
+        assertEquals(5, restored.readFromMemory(60));
+    }
+    
+    @Test
+    public void rejectsLabelTextIndexOutsideTable() throws IOException {
+        Path file = directory.resolve("index.mck");
+        Checkpoint.save(labeledSimulator(), file, false);
+        overwriteInt(file, 4, 7);
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.restore(file));
+    }
+    
+    @Test
+    public void rejectsLabelAddressOutsideMemory() throws IOException {
+        Path file = directory.resolve("address.mck");
+        Checkpoint.save(labeledSimulator(), file, false);
+        overwriteInt(file, 8, 1000);
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.restore(file));
+    }
+    
+    /**
+     * Reemplaza el entero que empieza fromEnd bytes antes del final del archivo
+     */
+    private static void overwriteInt(Path file, int fromEnd, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - fromEnd, value);
+        Files.write(file, bytes);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Compara cada forma de ejecutar con una sola carga en el intérprete de una máquina nueva, sobre programas
+ * al azar con y sin STORE sobre el código: manejadores de ThreadedCode, bloques traducidos por BlockCompiler
+ * y ambos juntos, cargas repetidas del mismo programa y ejecución a través de cachés; también el programa
+ * que deja ProgramOptimizer
+ */
+public class ExecutionDifferentialTest {
+    private static final int OS_SIZE = 20;
+    private static final int PROGRAMS = 150;
+    
+    private enum Mode {
+        INTERPRETER, THREADED, COMPILED, COMPILED_THREADED
+    }
+    
+    @Test
+    public void executionModesAgree() {
+        Random random = new Random(1);
+        for (int i = 0; i < PROGRAMS; i++) {
+            AssembledProgram program = randomProgram(random, 100 + random.nextInt(600), false);
+            assertSameAsInterpreter(program, "programa " + i);
+        }
+    }
+    
+    @Test
+    public void executionModesAgreeWithSelfModifyingCode() {
+        Random random = new Random(2);
+        for (int i = 0; i < PROGRAMS; i++) {
+            AssembledProgram program = randomProgram(random, 100 + random.nextInt(600), true);
+            assertSameAsInterpreter(program, "programa " + i);
+        }
+    }
+    
+    @Test
+    public void executionModesAgreeThroughWriteBackCache() {
+        Random random = new Random(3);
+        for (int i = 0; i < PROGRAMS / 3; i++) {
+            AssembledProgram program = randomProgram(random, 100 + random.nextInt(600), true);
+            String expected = run(program, Mode.INTERPRETER, false, 1);
+            for (Mode mode : Mode.values()) {
+                // Un STORE sobre el código tiene que llegar a la memoria, de donde se buscan las instrucciones
+                assertEquals(expected, run(program, mode, true, 1), "programa " + i + " con caché en " + mode);
+            }
+        }
+    }
+    
+    @Test
+    public void optimizedProgramKeepsRegistersAndData() {
+        Random random = new Random(4);
+        for (int i = 0; i < PROGRAMS; i++) {
+            AssembledProgram program = randomProgram(random, 100 + random.nextInt(600), false);
+            OptimizedProgram optimized = ProgramOptimizer.optimize(program);
+            assertTrue(optimized.isOptimized(), () -> optimized.getSkippedReason());
+            int totalSize = memorySize(program);
+            assertEquals("[]", ProgramOptimizer.verify(optimized, totalSize, OS_SIZE).toString(), "programa " + i);
+            
+            // El optimizado también tiene que dar lo mismo en todas las formas de ejecutar
+            assertSameAsInterpreter(optimized.getProgram(), "programa optimizado " + i);
+        }
+    }
+    
+    private static void assertSameAsInterpreter(AssembledProgram program, String name) {
+        String expected = run(program, Mode.INTERPRETER, false, 1);
+        for (Mode mode : Mode.values()) {
+            // Tres cargas seguidas: manejadores y bloques traducidos en la carga anterior se reutilizan en la siguiente
+            assertEquals(expected + expected + expected, run(program, mode, false, 3), name + " en " + mode);
+        }
+    }
+    
+    /**
+     * Carga y ejecuta el programa las veces indicadas en una máquina nueva
+     * @return estado al terminar cada ejecución: instrucciones, error, registros y memoria
+     */
+    private static String run(AssembledProgram program, Mode mode, boolean cached, int loads) {
+        Memory memory = new Memory(memorySize(program), OS_SIZE, MemoryStorage.Type.HEAP);
+        CPU cpu = new CPU(memory);
+        Simulator simulator = new Simulator(memory, cpu);
+        if (mode == Mode.THREADED || mode == Mode.COMPILED_THREADED) {
+            simulator.enableThreadedDispatch();
+        }
+        BlockCompiler compiler = null;
+        if (mode == Mode.COMPILED || mode == Mode.COMPILED_THREADED) {
+            compiler = new BlockCompiler(0);
+            simulator.enableCompiler(compiler);
+        }
+        
+        StringBuilder states = new StringBuilder();
+        for (int i = 0; i < loads; i++) {
+            simulator.load(program);
+            if (cached) {
+                Cache l2 = new Cache("L2", 16, 2, 16, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, memory);
+                cpu.setMemoryPort(new Cache("L1", 16, 2, 8, Cache.WritePolicy.WRITE_BACK, Cache.Replacement.LRU, l2));
+            }
+            SimulationResult result = simulator.run();
+            states.append(result.getInstructionsExecuted()).append(' ').append(result.getStopReason()).append(" | ")
+                  .append(result.getAC()).append(',').append(result.getAX()).append(',').append(result.getBX()).append(',')
+                  .append(result.getCX()).append(',').append(result.getDX()).append(" | ")
+                  .append(Arrays.hashCode(memory.dumpMemory())).append('\n');
+        }
+        if (compiler != null) {
+            // Un bloque que no se pudo traducir vuelve al intérprete y la comparación no lo vería
+            assertEquals(0, compiler.getFailedBlocks(), "bloques sin traducir");
+            assertTrue(compiler.getCompiledBlocks() > 0, "ningún bloque traducido");
+        }
+        return states.toString();
+    }
+    
+    private static int memorySize(AssembledProgram program) {
+        return OS_SIZE + 2 * program.size() + 1000;
+    }
+    
+    /**
+     * Programa válido al azar
+     * LOAD y STORE van precedidos de un MOV que deja en el registro una dirección relativa detrás del
+     * programa; con modifyCode algunos STORE escriben una instrucción válida sobre una posición posterior.
+     */
+    private static AssembledProgram randomProgram(Random random, int size, boolean modifyCode) {
+        int[] words = new int[size];
+        int i = 0;
+        while (i < size) {
+            int register = Instruction.REG_AX + random.nextInt(4);
+            int choice = random.nextInt(10);
+            if (modifyCode && choice == 0 && i + 4 < size - 2) {
+                int target = i + 4 + random.nextInt(Math.min(200, size - i - 4));
+                int word = random.nextBoolean()
+                           ? Instruction.encode(Instruction.OP_MOV, register, 1 + random.nextInt(100))
+                           : Instruction.encode(random.nextBoolean() ? Instruction.OP_ADD : Instruction.OP_SUB, register, 0);
+                words[i++] = Instruction.encode(Instruction.OP_MOV, Instruction.REG_AX, word);
+                words[i++] = Instruction.encode(Instruction.OP_LOAD, Instruction.REG_AX, 0);
+                words[i++] = Instruction.encode(Instruction.OP_MOV, Instruction.REG_BX, target);
+                words[i++] = Instruction.encode(Instruction.OP_STORE, Instruction.REG_BX, 0);
+            } else if (choice < 4 && i + 1 < size) {
+                int operation = random.nextBoolean() ? Instruction.OP_LOAD : Instruction.OP_STORE;
+                words[i++] = Instruction.encode(Instruction.OP_MOV, register, size + 10 + random.nextInt(900));
+                words[i++] = Instruction.encode(operation, register, 0);
+            } else if (choice < 6) {
+                int immediate = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(5000);
+                words[i++] = Instruction.encode(Instruction.OP_MOV, register, immediate);
+            } else {
+                int operation = random.nextBoolean() ? Instruction.OP_ADD : Instruction.OP_SUB;
+                words[i++] = Instruction.encode(operation, register, 0);
+            }
+        }
+        return new AssembledProgram(words, null, null);
+    }
+}
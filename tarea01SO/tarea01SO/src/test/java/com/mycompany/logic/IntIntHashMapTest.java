@@ -0,0 +1,118 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Compara IntIntHashMap con un HashMap, con claves que chocan en la tabla para
+ * ejercitar el borrado con corrimiento hacia atrás
+ */
+public class IntIntHashMapTest {
+    
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> reference = new HashMap<>();
+        
+        for (int i = 0; i < 200_000; i++) {
+            // Múltiplos de 1024: caen en las mismas posiciones mientras la tabla es chica
+            int key = random.nextBoolean() ? random.nextInt(64) * 1024 : random.nextInt(5000);
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                int value = random.nextInt();
+                assertEquals((int) reference.getOrDefault(key, 0), map.put(key, value));
+                reference.put(key, value);
+            } else if (operation == 1) {
+                Integer old = reference.remove(key);
+                assertEquals(old == null ? 0 : old, map.remove(key));
+            } else {
+                assertEquals(reference.containsKey(key), map.containsKey(key));
+                assertEquals((int) reference.getOrDefault(key, 0), map.get(key));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        
+        for (Map.Entry<Integer, Integer> entry : reference.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+    
+    @Test
+    public void everyKeyStaysReachableAfterRemovingInsideAChain() {
+        IntIntHashMap map = new IntIntHashMap();
+        for (int i = 0; i < 8; i++) {
+            map.put(i * 16, i + 1);
+        }
+        // Quitar del medio de la cadena no debe dejar huecos que corten la búsqueda
+        map.remove(2 * 16);
+        map.remove(5 * 16);
+        for (int i = 0; i < 8; i++) {
+            boolean removed = i == 2 || i == 5;
+            assertEquals(!removed, map.containsKey(i * 16), "clave " + i * 16);
+            assertEquals(removed ? 0 : i + 1, map.get(i * 16));
+        }
+        assertEquals(6, map.size());
+    }
+    
+    @Test
+    public void rejectsNegativeKeys() {
+        IntIntHashMap map = new IntIntHashMap();
+        assertThrows(IllegalArgumentException.class, () -> map.get(-1));
+        assertThrows(IllegalArgumentException.class, () -> map.containsKey(-1));
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, 5));
+        assertThrows(IllegalArgumentException.class, () -> map.remove(-3));
+        assertTrue(map.isEmpty());
+    }
+    
+    @Test
+    public void rangeOperationsMatchSortedReference() {
+        Random random = new Random(11);
+        IntIntHashMap map = new IntIntHashMap();
+        TreeMap<Integer, Integer> reference = new TreeMap<>();
+        for (int i = 0; i < 3000; i++) {
+            int key = random.nextInt(10_000);
+            int value = random.nextInt(1000) - 500;
+            map.put(key, value);
+            reference.put(key, value);
+        }
+        
+        long[] entries = map.sortedEntries(2000, 4000);
+        Map<Integer, Integer> expected = reference.subMap(2000, 4000);
+        assertEquals(expected.size(), entries.length);
+        int index = 0;
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getKey(), IntIntHashMap.entryKey(entries[index]));
+            assertEquals((int) entry.getValue(), IntIntHashMap.entryValue(entries[index]));
+            index++;
+        }
+        
+        assertEquals((int) reference.ceilingKey(2000), map.minKey(2000, 4000));
+        
+        map.removeRange(2000, 4000);
+        reference.subMap(2000, 4000).clear();
+        assertEquals(reference.size(), map.size());
+        assertEquals(-1, map.minKey(2000, 4000));
+        assertArrayEquals(new long[0], map.sortedEntries(2000, 4000));
+        for (Map.Entry<Integer, Integer> entry : reference.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
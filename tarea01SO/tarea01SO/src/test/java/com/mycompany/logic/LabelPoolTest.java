@@ -0,0 +1,86 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Usos de cada etiqueta en una LabelPool compartida entre memorias: las etiquetas salen de la tabla
+ * cuando ninguna posición las usa
+ */
+public class LabelPoolTest {
+    
+    @Test
+    public void labelsLeaveThePoolWhenNoPositionUsesThem() {
+        LabelPool pool = new LabelPool();
+        Memory first = new Memory(100, 20, MemoryStorage.Type.HEAP, pool);
+        Memory second = new Memory(100, 20, MemoryStorage.Type.HEAP, pool);
+        
+        first.loadProgram(new int[] {1, 2, 3}, new String[] {"MOV AX, 1", "LOAD AX", "MOV AX, 1"}, 20);
+        second.loadProgram(new int[] {1, 2}, new String[] {"MOV AX, 1", "ADD BX"}, 20);
+        assertEquals(3, pool.size());
+        
+        // Sobrescribir una posición libera su etiqueta anterior
+        second.writeToMemory(21, 5, "SUB CX");
+        assertEquals(3, pool.size());
+        assertEquals("SUB CX", second.getLabel(21));
+        
+        first.clearUserMemory();
+        assertEquals(2, pool.size());
+        assertEquals("MOV AX, 1", second.getLabel(20));
+        
+        second.resizeMemory(20);
+        assertEquals(0, pool.size());
+    }
+    
+    @Test
+    public void scheduledProcessesShareLabelTextAndShowTheirPid() {
+        LabelPool pool = new LabelPool();
+        Memory memory = new Memory(100, 20, MemoryStorage.Type.HEAP, pool);
+        Scheduler scheduler = new Scheduler(memory, new CPU(memory), SchedulingPolicy.FCFS, 0);
+        int[] words = {
+            Instruction.encode(Instruction.OP_MOV, Instruction.REG_CX, 1),
+            Instruction.encode(Instruction.OP_LOAD, Instruction.REG_BX, 0)
+        };
+        AssembledProgram program = new AssembledProgram(words, new String[] {"MOV CX, 1", "LOAD BX"});
+        scheduler.admit("uno", program, 10, 0, 0);
+        scheduler.admit("dos", program, 10, 0, 0);
+        
+        // El pid no entra en la tabla: las dos particiones usan las mismas dos etiquetas
+        assertEquals(2, pool.size());
+        assertEquals("LOAD BX", memory.getLabel(31));
+        assertEquals("P1: MOV CX, 1", scheduler.getLabel(20));
+        assertEquals("P2: LOAD BX", scheduler.getLabel(31));
+        assertEquals("", scheduler.getLabel(45));
+    }
+    
+    @Test
+    public void releasedIdentifiersAreReused() {
+        LabelPool pool = new LabelPool();
+        int first = pool.intern("LOAD AX");
+        pool.intern("ADD BX");
+        pool.release(first);
+        
+        assertEquals(first, pool.intern("STORE CX"));
+        assertEquals("STORE CX", pool.get(first));
+        assertEquals(2, pool.size());
+    }
+    
+    @Test
+    public void rejectsReleasingMoreThanInterned() {
+        LabelPool pool = new LabelPool();
+        int id = pool.intern("LOAD AX");
+        pool.release(id);
+        assertThrows(IllegalStateException.class, () -> pool.release(id));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Ida y vuelta de una imagen .mpi con depuración y texto, e imágenes truncadas o con longitudes
+ * inválidas que se rechazan con IllegalArgumentException
+ */
+public class ProgramImageTest {
+    // Encabezado de 32 bytes: el offset de depuración es el long en la posición 16
+    private static final int DEBUG_OFFSET_POSITION = 16;
+    
+    @TempDir
+    Path directory;
+    
+    private Path writeImage() throws IOException {
+        int[] words = {
+            Instruction.encode(Instruction.OP_MOV, Instruction.REG_AX, 5),
+            Instruction.encode(Instruction.OP_LOAD, Instruction.REG_AX, 0),
+            Instruction.encode(Instruction.OP_ADD, Instruction.REG_BX, 0)
+        };
+        AssembledProgram program = new AssembledProgram(words, new String[] {"MOV AX, 5", "LOAD AX", "ADD BX"},
+                                                        new int[] {1, 2, 4});
+        Path file = directory.resolve("programa.mpi");
+        ProgramImage.write(program, file, true);
+        return file;
+    }
+    
+    @Test
+    public void roundTripKeepsWordsLinesAndText() throws IOException {
+        AssembledProgram program = ProgramImage.read(writeImage());
+        assertEquals(3, program.size());
+        assertEquals(Instruction.encode(Instruction.OP_MOV, Instruction.REG_AX, 5), program.getWord(0));
+        assertEquals(4, program.getLineNumber(2));
+        assertEquals("LOAD AX", program.getSourceLine(1));
+    }
+    
+    @Test
+    public void rejectsTruncatedText() throws IOException {
+        Path file = writeImage();
+        byte[] bytes = Files.readAllBytes(file);
+        // Sin los últimos bytes del texto de la última instrucción
+        for (int cut = 1; cut <= 10; cut++) {
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - cut));
+            assertThrows(IllegalArgumentException.class, () -> ProgramImage.read(file), "cortado " + cut);
+        }
+    }
+    
+    @Test
+    public void rejectsNegativeTextLength() throws IOException {
+        Path file = writeImage();
+        byte[] bytes = Files.readAllBytes(file);
+        // El texto empieza después del encabezado, 3 palabras y 3 números de línea
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(32 + 12 + 12, -5);
+        Files.write(file, bytes);
+        assertThrows(IllegalArgumentException.class, () -> ProgramImage.read(file));
+    }
+    
+    @Test
+    public void rejectsDebugSectionPastEndOfFile() throws IOException {
+        Path file = writeImage();
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putLong(DEBUG_OFFSET_POSITION, bytes.length - 4);
+        Files.write(file, bytes);
+        assertThrows(IllegalArgumentException.class, () -> ProgramImage.read(file));
+    }
+    
+    @Test
+    public void readsImageWithoutDebug() throws IOException {
+        int[] words = {Instruction.encode(Instruction.OP_SUB, Instruction.REG_CX, 0)};
+        Path file = directory.resolve("solo.mpi");
+        ProgramImage.write(new AssembledProgram(words, null, null), file, true);
+        assertArrayEquals(words, ProgramImage.read(file).copyWords());
+    }
+}
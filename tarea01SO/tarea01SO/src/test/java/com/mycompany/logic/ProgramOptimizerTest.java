@@ -0,0 +1,86 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * El optimizador no toca programas cuyo STORE escribe sobre una instrucción que todavía no se ejecutó
+ */
+public class ProgramOptimizerTest {
+    
+    private static AssembledProgram program(int... words) {
+        return new AssembledProgram(words, null, null);
+    }
+    
+    private static int mov(int register, int value) {
+        return Instruction.encode(Instruction.OP_MOV, register, value);
+    }
+    
+    private static int op(int opCode, int register) {
+        return Instruction.encode(opCode, register, 0);
+    }
+    
+    @Test
+    public void refusesStoreIntoLaterInstruction() {
+        // El STORE deja AC (un MOV CX,9 codificado) en la posición 5, que se ejecuta después
+        AssembledProgram original = program(
+                mov(Instruction.REG_AX, mov(Instruction.REG_CX, 9)),
+                op(Instruction.OP_LOAD, Instruction.REG_AX),
+                mov(Instruction.REG_BX, 5),
+                op(Instruction.OP_STORE, Instruction.REG_BX),
+                mov(Instruction.REG_DX, 1),
+                mov(Instruction.REG_CX, 1),
+                op(Instruction.OP_ADD, Instruction.REG_CX));
+        
+        OptimizedProgram optimized = ProgramOptimizer.optimize(original);
+        assertFalse(optimized.isOptimized());
+        assertTrue(optimized.getSkippedReason().contains("modifica"), optimized.getSkippedReason());
+        assertSame(original, optimized.getProgram());
+        assertTrue(ProgramOptimizer.verify(optimized, 200, 20).isEmpty());
+    }
+    
+    @Test
+    public void allowsStoreIntoInstructionAlreadyExecuted() {
+        AssembledProgram original = program(
+                mov(Instruction.REG_AX, 1),
+                mov(Instruction.REG_AX, 2),
+                op(Instruction.OP_ADD, Instruction.REG_AX),
+                mov(Instruction.REG_BX, 0),
+                op(Instruction.OP_STORE, Instruction.REG_BX),
+                mov(Instruction.REG_CX, 4));
+        
+        OptimizedProgram optimized = ProgramOptimizer.optimize(original);
+        assertTrue(optimized.isOptimized(), optimized.getSkippedReason());
+        assertTrue(ProgramOptimizer.verify(optimized, 200, 20).isEmpty());
+    }
+    
+    @Test
+    public void removesOverwrittenMovesAndKeepsResults() {
+        AssembledProgram original = program(
+                mov(Instruction.REG_AX, 1),
+                mov(Instruction.REG_AX, 2),
+                op(Instruction.OP_ADD, Instruction.REG_AX),
+                mov(Instruction.REG_BX, 7),
+                op(Instruction.OP_SUB, Instruction.REG_BX),
+                mov(Instruction.REG_CX, 50),
+                op(Instruction.OP_STORE, Instruction.REG_CX));
+        
+        OptimizedProgram optimized = ProgramOptimizer.optimize(original);
+        assertTrue(optimized.isOptimized(), optimized.getSkippedReason());
+        assertTrue(optimized.getProgram().size() < original.size(), optimized.getReport());
+        assertEquals("[]", ProgramOptimizer.verify(optimized, 200, 20).toString());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * nextNonZero de SparseMemoryStorage contra un HeapMemoryStorage, con escrituras, ceros y
+ * borrados entre búsquedas para que las claves ordenadas se tengan que volver a armar
+ */
+public class SparseMemoryStorageTest {
+    private static final int SIZE = 20_000;
+    
+    @Test
+    public void nextNonZeroMatchesHeapStorage() {
+        Random random = new Random(5);
+        MemoryStorage sparse = MemoryStorage.Type.SPARSE.create(SIZE);
+        MemoryStorage heap = MemoryStorage.Type.HEAP.create(SIZE);
+        
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 50; i++) {
+                int address = random.nextInt(SIZE);
+                int value = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(100);
+                sparse.set(address, value);
+                heap.set(address, value);
+            }
+            if (round % 50 == 49) {
+                int from = random.nextInt(SIZE);
+                int to = Math.min(SIZE, from + random.nextInt(2000));
+                sparse.clear(from, to);
+                heap.clear(from, to);
+            }
+            
+            // Rangos grandes (claves ordenadas) y chicos (dirección por dirección)
+            int from = random.nextInt(SIZE);
+            int to = random.nextBoolean() ? SIZE : Math.min(SIZE, from + random.nextInt(20));
+            int address = sparse.nextNonZero(from, to);
+            assertEquals(heap.nextNonZero(from, to), address, "desde " + from + " hasta " + to);
+            // Un recorrido completo con las claves ya armadas
+            if (round % 20 == 0) {
+                int expected = heap.nextNonZero(0, SIZE);
+                int actual = sparse.nextNonZero(0, SIZE);
+                while (expected >= 0) {
+                    assertEquals(expected, actual);
+                    expected = heap.nextNonZero(expected + 1, SIZE);
+                    actual = sparse.nextNonZero(actual + 1, SIZE);
+                }
+                assertEquals(-1, actual);
+            }
+        }
+    }
+}
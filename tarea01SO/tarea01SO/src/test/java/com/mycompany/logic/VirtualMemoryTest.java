@@ -0,0 +1,133 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.logic;
+
+import java.io.IOException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author gadyr
+ */
+
+/**
+ * Fallos de página y desalojos de VirtualMemory con la cadena de referencias clásica,
+ * aciertos de la TLB y datos que pasan por el área de intercambio
+ */
+public class VirtualMemoryTest {
+    private static final int PAGE_SIZE = 4;
+    private static final int[] REFERENCES = {7, 0, 1, 2, 0, 3, 0, 4, 2, 3, 0, 3, 2, 1, 2, 0, 1, 7, 0, 1};
+    
+    private Memory memory;
+    private SwapStore swap;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        memory = new Memory(200, 20);
+        swap = SwapStore.createTemporary(PAGE_SIZE);
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        swap.close();
+    }
+    
+    private VirtualMemory create(int frames, PageReplacementPolicy policy) {
+        VirtualMemory virtual = new VirtualMemory(memory, 100, frames, PAGE_SIZE, 4, 4, policy, swap);
+        virtual.createAddressSpace(1, 8 * PAGE_SIZE);
+        virtual.switchTo(1);
+        return virtual;
+    }
+    
+    private static int[] referenceAddresses() {
+        int[] addresses = new int[REFERENCES.length];
+        for (int i = 0; i < REFERENCES.length; i++) {
+            // Un desplazamiento distinto en cada acceso: la página es lo único que cuenta
+            addresses[i] = REFERENCES[i] * PAGE_SIZE + (i & (PAGE_SIZE - 1));
+        }
+        return addresses;
+    }
+    
+    private void assertFaults(PageReplacementPolicy policy, int expected) {
+        VirtualMemory virtual = create(3, policy);
+        virtual.runTrace(1, referenceAddresses(), null);
+        VirtualMemoryStats stats = virtual.getStats();
+        assertEquals(expected, stats.getPageFaults(), policy.toString());
+        // Los tres primeros fallos ocupan marcos libres; el resto desaloja una página
+        assertEquals(expected - 3, stats.getEvictions(), policy.toString());
+        assertEquals(0, stats.getWriteBacks(), policy.toString());
+    }
+    
+    @Test
+    public void fifoFaultsOnReferenceString() {
+        assertFaults(PageReplacementPolicy.FIFO, 15);
+    }
+    
+    @Test
+    public void lruFaultsOnReferenceString() {
+        assertFaults(PageReplacementPolicy.LRU, 12);
+    }
+    
+    @Test
+    public void optimalFaultsOnReferenceString() {
+        assertFaults(PageReplacementPolicy.OPTIMAL, 9);
+    }
+    
+    @Test
+    public void repeatedAccessesHitTheTlb() {
+        VirtualMemory virtual = create(3, PageReplacementPolicy.LRU);
+        for (int i = 0; i < 10; i++) {
+            virtual.read(PAGE_SIZE + (i & (PAGE_SIZE - 1)));
+        }
+        VirtualMemoryStats stats = virtual.getStats();
+        assertEquals(10, stats.getAccesses());
+        assertEquals(1, stats.getPageFaults());
+        assertEquals(9, stats.getTlbHits());
+    }
+    
+    @Test
+    public void tlbEntriesSurviveAddressSpaceSwitch() {
+        VirtualMemory virtual = create(4, PageReplacementPolicy.LRU);
+        virtual.createAddressSpace(2, 8 * PAGE_SIZE);
+        virtual.write(0, 1);
+        virtual.switchTo(2);
+        virtual.write(0, 2);
+        virtual.switchTo(1);
+        virtual.resetStats();
+        
+        // Cada proceso tiene su propia página 0 y su entrada en la TLB sigue ahí
+        assertEquals(1, virtual.read(0));
+        virtual.switchTo(2);
+        assertEquals(2, virtual.read(0));
+        assertEquals(2, virtual.getStats().getTlbHits());
+        assertEquals(0, virtual.getStats().getPageFaults());
+    }
+    
+    @Test
+    public void evictedPagesComeBackFromSwap() {
+        VirtualMemory virtual = create(2, PageReplacementPolicy.FIFO);
+        for (int page = 0; page < 4; page++) {
+            assertTrue(virtual.write(page * PAGE_SIZE + 1, 100 + page));
+        }
+        VirtualMemoryStats stats = virtual.getStats();
+        assertEquals(2, stats.getEvictions());
+        assertEquals(2, stats.getWriteBacks());
+        
+        // peek lee la página desalojada del intercambio sin provocar un fallo
+        assertEquals(100, virtual.peek(1));
+        assertEquals(4, virtual.getStats().getPageFaults());
+        
+        for (int page = 0; page < 4; page++) {
+            assertEquals(100 + page, virtual.read(page * PAGE_SIZE + 1), "página " + page);
+        }
+        assertTrue(virtual.getStats().getSwapIns() >= 2);
+        assertEquals(0, virtual.read(3 * PAGE_SIZE));
+    }
+}